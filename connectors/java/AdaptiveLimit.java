@@ -0,0 +1,64 @@
+/**
+ * Adjusts a concurrency limit from the round-trip times of finished requests, in the
+ * manner of TCP Vegas. The lowest RTT seen stands for an idle server; the ratio of a
+ * sample to it estimates how many requests are queued behind the server's connection
+ * pool ({@code limit * (1 - minRtt / rtt)}). The limit grows while that queue is short,
+ * shrinks as it builds up, and is cut multiplicatively on timeouts and overload
+ * statuses. The baseline is re-measured periodically so it follows a server whose
+ * idle latency changes.
+ *
+ * Not thread-safe; {@link InFlightLimiter} calls it under its lock.
+ */
+class AdaptiveLimit {
+    private static final int PROBE_INTERVAL = 1000;
+    private static final double BACKOFF_RATIO = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private long minRttNanos = Long.MAX_VALUE;
+    private int samples;
+
+    AdaptiveLimit(int minLimit, int maxLimit) {
+        if (minLimit <= 0 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("Invalid limit range: " + minLimit + " to " + maxLimit);
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+    }
+
+    int initialLimit() {
+        return Math.max(minLimit, Math.min(maxLimit, 20));
+    }
+
+    /**
+     * The new limit after a request finished
+     * @param rttNanos Round-trip time of the request, or -1 if it got no response
+     * @param inFlight Requests in flight when it finished, itself included
+     * @param overloaded Whether it timed out or was answered with 429, 503 or 504
+     */
+    int update(int limit, long rttNanos, int inFlight, boolean overloaded) {
+        if (overloaded) {
+            return Math.max(minLimit, (int) (limit * BACKOFF_RATIO));
+        }
+        if (rttNanos <= 0) {
+            return limit;
+        }
+        if (++samples % PROBE_INTERVAL == 0) {
+            minRttNanos = rttNanos;
+        }
+        minRttNanos = Math.min(minRttNanos, rttNanos);
+
+        // Only a busy client learns anything about the server's capacity
+        if (inFlight * 2 < limit) {
+            return limit;
+        }
+        int step = Math.max(1, (int) Math.log10(limit));
+        double queued = limit * (1 - (double) minRttNanos / rttNanos);
+        if (queued < 3 * step) {
+            limit += step;
+        } else if (queued > 6 * step) {
+            limit -= step;
+        }
+        return Math.max(minLimit, Math.min(maxLimit, limit));
+    }
+}
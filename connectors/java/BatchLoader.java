@@ -0,0 +1,131 @@
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Coalesces concurrent single-key lookups into batch requests, DataLoader-style.
+ * Keys requested within a short window are buffered and dispatched together once
+ * the window elapses or the batch is full; each caller's future then completes
+ * with its own value, or null if the batch had no value for its key.
+ */
+class BatchLoader<K, V> {
+    private final Function<Collection<K>, CompletableFuture<Map<K, V>>> batchFunction;
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final ScheduledExecutorService scheduler;
+
+    private Map<K, CompletableFuture<V>> pending = new LinkedHashMap<>();
+    private ScheduledFuture<?> timer;
+    private boolean closed;
+
+    /**
+     * @param batchFunction Resolves a batch of distinct keys to their values
+     * @param windowNanos How long the first key of a batch waits for company
+     * @param maxBatchSize Number of distinct keys that dispatches a batch immediately
+     * @param scheduler Runs the window timers
+     */
+    BatchLoader(Function<Collection<K>, CompletableFuture<Map<K, V>>> batchFunction,
+                long windowNanos, int maxBatchSize, ScheduledExecutorService scheduler) {
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("maxBatchSize must be positive: " + maxBatchSize);
+        }
+        this.batchFunction = batchFunction;
+        this.windowNanos = windowNanos;
+        this.maxBatchSize = maxBatchSize;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Queue a key for the next batch
+     */
+    CompletableFuture<V> load(K key) {
+        CompletableFuture<V> result;
+        Map<K, CompletableFuture<V>> full = null;
+        synchronized (this) {
+            if (closed) {
+                return CompletableFuture.failedFuture(new IllegalStateException("Client is closed"));
+            }
+            result = pending.get(key);
+            if (result == null) {
+                result = new CompletableFuture<>();
+                pending.put(key, result);
+                if (pending.size() >= maxBatchSize) {
+                    full = takePending();
+                } else if (timer == null) {
+                    timer = scheduler.schedule(this::flush, windowNanos, TimeUnit.NANOSECONDS);
+                }
+            }
+        }
+        if (full != null) {
+            dispatch(full);
+        }
+        // Callers sharing a key each get their own future, so one cancelling does not affect the others
+        return result.copy();
+    }
+
+    /**
+     * Dispatch whatever is buffered without waiting for the window to elapse
+     */
+    void flush() {
+        Map<K, CompletableFuture<V>> batch;
+        synchronized (this) {
+            batch = takePending();
+        }
+        if (!batch.isEmpty()) {
+            dispatch(batch);
+        }
+    }
+
+    /**
+     * Fail whatever is buffered and every later load. Batches already dispatched
+     * still complete; the scheduler is left to its owner.
+     */
+    void close() {
+        Map<K, CompletableFuture<V>> batch;
+        synchronized (this) {
+            closed = true;
+            batch = takePending();
+        }
+        IllegalStateException closedError = new IllegalStateException("Client is closed");
+        for (CompletableFuture<V> result : batch.values()) {
+            result.completeExceptionally(closedError);
+        }
+    }
+
+    private Map<K, CompletableFuture<V>> takePending() {
+        Map<K, CompletableFuture<V>> batch = pending;
+        pending = new LinkedHashMap<>();
+        if (timer != null) {
+            timer.cancel(false);
+            timer = null;
+        }
+        return batch;
+    }
+
+    private void dispatch(Map<K, CompletableFuture<V>> batch) {
+        CompletableFuture<Map<K, V>> values;
+        try {
+            values = batchFunction.apply(batch.keySet());
+        } catch (RuntimeException e) {
+            values = CompletableFuture.failedFuture(e);
+        }
+
+        values.whenComplete((result, error) -> {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null
+                    ? error.getCause() : error;
+            for (Map.Entry<K, CompletableFuture<V>> entry : batch.entrySet()) {
+                if (cause != null) {
+                    entry.getValue().completeExceptionally(cause);
+                } else {
+                    entry.getValue().complete(result.get(entry.getKey()));
+                }
+            }
+        });
+    }
+}
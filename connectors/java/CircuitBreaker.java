@@ -0,0 +1,181 @@
+import java.time.Duration;
+
+/**
+ * Guards one endpoint of a {@link GaiaCoreClient} according to a {@link CircuitBreakerPolicy}.
+ * Closed, it lets every call through and remembers the outcome of the latest ones; once
+ * their failure or slow-call rate crosses a threshold it opens and rejects calls. After
+ * the open duration it turns half-open and admits a few probes: if they all succeed the
+ * breaker closes with a clean slate, and any failed or slow probe opens it again.
+ *
+ * Instances are created by the client and exposed through
+ * {@link GaiaCoreClient#getCircuitBreakers()} for monitoring.
+ */
+public final class CircuitBreaker {
+    private static final byte FAILED = 1;
+    private static final byte SLOW = 2;
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final String endpoint;
+    private final CircuitBreakerPolicy policy;
+    private final byte[] outcomes;
+    private int next;
+    private int calls;
+    private int failures;
+    private int slowCalls;
+    private State state = State.CLOSED;
+    private long openedAt;
+    private int probesInFlight;
+    private int probeSuccesses;
+    private long notPermitted;
+    private long timesOpened;
+
+    CircuitBreaker(String endpoint, CircuitBreakerPolicy policy) {
+        this.endpoint = endpoint;
+        this.policy = policy;
+        this.outcomes = new byte[policy.getWindowSize()];
+    }
+
+    /**
+     * Ask to make a call; every permitted call must be followed by {@link #onResult} or {@link #onIgnored}
+     */
+    synchronized boolean tryAcquire() {
+        if (state == State.CLOSED) {
+            return true;
+        }
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openedAt < policy.getOpenNanos()) {
+                notPermitted++;
+                return false;
+            }
+            state = State.HALF_OPEN;
+            probesInFlight = 0;
+            probeSuccesses = 0;
+        }
+        if (probesInFlight + probeSuccesses >= policy.getHalfOpenCalls()) {
+            notPermitted++;
+            return false;
+        }
+        probesInFlight++;
+        return true;
+    }
+
+    /**
+     * Record the outcome of a permitted call
+     * @param durationNanos Time until the response started, or until the call failed
+     */
+    synchronized void onResult(boolean failed, long durationNanos) {
+        boolean slow = durationNanos >= policy.getSlowCallNanos();
+        switch (state) {
+            case CLOSED:
+                remember((byte) ((failed ? FAILED : 0) | (slow ? SLOW : 0)));
+                if (calls >= policy.getMinimumCalls()
+                        && (getFailureRate() >= policy.getFailureRateThreshold()
+                            || getSlowCallRate() >= policy.getSlowCallRateThreshold())) {
+                    open();
+                }
+                break;
+            case HALF_OPEN:
+                if (probesInFlight > 0) probesInFlight--;
+                if (failed || slow) {
+                    open();
+                } else if (++probeSuccesses >= policy.getHalfOpenCalls()) {
+                    close();
+                }
+                break;
+            default:
+                break; // a call that started before the breaker opened
+        }
+    }
+
+    /**
+     * A permitted call ended without a verdict on the endpoint, e.g. it was cancelled
+     */
+    synchronized void onIgnored() {
+        if (state == State.HALF_OPEN && probesInFlight > 0) {
+            probesInFlight--;
+        }
+    }
+
+    /**
+     * The exception for a call this breaker rejected
+     */
+    synchronized CircuitOpenException rejection() {
+        long remaining = state == State.OPEN ? policy.getOpenNanos() - (System.nanoTime() - openedAt) : 0;
+        return new CircuitOpenException(endpoint, Duration.ofNanos(Math.max(0, remaining)));
+    }
+
+    private void remember(byte outcome) {
+        if (calls == outcomes.length) {
+            byte evicted = outcomes[next];
+            if ((evicted & FAILED) != 0) failures--;
+            if ((evicted & SLOW) != 0) slowCalls--;
+        } else {
+            calls++;
+        }
+        outcomes[next] = outcome;
+        next = (next + 1) % outcomes.length;
+        if ((outcome & FAILED) != 0) failures++;
+        if ((outcome & SLOW) != 0) slowCalls++;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = System.nanoTime();
+        timesOpened++;
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        next = 0;
+        calls = 0;
+        failures = 0;
+        slowCalls = 0;
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * Percentage of failed calls among those in the window
+     */
+    public synchronized double getFailureRate() {
+        return calls == 0 ? 0 : 100.0 * failures / calls;
+    }
+
+    /**
+     * Percentage of slow calls among those in the window
+     */
+    public synchronized double getSlowCallRate() {
+        return calls == 0 ? 0 : 100.0 * slowCalls / calls;
+    }
+
+    /**
+     * Calls in the window
+     */
+    public synchronized int getBufferedCalls() {
+        return calls;
+    }
+
+    /**
+     * Calls rejected while open or while the half-open probes were taken
+     */
+    public synchronized long getNotPermittedCalls() {
+        return notPermitted;
+    }
+
+    public synchronized long getTimesOpened() {
+        return timesOpened;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%s %s failures=%.0f%% slow=%.0f%% calls=%d rejected=%d opened=%d",
+                endpoint, state, getFailureRate(), getSlowCallRate(), calls, notPermitted, timesOpened);
+    }
+}
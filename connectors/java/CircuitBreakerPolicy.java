@@ -0,0 +1,158 @@
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * When a {@link GaiaCoreClient} stops calling a failing endpoint. Every endpoint and RPC
+ * function gets its own {@link CircuitBreaker}, which opens once enough of its latest
+ * calls failed (connection errors, timeouts, 5xx, 408 or 429) or were slow. While open,
+ * calls fail at once with a {@link CircuitOpenException} instead of tying up a thread;
+ * after {@link Builder#openDuration} a few probe calls decide whether to close it again.
+ *
+ * Example usage:
+ *     GaiaCoreClient client = GaiaCoreClient.builder(url)
+ *             .circuitBreakers(CircuitBreakerPolicy.builder()
+ *                     .failureRateThreshold(50)
+ *                     .slowCalls(Duration.ofSeconds(5), 80)
+ *                     .openDuration(Duration.ofSeconds(30))
+ *                     .build())
+ *             .build();
+ */
+public final class CircuitBreakerPolicy {
+    private final double failureRateThreshold;
+    private final long slowCallNanos;
+    private final double slowCallRateThreshold;
+    private final int windowSize;
+    private final int minimumCalls;
+    private final long openNanos;
+    private final int halfOpenCalls;
+    private final Set<String> endpoints;
+
+    private CircuitBreakerPolicy(Builder builder) {
+        this.failureRateThreshold = builder.failureRateThreshold;
+        this.slowCallNanos = builder.slowCallDuration.toNanos();
+        this.slowCallRateThreshold = builder.slowCallRateThreshold;
+        this.windowSize = builder.windowSize;
+        this.minimumCalls = Math.min(builder.minimumCalls, builder.windowSize);
+        this.openNanos = builder.openDuration.toNanos();
+        this.halfOpenCalls = builder.halfOpenCalls;
+        this.endpoints = builder.endpoints != null ? Collections.unmodifiableSet(builder.endpoints) : null;
+    }
+
+    /**
+     * Open at a 50% failure rate, or when every call takes 10s or more, over the last
+     * 50 calls (at least 20); stay open for 30s, then probe with 3 calls
+     */
+    public static CircuitBreakerPolicy defaults() {
+        return builder().build();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Configuration for a {@link CircuitBreakerPolicy}
+     */
+    public static class Builder {
+        private double failureRateThreshold = 50;
+        private Duration slowCallDuration = Duration.ofSeconds(10);
+        private double slowCallRateThreshold = 100;
+        private int windowSize = 50;
+        private int minimumCalls = 20;
+        private Duration openDuration = Duration.ofSeconds(30);
+        private int halfOpenCalls = 3;
+        private Set<String> endpoints;
+
+        private Builder() {}
+
+        /**
+         * Percentage of failed calls in the window that opens the breaker
+         */
+        public Builder failureRateThreshold(double percent) {
+            this.failureRateThreshold = percentage(percent);
+            return this;
+        }
+
+        /**
+         * Calls whose response takes at least {@code duration} to start count as slow, and
+         * {@code ratePercent} percent of slow calls in the window opens the breaker
+         */
+        public Builder slowCalls(Duration duration, double ratePercent) {
+            if (duration.isNegative() || duration.isZero()) {
+                throw new IllegalArgumentException("duration must be positive: " + duration);
+            }
+            this.slowCallDuration = duration;
+            this.slowCallRateThreshold = percentage(ratePercent);
+            return this;
+        }
+
+        /**
+         * Judge the last {@code size} calls, once at least {@code minimumCalls} have been made
+         */
+        public Builder window(int size, int minimumCalls) {
+            if (size <= 0 || minimumCalls <= 0) {
+                throw new IllegalArgumentException("Invalid window: " + size + " calls, minimum " + minimumCalls);
+            }
+            this.windowSize = size;
+            this.minimumCalls = minimumCalls;
+            return this;
+        }
+
+        /**
+         * How long an open breaker rejects calls before letting probes through
+         */
+        public Builder openDuration(Duration openDuration) {
+            if (openDuration.isNegative()) {
+                throw new IllegalArgumentException("openDuration must not be negative: " + openDuration);
+            }
+            this.openDuration = openDuration;
+            return this;
+        }
+
+        /**
+         * Probe calls allowed while half-open; all must succeed to close the breaker
+         */
+        public Builder halfOpenCalls(int calls) {
+            if (calls <= 0) {
+                throw new IllegalArgumentException("calls must be positive: " + calls);
+            }
+            this.halfOpenCalls = calls;
+            return this;
+        }
+
+        /**
+         * Only guard these endpoints, e.g. {@code external_exposure} or
+         * {@code rpc/spatial_join_exposure}. All endpoints by default.
+         */
+        public Builder endpoints(String... endpoints) {
+            this.endpoints = new HashSet<>(Arrays.asList(endpoints));
+            return this;
+        }
+
+        public CircuitBreakerPolicy build() {
+            return new CircuitBreakerPolicy(this);
+        }
+
+        private static double percentage(double percent) {
+            if (percent <= 0 || percent > 100) {
+                throw new IllegalArgumentException("percentage must be in (0, 100]: " + percent);
+            }
+            return percent;
+        }
+    }
+
+    double getFailureRateThreshold() { return failureRateThreshold; }
+    long getSlowCallNanos() { return slowCallNanos; }
+    double getSlowCallRateThreshold() { return slowCallRateThreshold; }
+    int getWindowSize() { return windowSize; }
+    int getMinimumCalls() { return minimumCalls; }
+    long getOpenNanos() { return openNanos; }
+    int getHalfOpenCalls() { return halfOpenCalls; }
+
+    boolean covers(String endpoint) {
+        return endpoints == null || endpoints.contains(endpoint);
+    }
+}
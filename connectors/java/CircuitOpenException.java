@@ -0,0 +1,32 @@
+import java.time.Duration;
+
+/**
+ * A call was rejected without being sent because the {@link CircuitBreaker} for its
+ * endpoint is open after recent failures or slow responses.
+ */
+public class CircuitOpenException extends RequestRejectedException {
+    private static final long serialVersionUID = 1L;
+
+    private final String endpoint;
+    private final Duration retryIn;
+
+    public CircuitOpenException(String endpoint, Duration retryIn) {
+        super("Circuit breaker open for " + endpoint + "; probing again in " + retryIn.toMillis() + "ms");
+        this.endpoint = endpoint;
+        this.retryIn = retryIn;
+    }
+
+    /**
+     * Endpoint or RPC path below the API root, e.g. {@code rpc/spatial_join_exposure}
+     */
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    /**
+     * Time until the breaker lets probe calls through again
+     */
+    public Duration getRetryIn() {
+        return retryIn;
+    }
+}
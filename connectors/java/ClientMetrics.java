@@ -0,0 +1,35 @@
+/**
+ * Receives a measurement for every request a {@link GaiaCoreClient} makes. Endpoints
+ * are named by their path below the API root, such as {@code location} or
+ * {@code rpc/spatial_join_exposure}.
+ *
+ * Implementations must be thread-safe and cheap, since they are called on the
+ * threads that send and decode requests. {@link InMemoryMetrics} keeps histograms
+ * per endpoint and can publish them over JMX.
+ */
+public interface ClientMetrics {
+
+    /**
+     * Discards every measurement; the default
+     */
+    ClientMetrics NONE = new ClientMetrics() {};
+
+    /**
+     * A response arrived and, for a successful status, was decoded
+     * @param statusCode HTTP status of the response
+     * @param latencyNanos From sending the request until the body was decoded
+     * @param firstByteNanos From sending the request until the response headers arrived
+     * @param decodeNanos Time spent decoding the body; for responses decoded as they
+     *                    stream in, this includes waiting for the rest of the body
+     * @param responseBytes Size of the body as received, before decompression
+     * @param rows Rows decoded, or -1 when unknown (error responses and streamed reads)
+     */
+    default void recordResponse(String endpoint, int statusCode, long latencyNanos, long firstByteNanos,
+                                long decodeNanos, long responseBytes, long rows) {}
+
+    /**
+     * A request failed without a usable response, such as on a connection error
+     * or a body that could not be decoded
+     */
+    default void recordFailure(String endpoint, Throwable error, long latencyNanos) {}
+}
@@ -0,0 +1,259 @@
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+/**
+ * A query result stored column by column in primitive arrays, with no object per row.
+ * Numeric columns decode into {@code int[]}, {@code long[]} or {@code double[]};
+ * string columns are dictionary-encoded as {@code int[]} codes into a list of
+ * distinct values. Nulls are tracked in a per-column bitmap and read back as
+ * 0 (integers), NaN (doubles) or null (strings).
+ *
+ * Example usage:
+ *     ColumnarResult.Schema columns = ColumnarResult.schema()
+ *             .withLong("person_id").withDouble("value_as_number");
+ *     ColumnarResult result = client.queryColumns("external_exposure", "working", columns, null, null, null, null);
+ *     long[] persons = result.getLongs("person_id");
+ *     double[] values = result.getDoubles("value_as_number");
+ */
+public final class ColumnarResult {
+
+    /**
+     * Storage type of a column
+     */
+    public enum Type { INT, LONG, DOUBLE, STRING }
+
+    /**
+     * An immutable, ordered list of columns to decode
+     */
+    public static final class Schema {
+        private final List<String> names;
+        private final List<Type> types;
+
+        private Schema(List<String> names, List<Type> types) {
+            this.names = names;
+            this.types = types;
+        }
+
+        public Schema withInt(String name) { return with(name, Type.INT); }
+        public Schema withLong(String name) { return with(name, Type.LONG); }
+        public Schema withDouble(String name) { return with(name, Type.DOUBLE); }
+        public Schema withString(String name) { return with(name, Type.STRING); }
+
+        public Schema with(String name, Type type) {
+            if (names.contains(name)) {
+                throw new IllegalArgumentException("Duplicate column: " + name);
+            }
+            List<String> newNames = new ArrayList<>(names);
+            List<Type> newTypes = new ArrayList<>(types);
+            newNames.add(name);
+            newTypes.add(type);
+            return new Schema(Collections.unmodifiableList(newNames), Collections.unmodifiableList(newTypes));
+        }
+
+        public List<String> getNames() { return names; }
+        public List<Type> getTypes() { return types; }
+
+        /**
+         * The PostgREST {@code select=} value for these columns
+         */
+        public String toSelect() {
+            return String.join(",", names);
+        }
+    }
+
+    /**
+     * Start an empty schema
+     */
+    public static Schema schema() {
+        return new Schema(Collections.emptyList(), Collections.emptyList());
+    }
+
+    private final Schema schema;
+    private final Map<String, Integer> indexes;
+    private final Object[] columns;
+    private final List<List<String>> dictionaries;
+    private final BitSet[] nulls;
+    private final int size;
+
+    private ColumnarResult(Schema schema, Map<String, Integer> indexes, Object[] columns,
+                           List<List<String>> dictionaries, BitSet[] nulls, int size) {
+        this.schema = schema;
+        this.indexes = indexes;
+        this.columns = columns;
+        this.dictionaries = dictionaries;
+        this.nulls = nulls;
+        this.size = size;
+    }
+
+    public Schema getSchema() { return schema; }
+
+    /**
+     * Number of rows
+     */
+    public int size() { return size; }
+
+    public int[] getInts(String column) { return (int[]) column(column, Type.INT); }
+    public long[] getLongs(String column) { return (long[]) column(column, Type.LONG); }
+    public double[] getDoubles(String column) { return (double[]) column(column, Type.DOUBLE); }
+
+    /**
+     * Dictionary codes of a string column; -1 marks a null
+     */
+    public int[] getStringCodes(String column) { return (int[]) column(column, Type.STRING); }
+
+    /**
+     * Distinct values of a string column, indexed by code
+     */
+    public List<String> getDictionary(String column) {
+        column(column, Type.STRING);
+        return Collections.unmodifiableList(dictionaries.get(indexes.get(column)));
+    }
+
+    /**
+     * Decoded value of a string column at a row
+     */
+    public String getString(String column, int row) {
+        int code = getStringCodes(column)[row];
+        return code < 0 ? null : dictionaries.get(indexes.get(column)).get(code);
+    }
+
+    public boolean isNull(String column, int row) {
+        return nulls[index(column)].get(row);
+    }
+
+    private Object column(String column, Type expected) {
+        int index = index(column);
+        Type actual = schema.types.get(index);
+        if (actual != expected) {
+            throw new IllegalArgumentException("Column '" + column + "' is " + actual + ", not " + expected);
+        }
+        return columns[index];
+    }
+
+    private int index(String column) {
+        Integer index = indexes.get(column);
+        if (index == null) {
+            throw new IllegalArgumentException("Unknown column: " + column);
+        }
+        return index;
+    }
+
+    /**
+     * Decode a top-level JSON array of row objects into column buffers.
+     * Columns not in the schema are skipped.
+     */
+    static ColumnarResult read(JsonReader in, Schema schema) throws IOException {
+        int width = schema.names.size();
+        Map<String, Integer> indexes = new HashMap<>();
+        for (int i = 0; i < width; i++) {
+            indexes.put(schema.names.get(i), i);
+        }
+
+        int capacity = 1024;
+        Object[] columns = new Object[width];
+        BitSet[] nulls = new BitSet[width];
+        List<List<String>> dictionaries = new ArrayList<>();
+        List<Map<String, Integer>> codes = new ArrayList<>();
+        for (int i = 0; i < width; i++) {
+            columns[i] = allocate(schema.types.get(i), capacity);
+            nulls[i] = new BitSet();
+            dictionaries.add(new ArrayList<>());
+            codes.add(new HashMap<>());
+        }
+
+        int size = 0;
+        boolean[] seen = new boolean[width];
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+        } else {
+            in.beginArray();
+            while (in.hasNext()) {
+                if (size == capacity) {
+                    capacity = capacity * 2;
+                    for (int i = 0; i < width; i++) {
+                        columns[i] = grow(columns[i], capacity);
+                    }
+                }
+                Arrays.fill(seen, false);
+
+                in.beginObject();
+                while (in.hasNext()) {
+                    Integer index = indexes.get(in.nextName());
+                    if (index == null) {
+                        in.skipValue();
+                        continue;
+                    }
+                    seen[index] = true;
+                    if (in.peek() == JsonToken.NULL) {
+                        in.nextNull();
+                        setNull(schema.types.get(index), columns[index], size);
+                        nulls[index].set(size);
+                        continue;
+                    }
+                    switch (schema.types.get(index)) {
+                        case INT: ((int[]) columns[index])[size] = in.nextInt(); break;
+                        case LONG: ((long[]) columns[index])[size] = in.nextLong(); break;
+                        case DOUBLE: ((double[]) columns[index])[size] = in.nextDouble(); break;
+                        default:
+                            String value = in.nextString();
+                            Integer code = codes.get(index).get(value);
+                            if (code == null) {
+                                code = dictionaries.get(index).size();
+                                dictionaries.get(index).add(value);
+                                codes.get(index).put(value, code);
+                            }
+                            ((int[]) columns[index])[size] = code;
+                    }
+                }
+                in.endObject();
+
+                for (int i = 0; i < width; i++) {
+                    if (!seen[i]) {
+                        setNull(schema.types.get(i), columns[i], size);
+                        nulls[i].set(size);
+                    }
+                }
+                size++;
+            }
+            in.endArray();
+        }
+
+        for (int i = 0; i < width; i++) {
+            if (Array.getLength(columns[i]) != size) {
+                columns[i] = grow(columns[i], size);
+            }
+        }
+        return new ColumnarResult(schema, indexes, columns, dictionaries, nulls, size);
+    }
+
+    private static Object allocate(Type type, int capacity) {
+        switch (type) {
+            case LONG: return new long[capacity];
+            case DOUBLE: return new double[capacity];
+            default: return new int[capacity];
+        }
+    }
+
+    private static Object grow(Object column, int capacity) {
+        if (column instanceof long[]) return Arrays.copyOf((long[]) column, capacity);
+        if (column instanceof double[]) return Arrays.copyOf((double[]) column, capacity);
+        return Arrays.copyOf((int[]) column, capacity);
+    }
+
+    private static void setNull(Type type, Object column, int row) {
+        if (type == Type.DOUBLE) {
+            ((double[]) column)[row] = Double.NaN;
+        } else if (type == Type.STRING) {
+            ((int[]) column)[row] = -1;
+        }
+    }
+}
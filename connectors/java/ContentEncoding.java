@@ -0,0 +1,94 @@
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * HTTP content coding support for the client. java.net.http neither advertises
+ * nor decodes compressed bodies, so responses are decompressed here as they
+ * stream in. Brotli is not offered as the JDK has no decoder for it.
+ */
+final class ContentEncoding {
+    /** Value sent in {@code Accept-Encoding} */
+    static final String ACCEPTED = "gzip, deflate";
+
+    private ContentEncoding() {}
+
+    /**
+     * Wrap a response body so it is decompressed according to its Content-Encoding header.
+     * An empty body, as sent with 204, 304 and HEAD responses that still carry the
+     * header, is returned as is rather than failing to read a compression header.
+     */
+    static InputStream decode(InputStream body, String contentEncoding) throws IOException {
+        if (contentEncoding == null) {
+            return body;
+        }
+        switch (contentEncoding.trim().toLowerCase(Locale.ROOT)) {
+            case "":
+            case "identity":
+                return body;
+            case "gzip":
+            case "x-gzip": {
+                PushbackInputStream in = new PushbackInputStream(body, 1);
+                return isEmpty(in) ? in : new GZIPInputStream(in, 8192);
+            }
+            case "deflate": {
+                PushbackInputStream in = new PushbackInputStream(body, 1);
+                return isEmpty(in) ? in : inflate(in);
+            }
+            default:
+                body.close();
+                throw new IOException("Unsupported response Content-Encoding: " + contentEncoding);
+        }
+    }
+
+    private static boolean isEmpty(PushbackInputStream in) throws IOException {
+        int first = in.read();
+        if (first < 0) {
+            return true;
+        }
+        in.unread(first);
+        return false;
+    }
+
+    /**
+     * HTTP "deflate" is meant to be zlib-wrapped, but some servers send a raw
+     * deflate stream; sniff the zlib header to tell them apart.
+     */
+    private static InputStream inflate(InputStream body) throws IOException {
+        BufferedInputStream in = new BufferedInputStream(body, 8192);
+        in.mark(2);
+        int first = in.read();
+        int second = in.read();
+        in.reset();
+        boolean zlib = first >= 0 && second >= 0 && (first & 0x0F) == 8 && ((first << 8) | second) % 31 == 0;
+        Inflater inflater = new Inflater(!zlib);
+        return new InflaterInputStream(in, inflater, 8192) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    inflater.end();
+                }
+            }
+        };
+    }
+
+    /**
+     * Gzip a request body
+     */
+    static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, body.length / 4));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out, 8192)) {
+            gzip.write(body);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,134 @@
+import java.io.IOException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * A row of the backbone.data_source table
+ */
+public final class DataSource {
+    private final String dataSourceUuid;
+    private final String orgId;
+    private final String orgSetId;
+    private final String datasetName;
+    private final String datasetVersion;
+    private final String geomType;
+    private final String boundaryType;
+    private final boolean hasAttributes;
+    private final String geomDependencyUuid;
+    private final String downloadMethod;
+    private final String downloadSubtype;
+    private final String downloadDataStandard;
+    private final String downloadFilename;
+    private final String downloadUrl;
+    private final String documentationUrl;
+
+    DataSource(String dataSourceUuid, String orgId, String orgSetId, String datasetName, String datasetVersion,
+               String geomType, String boundaryType, boolean hasAttributes, String geomDependencyUuid,
+               String downloadMethod, String downloadSubtype, String downloadDataStandard,
+               String downloadFilename, String downloadUrl, String documentationUrl) {
+        this.dataSourceUuid = dataSourceUuid;
+        this.orgId = orgId;
+        this.orgSetId = orgSetId;
+        this.datasetName = datasetName;
+        this.datasetVersion = datasetVersion;
+        this.geomType = geomType;
+        this.boundaryType = boundaryType;
+        this.hasAttributes = hasAttributes;
+        this.geomDependencyUuid = geomDependencyUuid;
+        this.downloadMethod = downloadMethod;
+        this.downloadSubtype = downloadSubtype;
+        this.downloadDataStandard = downloadDataStandard;
+        this.downloadFilename = downloadFilename;
+        this.downloadUrl = downloadUrl;
+        this.documentationUrl = documentationUrl;
+    }
+
+    public String getDataSourceUuid() { return dataSourceUuid; }
+    public String getOrgId() { return orgId; }
+    public String getOrgSetId() { return orgSetId; }
+    public String getDatasetName() { return datasetName; }
+    public String getDatasetVersion() { return datasetVersion; }
+    public String getGeomType() { return geomType; }
+    public String getBoundaryType() { return boundaryType; }
+    public boolean hasAttributes() { return hasAttributes; }
+    public String getGeomDependencyUuid() { return geomDependencyUuid; }
+    public String getDownloadMethod() { return downloadMethod; }
+    public String getDownloadSubtype() { return downloadSubtype; }
+    public String getDownloadDataStandard() { return downloadDataStandard; }
+    public String getDownloadFilename() { return downloadFilename; }
+    public String getDownloadUrl() { return downloadUrl; }
+    public String getDocumentationUrl() { return documentationUrl; }
+
+    @Override
+    public String toString() {
+        return "DataSource{dataSourceUuid=" + dataSourceUuid + ", datasetName=" + datasetName
+                + ", datasetVersion=" + datasetVersion + "}";
+    }
+
+    /**
+     * Decodes data_source rows field by field, skipping unknown columns
+     */
+    static final class Adapter extends TypeAdapter<DataSource> {
+        @Override
+        public DataSource read(JsonReader in) throws IOException {
+            String dataSourceUuid = null, orgId = null, orgSetId = null, datasetName = null, datasetVersion = null;
+            String geomType = null, boundaryType = null, geomDependencyUuid = null, downloadMethod = null;
+            String downloadSubtype = null, downloadDataStandard = null, downloadFilename = null;
+            String downloadUrl = null, documentationUrl = null;
+            boolean hasAttributes = false;
+
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "data_source_uuid": dataSourceUuid = JsonFields.readString(in); break;
+                    case "org_id": orgId = JsonFields.readString(in); break;
+                    case "org_set_id": orgSetId = JsonFields.readString(in); break;
+                    case "dataset_name": datasetName = JsonFields.readString(in); break;
+                    case "dataset_version": datasetVersion = JsonFields.readString(in); break;
+                    case "geom_type": geomType = JsonFields.readString(in); break;
+                    case "boundary_type": boundaryType = JsonFields.readString(in); break;
+                    case "has_attributes": hasAttributes = JsonFields.readBoolean(in); break;
+                    case "geom_dependency_uuid": geomDependencyUuid = JsonFields.readString(in); break;
+                    case "download_method": downloadMethod = JsonFields.readString(in); break;
+                    case "download_subtype": downloadSubtype = JsonFields.readString(in); break;
+                    case "download_data_standard": downloadDataStandard = JsonFields.readString(in); break;
+                    case "download_filename": downloadFilename = JsonFields.readString(in); break;
+                    case "download_url": downloadUrl = JsonFields.readString(in); break;
+                    case "documentation_url": documentationUrl = JsonFields.readString(in); break;
+                    default: in.skipValue();
+                }
+            }
+            in.endObject();
+
+            return new DataSource(dataSourceUuid, orgId, orgSetId, datasetName, datasetVersion, geomType,
+                    boundaryType, hasAttributes, geomDependencyUuid, downloadMethod, downloadSubtype,
+                    downloadDataStandard, downloadFilename, downloadUrl, documentationUrl);
+        }
+
+        @Override
+        public void write(JsonWriter out, DataSource value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            JsonFields.writeString(out, "data_source_uuid", value.dataSourceUuid);
+            JsonFields.writeString(out, "org_id", value.orgId);
+            JsonFields.writeString(out, "org_set_id", value.orgSetId);
+            JsonFields.writeString(out, "dataset_name", value.datasetName);
+            JsonFields.writeString(out, "dataset_version", value.datasetVersion);
+            JsonFields.writeString(out, "geom_type", value.geomType);
+            JsonFields.writeString(out, "boundary_type", value.boundaryType);
+            out.name("has_attributes").value(value.hasAttributes);
+            JsonFields.writeString(out, "geom_dependency_uuid", value.geomDependencyUuid);
+            JsonFields.writeString(out, "download_method", value.downloadMethod);
+            JsonFields.writeString(out, "download_subtype", value.downloadSubtype);
+            JsonFields.writeString(out, "download_data_standard", value.downloadDataStandard);
+            JsonFields.writeString(out, "download_filename", value.downloadFilename);
+            JsonFields.writeString(out, "download_url", value.downloadUrl);
+            JsonFields.writeString(out, "documentation_url", value.documentationUrl);
+            out.endObject();
+        }
+    }
+}
@@ -0,0 +1,56 @@
+import java.time.Duration;
+
+/**
+ * A point in time by which an operation must finish. Pass the same deadline to every
+ * step of a larger operation, such as the chunks of a batch lookup or the pages of
+ * {@link GaiaCoreClient#paginate}, so each sub-request only gets the time that is left.
+ * When it passes, the pending request is cancelled and the operation fails with a
+ * {@link DeadlineExceededException}. Each request is also sent with the time left as its
+ * timeout, so the HTTP client aborts the exchange even on Java versions before 16, where
+ * cancelling the request's future, or interrupting a thread blocked on a request, leaves
+ * the exchange running. Retries and hedged copies of a request get the time left too.
+ *
+ * Example usage:
+ *     Deadline deadline = Deadline.after(Duration.ofSeconds(2));
+ *     Map<Integer, Map<String, Object>> locations = client.getLocations(ids, deadline);
+ */
+public final class Deadline {
+    private final long deadlineNanos;
+    private final Duration timeout;
+
+    private Deadline(long deadlineNanos, Duration timeout) {
+        this.deadlineNanos = deadlineNanos;
+        this.timeout = timeout;
+    }
+
+    public static Deadline after(Duration timeout) {
+        if (timeout.isNegative()) {
+            throw new IllegalArgumentException("timeout must not be negative: " + timeout);
+        }
+        return new Deadline(System.nanoTime() + timeout.toNanos(), timeout);
+    }
+
+    /**
+     * Time left, or zero once the deadline has passed
+     */
+    public Duration remaining() {
+        return Duration.ofNanos(Math.max(0, remainingNanos()));
+    }
+
+    public boolean isExpired() {
+        return remainingNanos() <= 0;
+    }
+
+    long remainingNanos() {
+        return deadlineNanos - System.nanoTime();
+    }
+
+    DeadlineExceededException exceeded(String endpoint) {
+        return new DeadlineExceededException("Deadline of " + timeout.toMillis() + "ms exceeded for " + endpoint);
+    }
+
+    @Override
+    public String toString() {
+        return "Deadline[" + remaining().toMillis() + "ms of " + timeout.toMillis() + "ms left]";
+    }
+}
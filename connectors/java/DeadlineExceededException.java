@@ -0,0 +1,12 @@
+import java.net.http.HttpTimeoutException;
+
+/**
+ * An operation ran past its {@link Deadline}. Any request still in flight was cancelled.
+ */
+public class DeadlineExceededException extends HttpTimeoutException {
+    private static final long serialVersionUID = 1L;
+
+    public DeadlineExceededException(String message) {
+        super(message);
+    }
+}
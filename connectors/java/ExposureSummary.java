@@ -0,0 +1,88 @@
+import java.io.IOException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Aggregate of working.external_exposure values for one person or one location,
+ * computed by the server. The id that was not grouped on is 0; statistics over
+ * no non-null values are NaN. Needs PostgREST with {@code PGRST_DB_AGGREGATES_ENABLED=true}.
+ */
+public final class ExposureSummary {
+    /** PostgREST select list for the aggregates, to follow the grouping column */
+    static final String AGGREGATES = "count:value_as_number.count(),mean:value_as_number.avg(),"
+            + "min:value_as_number.min(),max:value_as_number.max()";
+
+    private final long personId;
+    private final long locationId;
+    private final long count;
+    private final double mean;
+    private final double min;
+    private final double max;
+
+    ExposureSummary(long personId, long locationId, long count, double mean, double min, double max) {
+        this.personId = personId;
+        this.locationId = locationId;
+        this.count = count;
+        this.mean = mean;
+        this.min = min;
+        this.max = max;
+    }
+
+    public long getPersonId() { return personId; }
+    public long getLocationId() { return locationId; }
+    /** Number of exposures with a value_as_number */
+    public long getCount() { return count; }
+    public double getMean() { return mean; }
+    public double getMin() { return min; }
+    public double getMax() { return max; }
+
+    @Override
+    public String toString() {
+        return "ExposureSummary{personId=" + personId + ", locationId=" + locationId + ", count=" + count
+                + ", mean=" + mean + ", min=" + min + ", max=" + max + "}";
+    }
+
+    /**
+     * Decodes aggregate rows directly into primitive fields, skipping unknown columns
+     */
+    static final class Adapter extends TypeAdapter<ExposureSummary> {
+        @Override
+        public ExposureSummary read(JsonReader in) throws IOException {
+            long personId = 0, locationId = 0, count = 0;
+            double mean = Double.NaN, min = Double.NaN, max = Double.NaN;
+
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "person_id": personId = JsonFields.readLong(in); break;
+                    case "location_id": locationId = JsonFields.readLong(in); break;
+                    case "count": count = JsonFields.readLong(in); break;
+                    case "mean": mean = JsonFields.readDouble(in); break;
+                    case "min": min = JsonFields.readDouble(in); break;
+                    case "max": max = JsonFields.readDouble(in); break;
+                    default: in.skipValue();
+                }
+            }
+            in.endObject();
+
+            return new ExposureSummary(personId, locationId, count, mean, min, max);
+        }
+
+        @Override
+        public void write(JsonWriter out, ExposureSummary value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            JsonFields.writeId(out, "person_id", value.personId);
+            JsonFields.writeId(out, "location_id", value.locationId);
+            JsonFields.writeLong(out, "count", value.count);
+            JsonFields.writeDouble(out, "mean", value.mean);
+            JsonFields.writeDouble(out, "min", value.min);
+            JsonFields.writeDouble(out, "max", value.max);
+            out.endObject();
+        }
+    }
+}
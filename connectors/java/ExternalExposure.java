@@ -0,0 +1,161 @@
+import java.io.IOException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * A row of the working.external_exposure table.
+ * Missing ids and required concept ids decode as 0, the optional source, operator,
+ * value and unit concepts as null, and missing quantities and values as NaN;
+ * dates are kept as ISO-8601 strings.
+ */
+public final class ExternalExposure {
+    private final long externalExposureId;
+    private final long locationId;
+    private final long personId;
+    private final int exposureConceptId;
+    private final String exposureStartDate;
+    private final String exposureEndDate;
+    private final int exposureTypeConceptId;
+    private final int exposureRelationshipConceptId;
+    private final Integer exposureSourceConceptId;
+    private final String exposureSourceValue;
+    private final String exposureRelationshipSourceValue;
+    private final String doseUnitSourceValue;
+    private final double quantity;
+    private final String modifierSourceValue;
+    private final Integer operatorConceptId;
+    private final double valueAsNumber;
+    private final Integer valueAsConceptId;
+    private final Integer unitConceptId;
+
+    ExternalExposure(long externalExposureId, long locationId, long personId, int exposureConceptId,
+                     String exposureStartDate, String exposureEndDate, int exposureTypeConceptId,
+                     int exposureRelationshipConceptId, Integer exposureSourceConceptId, String exposureSourceValue,
+                     String exposureRelationshipSourceValue, String doseUnitSourceValue, double quantity,
+                     String modifierSourceValue, Integer operatorConceptId, double valueAsNumber,
+                     Integer valueAsConceptId, Integer unitConceptId) {
+        this.externalExposureId = externalExposureId;
+        this.locationId = locationId;
+        this.personId = personId;
+        this.exposureConceptId = exposureConceptId;
+        this.exposureStartDate = exposureStartDate;
+        this.exposureEndDate = exposureEndDate;
+        this.exposureTypeConceptId = exposureTypeConceptId;
+        this.exposureRelationshipConceptId = exposureRelationshipConceptId;
+        this.exposureSourceConceptId = exposureSourceConceptId;
+        this.exposureSourceValue = exposureSourceValue;
+        this.exposureRelationshipSourceValue = exposureRelationshipSourceValue;
+        this.doseUnitSourceValue = doseUnitSourceValue;
+        this.quantity = quantity;
+        this.modifierSourceValue = modifierSourceValue;
+        this.operatorConceptId = operatorConceptId;
+        this.valueAsNumber = valueAsNumber;
+        this.valueAsConceptId = valueAsConceptId;
+        this.unitConceptId = unitConceptId;
+    }
+
+    public long getExternalExposureId() { return externalExposureId; }
+    public long getLocationId() { return locationId; }
+    public long getPersonId() { return personId; }
+    public int getExposureConceptId() { return exposureConceptId; }
+    public String getExposureStartDate() { return exposureStartDate; }
+    public String getExposureEndDate() { return exposureEndDate; }
+    public int getExposureTypeConceptId() { return exposureTypeConceptId; }
+    public int getExposureRelationshipConceptId() { return exposureRelationshipConceptId; }
+    public Integer getExposureSourceConceptId() { return exposureSourceConceptId; }
+    public String getExposureSourceValue() { return exposureSourceValue; }
+    public String getExposureRelationshipSourceValue() { return exposureRelationshipSourceValue; }
+    public String getDoseUnitSourceValue() { return doseUnitSourceValue; }
+    public double getQuantity() { return quantity; }
+    public String getModifierSourceValue() { return modifierSourceValue; }
+    public Integer getOperatorConceptId() { return operatorConceptId; }
+    public double getValueAsNumber() { return valueAsNumber; }
+    public Integer getValueAsConceptId() { return valueAsConceptId; }
+    public Integer getUnitConceptId() { return unitConceptId; }
+
+    @Override
+    public String toString() {
+        return "ExternalExposure{externalExposureId=" + externalExposureId + ", personId=" + personId
+                + ", locationId=" + locationId + ", exposureConceptId=" + exposureConceptId
+                + ", valueAsNumber=" + valueAsNumber + "}";
+    }
+
+    /**
+     * Decodes external_exposure rows directly into primitive fields, skipping unknown columns
+     */
+    static final class Adapter extends TypeAdapter<ExternalExposure> {
+        @Override
+        public ExternalExposure read(JsonReader in) throws IOException {
+            long externalExposureId = 0, locationId = 0, personId = 0;
+            int exposureConceptId = 0, exposureTypeConceptId = 0, exposureRelationshipConceptId = 0;
+            Integer exposureSourceConceptId = null, operatorConceptId = null, valueAsConceptId = null;
+            Integer unitConceptId = null;
+            String exposureStartDate = null, exposureEndDate = null, exposureSourceValue = null;
+            String exposureRelationshipSourceValue = null, doseUnitSourceValue = null, modifierSourceValue = null;
+            double quantity = Double.NaN, valueAsNumber = Double.NaN;
+
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "external_exposure_id": externalExposureId = JsonFields.readLong(in); break;
+                    case "location_id": locationId = JsonFields.readLong(in); break;
+                    case "person_id": personId = JsonFields.readLong(in); break;
+                    case "exposure_concept_id": exposureConceptId = JsonFields.readInt(in); break;
+                    case "exposure_start_date": exposureStartDate = JsonFields.readString(in); break;
+                    case "exposure_end_date": exposureEndDate = JsonFields.readString(in); break;
+                    case "exposure_type_concept_id": exposureTypeConceptId = JsonFields.readInt(in); break;
+                    case "exposure_relationship_concept_id":
+                        exposureRelationshipConceptId = JsonFields.readInt(in); break;
+                    case "exposure_source_concept_id": exposureSourceConceptId = JsonFields.readNullableInt(in); break;
+                    case "exposure_source_value": exposureSourceValue = JsonFields.readString(in); break;
+                    case "exposure_relationship_source_value":
+                        exposureRelationshipSourceValue = JsonFields.readString(in); break;
+                    case "dose_unit_source_value": doseUnitSourceValue = JsonFields.readString(in); break;
+                    case "quantity": quantity = JsonFields.readDouble(in); break;
+                    case "modifier_source_value": modifierSourceValue = JsonFields.readString(in); break;
+                    case "operator_concept_id": operatorConceptId = JsonFields.readNullableInt(in); break;
+                    case "value_as_number": valueAsNumber = JsonFields.readDouble(in); break;
+                    case "value_as_concept_id": valueAsConceptId = JsonFields.readNullableInt(in); break;
+                    case "unit_concept_id": unitConceptId = JsonFields.readNullableInt(in); break;
+                    default: in.skipValue();
+                }
+            }
+            in.endObject();
+
+            return new ExternalExposure(externalExposureId, locationId, personId, exposureConceptId,
+                    exposureStartDate, exposureEndDate, exposureTypeConceptId, exposureRelationshipConceptId,
+                    exposureSourceConceptId, exposureSourceValue, exposureRelationshipSourceValue,
+                    doseUnitSourceValue, quantity, modifierSourceValue, operatorConceptId, valueAsNumber,
+                    valueAsConceptId, unitConceptId);
+        }
+
+        @Override
+        public void write(JsonWriter out, ExternalExposure value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            JsonFields.writeId(out, "external_exposure_id", value.externalExposureId);
+            JsonFields.writeId(out, "location_id", value.locationId);
+            JsonFields.writeId(out, "person_id", value.personId);
+            JsonFields.writeInt(out, "exposure_concept_id", value.exposureConceptId);
+            JsonFields.writeString(out, "exposure_start_date", value.exposureStartDate);
+            JsonFields.writeString(out, "exposure_end_date", value.exposureEndDate);
+            JsonFields.writeInt(out, "exposure_type_concept_id", value.exposureTypeConceptId);
+            JsonFields.writeInt(out, "exposure_relationship_concept_id", value.exposureRelationshipConceptId);
+            JsonFields.writeNullableInt(out, "exposure_source_concept_id", value.exposureSourceConceptId);
+            JsonFields.writeString(out, "exposure_source_value", value.exposureSourceValue);
+            JsonFields.writeString(out, "exposure_relationship_source_value", value.exposureRelationshipSourceValue);
+            JsonFields.writeString(out, "dose_unit_source_value", value.doseUnitSourceValue);
+            JsonFields.writeDouble(out, "quantity", value.quantity);
+            JsonFields.writeString(out, "modifier_source_value", value.modifierSourceValue);
+            JsonFields.writeNullableInt(out, "operator_concept_id", value.operatorConceptId);
+            JsonFields.writeDouble(out, "value_as_number", value.valueAsNumber);
+            JsonFields.writeNullableInt(out, "value_as_concept_id", value.valueAsConceptId);
+            JsonFields.writeNullableInt(out, "unit_concept_id", value.unitConceptId);
+            out.endObject();
+        }
+    }
+}
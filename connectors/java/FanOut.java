@@ -0,0 +1,154 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Structured fan-out of blocking client calls: one task per key, all scoped to
+ * the calling method. The call returns only once every task has finished; if any
+ * task fails, or the caller is interrupted, the remaining tasks are cancelled, the
+ * call waits for those already running to stop, and the first failure is rethrown.
+ * This mirrors Java 21's StructuredTaskScope "shutdown on failure" policy without
+ * requiring preview features.
+ */
+public final class FanOut {
+
+    /**
+     * A blocking lookup for one key, e.g. {@code id -> client.getLocationHistory(null, id)}
+     */
+    @FunctionalInterface
+    public interface Call<K, V> {
+        V apply(K key) throws IOException, InterruptedException;
+    }
+
+    private FanOut() {}
+
+    /**
+     * Run {@code call} for every distinct key and collect the results in input order
+     * @param parallelism Maximum tasks running at once, or 0 for one task per key
+     */
+    static <K, V> Map<K, V> invokeAll(Executor executor, int parallelism, Collection<K> keys, Call<K, V> call)
+            throws IOException, InterruptedException {
+        List<K> distinct = new ArrayList<>(new LinkedHashSet<>(keys));
+        Semaphore permits = new Semaphore(parallelism > 0 ? parallelism : Integer.MAX_VALUE);
+        CompletionService<V> completion = new ExecutorCompletionService<>(executor);
+        AtomicBoolean failed = new AtomicBoolean();
+        Running running = new Running();
+        Map<Future<V>, K> tasks = new HashMap<>();
+        Map<K, V> results = new HashMap<>();
+
+        try {
+            for (K key : distinct) {
+                permits.acquire();
+                if (failed.get()) {
+                    permits.release();
+                    break;
+                }
+                Future<V> task = completion.submit(() -> {
+                    running.enter();
+                    try {
+                        return call.apply(key);
+                    } catch (IOException | InterruptedException | RuntimeException | Error e) {
+                        failed.set(true);
+                        throw e;
+                    } finally {
+                        permits.release();
+                        running.exit();
+                    }
+                });
+                tasks.put(task, key);
+
+                Future<V> done;
+                while ((done = completion.poll()) != null) {
+                    results.put(tasks.get(done), resultOf(done));
+                }
+            }
+            while (results.size() < tasks.size()) {
+                Future<V> done = completion.take();
+                results.put(tasks.get(done), resultOf(done));
+            }
+        } finally {
+            if (results.size() < tasks.size()) {
+                running.stop();
+                for (Future<V> task : tasks.keySet()) {
+                    task.cancel(true);
+                }
+                running.awaitNone();
+            }
+        }
+
+        Map<K, V> ordered = new LinkedHashMap<>();
+        for (K key : distinct) {
+            ordered.put(key, results.get(key));
+        }
+        return ordered;
+    }
+
+    /**
+     * Counts the calls in progress. A cancelled future completes as soon as it is
+     * cancelled, while its call may still be running, so the futures alone cannot
+     * tell when every task is done.
+     */
+    private static final class Running {
+        private int count; // guarded by this
+        private boolean stopped; // guarded by this
+
+        synchronized void enter() {
+            if (stopped) {
+                throw new CancellationException();
+            }
+            count++;
+        }
+
+        synchronized void exit() {
+            if (--count == 0) {
+                notifyAll();
+            }
+        }
+
+        /** Keep calls that have not started yet from starting */
+        synchronized void stop() {
+            stopped = true;
+        }
+
+        /** Wait, ignoring interrupts, until no call is running; the caller's interrupt status is kept */
+        synchronized void awaitNone() {
+            boolean interrupted = false;
+            while (count > 0) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static <V> V resultOf(Future<V> task) throws IOException, InterruptedException {
+        try {
+            return task.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) throw (IOException) cause;
+            if (cause instanceof InterruptedException) throw (InterruptedException) cause;
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw new IOException(cause);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * The API answered a request with an error status. The message is the response
+ * body prefixed as before ({@code "API request failed: "} or {@code "RPC call failed: "}),
+ * so callers that only catch {@link IOException} see no difference; the status code
+ * and any {@code Retry-After} hint are available to callers that need to tell
+ * failures apart.
+ */
+public class GaiaCoreApiException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    private final String endpoint;
+    private final int statusCode;
+    private final String responseBody;
+    private final Duration retryAfter;
+
+    GaiaCoreApiException(String failureMessage, String endpoint, int statusCode, String responseBody,
+                         Duration retryAfter) {
+        super(failureMessage + responseBody);
+        this.endpoint = endpoint;
+        this.statusCode = statusCode;
+        this.responseBody = responseBody;
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * Endpoint or RPC path below the API root, e.g. {@code location} or {@code rpc/spatial_join_exposure}
+     */
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * The error body, usually PostgREST's JSON error with {@code code}, {@code message},
+     * {@code details} and {@code hint}
+     */
+    public String getResponseBody() {
+        return responseBody;
+    }
+
+    /**
+     * How long the server asked clients to wait before retrying, if it sent {@code Retry-After}
+     */
+    public Optional<Duration> getRetryAfter() {
+        return Optional.ofNullable(retryAfter);
+    }
+}
@@ -7,259 +7,3000 @@
  *     GaiaCoreClient client = new GaiaCoreClient("http://gaiacore-api:3000");
  *     List<Map<String, Object>> sources = client.getDataSources();
  *     List<Map<String, Object>> locations = client.getLocations("FRESNO", null, 10);
+ *
+ *     // Large tables can be consumed one row at a time
+ *     client.forEachExposure(null, null, 1000000, row -> process(row));
+ *
+ *     // Non-blocking calls with at most 64 requests on the wire
+ *     GaiaCoreClient async = GaiaCoreClient.builder("http://gaiacore-api:3000").maxInFlight(64).build();
+ *     CompletableFuture<List<Map<String, Object>>> history = async.getLocationHistoryAsync(null, 123);
  */
 
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import javax.net.ssl.SSLSession;
 import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
 import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+
+public class GaiaCoreClient implements AutoCloseable {
+    /** Longest query string a batch lookup will put into one request's {@code in.(...)} filter */
+    private static final int BATCH_URL_BUDGET = 4000;
+
+    private static final TypeToken<List<Map<String, Object>>> ROW_LIST_TYPE =
+            new TypeToken<List<Map<String, Object>>>(){};
+    private static final TypeToken<Map<String, Object>> ROW_TYPE = new TypeToken<Map<String, Object>>(){};
 
-public class GaiaCoreClient {
     private final String baseUrl;
+    private final int basePathLength;
     private final HttpClient httpClient;
     private final Gson gson;
+    private final Executor executor;
+    private final InFlightLimiter inFlight;
+    private final BatchLoader<Integer, Map<String, Object>> locationLoader;
+    private final BatchLoader<String, Map<String, Object>> dataSourceLoader;
+    private final ScheduledExecutorService coalescer;
+    /** Created on the first fan-out, apart from the HttpClient and async executor; guarded by this */
+    private ExecutorService fanOutExecutor;
+    private boolean closed;
+    private final MetadataCache metadataCache;
+    private final ValidatorCache validators;
+    private final boolean compression;
+    private final int compressRequestsOver;
+    private final int fanOutParallelism;
+    private final int maxRowsPerResponse;
+    private final ClientMetrics metrics;
+    private final RetryPolicy retryPolicy;
+    private final RequestHedger hedger;
+    private final CircuitBreakerPolicy breakerPolicy;
+    private final Duration requestTimeout;
+    private final Map<String, Duration> endpointTimeouts;
+    private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
+    private final Object metadataLock = new Object();
+    private long metadataGeneration; // guarded by metadataLock
 
     /**
      * Initialize the gaiaCore client
      * @param baseUrl Base URL of the PostgREST API
      */
     public GaiaCoreClient(String baseUrl) {
-        this.baseUrl = baseUrl.replaceAll("/$", "");
-        this.httpClient = HttpClient.newHttpClient();
-        this.gson = new Gson();
+        this(builder(baseUrl));
+    }
+
+    private GaiaCoreClient(Builder builder) {
+        this.baseUrl = builder.baseUrl.replaceAll("/$", "");
+        this.basePathLength = URI.create(this.baseUrl).getRawPath().length();
+        // Shared by the HttpClient and the async API; never shut down, so requests already
+        // sent can still decode and retry after close(). It holds no threads while idle.
+        ExecutorService virtual = builder.virtualThreads ? VirtualThreads.newVirtualThreadPerTaskExecutor() : null;
+        this.httpClient = builder.httpClient != null ? builder.httpClient : builder.buildHttpClient(virtual);
+        this.gson = new GsonBuilder()
+                .registerTypeAdapter(Location.class, new Location.Adapter())
+                .registerTypeAdapter(LocationHistory.class, new LocationHistory.Adapter())
+                .registerTypeAdapter(ExternalExposure.class, new ExternalExposure.Adapter())
+                .registerTypeAdapter(DataSource.class, new DataSource.Adapter())
+                .registerTypeAdapter(VariableSource.class, new VariableSource.Adapter())
+                .registerTypeAdapter(ExposureSummary.class, new ExposureSummary.Adapter())
+                .create();
+        this.executor = builder.executor != null ? builder.executor
+                : virtual != null ? virtual : ForkJoinPool.commonPool();
+        if (builder.adaptiveMaxLimit > 0) {
+            AdaptiveLimit limit = new AdaptiveLimit(builder.adaptiveMinLimit, builder.adaptiveMaxLimit);
+            this.inFlight = new InFlightLimiter(limit, builder.maxQueued);
+        } else if (builder.maxInFlight > 0) {
+            this.inFlight = new InFlightLimiter(builder.maxInFlight, builder.maxQueued);
+        } else {
+            this.inFlight = null;
+        }
+        this.metadataCache = builder.metadataCache;
+        this.compression = builder.compression;
+        this.compressRequestsOver = builder.compressRequestsOver;
+        this.metrics = builder.metrics;
+        this.retryPolicy = builder.retryPolicy;
+        this.hedger = builder.hedgePolicy != null ? new RequestHedger(builder.hedgePolicy) : null;
+        this.breakerPolicy = builder.breakerPolicy;
+        this.requestTimeout = builder.requestTimeout;
+        this.endpointTimeouts = new HashMap<>(builder.endpointTimeouts);
+        this.validators = builder.conditionalRequestEntries > 0
+                ? new ValidatorCache(builder.conditionalRequestEntries, builder.conditionalRequestBytes) : null;
+        if (builder.fanOutParallelism >= 0) {
+            this.fanOutParallelism = builder.fanOutParallelism;
+        } else {
+            this.fanOutParallelism = builder.virtualThreads ? 0 : 16;
+        }
+        this.maxRowsPerResponse = builder.maxRowsPerResponse;
+
+        if (builder.coalesceWindow != null) {
+            this.coalescer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "gaiacore-coalescer");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long windowNanos = builder.coalesceWindow.toNanos();
+            this.locationLoader = new BatchLoader<>(this::getLocationsAsync,
+                    windowNanos, builder.coalesceMaxBatch, coalescer);
+            this.dataSourceLoader = new BatchLoader<>(this::getDataSourcesByUuidAsync,
+                    windowNanos, builder.coalesceMaxBatch, coalescer);
+        } else {
+            this.coalescer = null;
+            this.locationLoader = null;
+            this.dataSourceLoader = null;
+        }
     }
 
     /**
-     * Make a GET request to the API
+     * Stop the threads this client started for itself. Coalesced lookups still
+     * buffered, and any lookup or fan-out made afterwards, fail with an
+     * IllegalStateException; requests already sent complete as usual. Executors
+     * and HttpClients passed to the builder are left to the caller.
      */
-    private List<Map<String, Object>> request(String endpoint, String schema, Map<String, String> params)
-            throws IOException, InterruptedException {
-        StringBuilder url = new StringBuilder(baseUrl + "/" + endpoint);
+    @Override
+    public void close() {
+        if (coalescer != null) {
+            locationLoader.close();
+            dataSourceLoader.close();
+            coalescer.shutdownNow();
+        }
+        synchronized (this) {
+            closed = true;
+            if (fanOutExecutor != null) {
+                fanOutExecutor.shutdown();
+            }
+        }
+    }
+
+    /**
+     * Start configuring a client
+     * @param baseUrl Base URL of the PostgREST API
+     */
+    public static Builder builder(String baseUrl) {
+        return new Builder(baseUrl);
+    }
+
+    /**
+     * Set how long idle HTTP/1.1 connections stay pooled, and the most kept open (0 for
+     * unbounded), for every java.net.http client in the JVM, not just GaiaCoreClients.
+     * The JDK reads the {@code jdk.httpclient.keepalive.timeout} and
+     * {@code jdk.httpclient.connectionPoolSize} system properties once, when its first
+     * HttpClient starts, so call this at startup before any client is created; properties
+     * already defined, e.g. on the command line, are left alone.
+     */
+    public static void configureJvmConnectionPool(Duration keepAlive, int maxConnections) {
+        if (maxConnections < 0) {
+            throw new IllegalArgumentException("maxConnections must not be negative: " + maxConnections);
+        }
+        setIfAbsent("jdk.httpclient.keepalive.timeout", String.valueOf(Math.max(1, keepAlive.getSeconds())));
+        setIfAbsent("jdk.httpclient.connectionPoolSize", String.valueOf(maxConnections));
+    }
+
+    private static void setIfAbsent(String property, String value) {
+        if (System.getProperty(property) == null) {
+            System.setProperty(property, value);
+        }
+    }
+
+    /**
+     * Configuration for a {@link GaiaCoreClient}
+     */
+    public static class Builder {
+        private final String baseUrl;
+        private HttpClient httpClient;
+        private HttpClient.Version httpVersion;
+        private Duration connectTimeout;
+        private Duration requestTimeout;
+        private final Map<String, Duration> endpointTimeouts = new HashMap<>();
+        private Executor httpExecutor;
+        private Executor executor;
+        private int maxInFlight;
+        private int adaptiveMinLimit;
+        private int adaptiveMaxLimit;
+        private int maxQueued;
+        private Duration coalesceWindow;
+        private int coalesceMaxBatch;
+        private MetadataCache metadataCache;
+        private int conditionalRequestEntries;
+        private long conditionalRequestBytes;
+        private boolean compression;
+        private int compressRequestsOver;
+        private boolean virtualThreads;
+        private int fanOutParallelism = -1;
+        private int maxRowsPerResponse = 1000;
+        private ClientMetrics metrics = ClientMetrics.NONE;
+        private RetryPolicy retryPolicy = RetryPolicy.NONE;
+        private HedgePolicy hedgePolicy;
+        private CircuitBreakerPolicy breakerPolicy;
+
+        private Builder(String baseUrl) {
+            this.baseUrl = Objects.requireNonNull(baseUrl, "baseUrl");
+        }
+
+        /**
+         * Executor that decodes responses and completes the futures returned by
+         * the {@code *Async} methods. Defaults to the common fork-join pool.
+         */
+        public Builder executor(Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * Run on Java 21 virtual threads: one virtual thread per fan-out task, and
+         * virtual threads for the HttpClient's and the async API's work unless
+         * {@link #httpExecutor} / {@link #executor} are set explicitly. Blocking
+         * calls such as {@link GaiaCoreClient#fanOut} can then cheaply issue
+         * thousands of concurrent requests. {@link GaiaCoreClient#close()} stops
+         * fan-outs; requests already sent still finish on their virtual threads.
+         * @throws UnsupportedOperationException when running on a JVM older than Java 21
+         */
+        public Builder virtualThreads() {
+            VirtualThreads.requireSupported();
+            this.virtualThreads = true;
+            return this;
+        }
+
+        /**
+         * Maximum number of tasks a single {@link GaiaCoreClient#fanOut} call runs at
+         * once (0 for no limit). Defaults to 16 on platform threads and to no limit
+         * with {@link #virtualThreads()}.
+         */
+        public Builder fanOutParallelism(int parallelism) {
+            if (parallelism < 0) {
+                throw new IllegalArgumentException("parallelism must not be negative: " + parallelism);
+            }
+            this.fanOutParallelism = parallelism;
+            return this;
+        }
+
+        /**
+         * The server's {@code db-max-rows}: the most rows PostgREST returns in one
+         * response. Paged getters such as {@link GaiaCoreClient#getExposureSummariesByPerson}
+         * request pages of this size and take a shorter page as the last one, so it must
+         * not exceed the server's setting. Defaults to 1000, as in docker-compose.yml.
+         */
+        public Builder maxRowsPerResponse(int rows) {
+            if (rows <= 0) {
+                throw new IllegalArgumentException("rows must be positive: " + rows);
+            }
+            this.maxRowsPerResponse = rows;
+            return this;
+        }
+
+        /**
+         * Maximum number of requests on the wire at once; further requests wait for
+         * a permit, asynchronous ones without blocking the caller. Unlimited by default.
+         */
+        public Builder maxInFlight(int maxInFlight) {
+            if (maxInFlight <= 0) {
+                throw new IllegalArgumentException("maxInFlight must be positive: " + maxInFlight);
+            }
+            this.maxInFlight = maxInFlight;
+            return this;
+        }
+
+        /**
+         * Let the client find its own in-flight cap between {@code minLimit} and
+         * {@code maxLimit}: the cap rises while response times stay near the fastest
+         * seen, falls as they grow with requests queueing for PostgREST's database
+         * connections, and is cut on timeouts, 429, 503 and 504. Requests over the cap
+         * wait as with {@link #maxInFlight}, which this replaces. Off by default.
+         */
+        public Builder adaptiveConcurrency(int minLimit, int maxLimit) {
+            if (minLimit <= 0 || maxLimit < minLimit) {
+                throw new IllegalArgumentException("Invalid limit range: " + minLimit + " to " + maxLimit);
+            }
+            this.adaptiveMinLimit = minLimit;
+            this.adaptiveMaxLimit = maxLimit;
+            return this;
+        }
+
+        /**
+         * With {@link #maxInFlight} or {@link #adaptiveConcurrency}, fail requests with a
+         * {@link RequestRejectedException} rather than queue them once this many are
+         * already waiting. Unbounded by default.
+         */
+        public Builder maxQueuedRequests(int maxQueued) {
+            if (maxQueued <= 0) {
+                throw new IllegalArgumentException("maxQueued must be positive: " + maxQueued);
+            }
+            this.maxQueued = maxQueued;
+            return this;
+        }
+
+        /**
+         * Coalesce concurrent {@code getLocation(id)} and {@code getDataSource(uuid)} calls
+         * into batched {@code in.(...)} requests. A lookup waits at most {@code window}
+         * for others to join it, and a batch is sent early once it holds
+         * {@code maxBatchSize} distinct keys. Off by default.
+         */
+        public Builder coalesceLookups(Duration window, int maxBatchSize) {
+            if (window.isNegative()) {
+                throw new IllegalArgumentException("window must not be negative: " + window);
+            }
+            if (maxBatchSize <= 0) {
+                throw new IllegalArgumentException("maxBatchSize must be positive: " + maxBatchSize);
+            }
+            this.coalesceWindow = window;
+            this.coalesceMaxBatch = maxBatchSize;
+            return this;
+        }
+
+        /**
+         * Cache backbone metadata reads (data sources, variables, downloadable data
+         * source listings). The cache is cleared after every fetchAndLoadJsonld or
+         * quickIngestDatasource call. Off by default.
+         */
+        public Builder metadataCache(MetadataCache metadataCache) {
+            this.metadataCache = metadataCache;
+            return this;
+        }
+
+        /**
+         * Cache backbone metadata reads in a bounded LRU cache whose entries expire after {@code ttl}
+         */
+        public Builder metadataCache(int maxEntries, Duration ttl) {
+            return metadataCache(new LruMetadataCache(maxEntries, ttl));
+        }
+
+        /**
+         * Revalidate repeated GETs with {@code If-None-Match} / {@code If-Modified-Since}
+         * and reuse the previously decoded result on {@code 304 Not Modified}. Up to
+         * {@code maxEntries} decoded responses that carried an ETag or Last-Modified
+         * header are kept in memory, decoded from at most 16 MiB of JSON in total.
+         * Applies to list results, not to streaming or columnar reads. Off by default.
+         */
+        public Builder conditionalRequests(int maxEntries) {
+            return conditionalRequests(maxEntries, 16L << 20);
+        }
+
+        /**
+         * As {@link #conditionalRequests(int)}, keeping responses only while the JSON
+         * bodies they were decoded from add up to at most {@code maxBytes}; a single
+         * larger response is not kept at all
+         */
+        public Builder conditionalRequests(int maxEntries, long maxBytes) {
+            if (maxEntries <= 0) {
+                throw new IllegalArgumentException("maxEntries must be positive: " + maxEntries);
+            }
+            if (maxBytes <= 0) {
+                throw new IllegalArgumentException("maxBytes must be positive: " + maxBytes);
+            }
+            this.conditionalRequestEntries = maxEntries;
+            this.conditionalRequestBytes = maxBytes;
+            return this;
+        }
+
+        /**
+         * Advertise {@code Accept-Encoding: gzip, deflate} and transparently decompress
+         * responses as they stream in. Off by default: it saves bandwidth on large reads
+         * over slow links, but costs CPU on both ends for little gain on a local network.
+         */
+        public Builder compression(boolean compression) {
+            this.compression = compression;
+            return this;
+        }
+
+        /**
+         * Gzip RPC request bodies of at least {@code bytes} bytes and send them with
+         * {@code Content-Encoding: gzip}. PostgREST does not decompress request bodies
+         * itself, so only enable this behind a proxy that does. Off by default.
+         */
+        public Builder compressRequestsOver(int bytes) {
+            if (bytes <= 0) {
+                throw new IllegalArgumentException("bytes must be positive: " + bytes);
+            }
+            this.compressRequestsOver = bytes;
+            return this;
+        }
+
+        /**
+         * Report the latency, time to first byte, decode time, size, row count and
+         * status of every request, per endpoint and RPC function. See
+         * {@link InMemoryMetrics} for an in-memory and JMX implementation. Off by default.
+         */
+        public Builder metrics(ClientMetrics metrics) {
+            this.metrics = Objects.requireNonNull(metrics, "metrics");
+            return this;
+        }
+
+        /**
+         * Retry transient failures such as 503s and reset connections. GETs are retried;
+         * RPCs only when the policy marks them safe. Each attempt is reported to
+         * {@link #metrics} separately. Off by default.
+         */
+        public Builder retry(RetryPolicy retryPolicy) {
+            this.retryPolicy = Objects.requireNonNull(retryPolicy, "retryPolicy");
+            return this;
+        }
+
+        /**
+         * Send a duplicate of a GET that is slower than usual for its endpoint and take
+         * whichever response arrives first, within a budget of extra requests. Synchronous
+         * hedged reads run through the asynchronous path. Off by default.
+         * @throws UnsupportedOperationException when running on a JVM older than Java 16,
+         *         where cancelling the losing copy does not abort its exchange
+         */
+        public Builder hedging(HedgePolicy hedgePolicy) {
+            if (hedgePolicy != null && Runtime.version().feature() < 16) {
+                throw new UnsupportedOperationException("Hedging requires Java 16 or later (running "
+                        + System.getProperty("java.version") + ")");
+            }
+            this.hedgePolicy = hedgePolicy;
+            return this;
+        }
+
+        /**
+         * Stop calling an endpoint or RPC function that keeps failing or timing out: its
+         * breaker opens and further calls fail at once with a {@link CircuitOpenException}
+         * until probe calls succeed again. Breakers are kept per endpoint and exposed by
+         * {@link GaiaCoreClient#getCircuitBreakers()}. Off by default.
+         */
+        public Builder circuitBreakers(CircuitBreakerPolicy breakerPolicy) {
+            this.breakerPolicy = breakerPolicy;
+            return this;
+        }
+
+        /**
+         * Use a preconfigured HttpClient; the other transport options are then ignored
+         */
+        public Builder httpClient(HttpClient httpClient) {
+            this.httpClient = httpClient;
+            return this;
+        }
+
+        /**
+         * Preferred HTTP version. With {@code HTTP_2}, concurrent requests to the API
+         * are multiplexed over a single connection: negotiated via ALPN for https,
+         * and via an h2c upgrade on the first request for plain http (the JDK client
+         * does not support prior-knowledge h2c). Falls back to HTTP/1.1 if the server
+         * declines. Defaults to the JDK's preference.
+         */
+        public Builder httpVersion(HttpClient.Version httpVersion) {
+            this.httpVersion = httpVersion;
+            return this;
+        }
+
+        /**
+         * Maximum time to wait while establishing a connection
+         */
+        public Builder connectTimeout(Duration connectTimeout) {
+            this.connectTimeout = connectTimeout;
+            return this;
+        }
+
+        /**
+         * Maximum time to wait for the response to each request to start; a request that
+         * takes longer fails with an {@link java.net.http.HttpTimeoutException} and its
+         * exchange is aborted. Each retry attempt gets the full timeout. No limit by default.
+         */
+        public Builder requestTimeout(Duration timeout) {
+            this.requestTimeout = positive(timeout);
+            return this;
+        }
+
+        /**
+         * Override {@link #requestTimeout(Duration)} for one endpoint or RPC function,
+         * e.g. {@code rpc/quick_ingest_datasource}, which may legitimately run for minutes
+         */
+        public Builder requestTimeout(String endpoint, Duration timeout) {
+            endpointTimeouts.put(endpoint, positive(timeout));
+            return this;
+        }
+
+        private static Duration positive(Duration timeout) {
+            if (timeout.isNegative() || timeout.isZero()) {
+                throw new IllegalArgumentException("timeout must be positive: " + timeout);
+            }
+            return timeout;
+        }
+
+        /**
+         * Executor for the HttpClient's own tasks, such as sending requests and
+         * delivering response bytes. Pass a virtual-thread-per-task executor on
+         * Java 21+ for very high concurrency. Defaults to the JDK's cached pool.
+         */
+        public Builder httpExecutor(Executor httpExecutor) {
+            this.httpExecutor = httpExecutor;
+            return this;
+        }
+
+        /**
+         * @param defaultExecutor Executor to use unless {@link #httpExecutor} was set, or null for the JDK's
+         */
+        private HttpClient buildHttpClient(Executor defaultExecutor) {
+            HttpClient.Builder httpBuilder = HttpClient.newBuilder();
+            if (httpVersion != null) httpBuilder.version(httpVersion);
+            if (connectTimeout != null) httpBuilder.connectTimeout(connectTimeout);
+            Executor executor = httpExecutor != null ? httpExecutor : defaultExecutor;
+            if (executor != null) httpBuilder.executor(executor);
+            return httpBuilder.build();
+        }
+
+        public GaiaCoreClient build() {
+            return new GaiaCoreClient(this);
+        }
+    }
+
+    /**
+     * Decodes a successful response body
+     */
+    @FunctionalInterface
+    private interface BodyDecoder<T> {
+        T decode(InputStream body) throws IOException;
+    }
+
+    /**
+     * Build the URL of an endpoint with its query parameters
+     */
+    private String buildUrl(String endpoint, Map<String, String> params) {
+        StringBuilder url = new StringBuilder(baseUrl.length() + endpoint.length() + 128)
+                .append(baseUrl).append('/').append(endpoint);
 
         if (params != null && !params.isEmpty()) {
-            url.append("?");
-            params.forEach((key, value) ->
-                url.append(key).append("=").append(value).append("&")
-            );
+            url.append('?');
+            params.forEach((key, value) -> {
+                QueryEncoding.append(url, key);
+                url.append('=');
+                QueryEncoding.append(url, value);
+                url.append('&');
+            });
             url.setLength(url.length() - 1); // Remove trailing &
         }
 
+        return url.toString();
+    }
+
+    /**
+     * Start a GET request for a URL
+     */
+    private HttpRequest.Builder newGet(String url, String schema) {
+        URI uri = URI.create(url);
         HttpRequest.Builder requestBuilder = HttpRequest.newBuilder()
-                .uri(URI.create(url.toString()))
+                .uri(uri)
                 .GET();
+        applyTimeout(requestBuilder, uri);
+
+        if (compression) {
+            requestBuilder.header("Accept-Encoding", ContentEncoding.ACCEPTED);
+        }
 
         if ("working".equals(schema)) {
             requestBuilder.header("Accept-Profile", "working");
         }
 
-        HttpRequest request = requestBuilder.build();
-        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-
-        if (response.statusCode() >= 400) {
-            throw new IOException("API request failed: " + response.body());
-        }
+        return requestBuilder;
+    }
 
-        return gson.fromJson(response.body(), new TypeToken<List<Map<String, Object>>>(){}.getType());
+    /**
+     * Build a GET request for an endpoint
+     */
+    private HttpRequest buildGet(String endpoint, String schema, Map<String, String> params) {
+        return newGet(buildUrl(endpoint, params), schema).build();
     }
 
     /**
-     * Call a PostgreSQL function via RPC
+     * Build a POST request calling a PostgreSQL function
      */
-    private Object rpc(String functionName, Map<String, Object> params, String schema)
-            throws IOException, InterruptedException {
-        String url = baseUrl + "/rpc/" + functionName;
-        String jsonBody = gson.toJson(params);
+    private HttpRequest buildRpc(String functionName, Map<String, Object> params, String schema) {
+        URI uri = URI.create(baseUrl + "/rpc/" + functionName);
+        byte[] jsonBody = gson.toJson(params).getBytes(StandardCharsets.UTF_8);
 
         HttpRequest.Builder requestBuilder = HttpRequest.newBuilder()
-                .uri(URI.create(url))
-                .header("Content-Type", "application/json")
-                .POST(HttpRequest.BodyPublishers.ofString(jsonBody));
+                .uri(uri)
+                .header("Content-Type", "application/json");
+        applyTimeout(requestBuilder, uri);
+
+        if (compression) {
+            requestBuilder.header("Accept-Encoding", ContentEncoding.ACCEPTED);
+        }
+        if (compressRequestsOver > 0 && jsonBody.length >= compressRequestsOver) {
+            try {
+                jsonBody = ContentEncoding.gzip(jsonBody);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            requestBuilder.header("Content-Encoding", "gzip");
+        }
+        requestBuilder.POST(HttpRequest.BodyPublishers.ofByteArray(jsonBody));
 
         if ("working".equals(schema)) {
             requestBuilder.header("Content-Profile", "working");
             requestBuilder.header("Accept-Profile", "working");
         }
 
-        HttpRequest request = requestBuilder.build();
-        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        return requestBuilder.build();
+    }
+
+    private void applyTimeout(HttpRequest.Builder requestBuilder, URI uri) {
+        Duration timeout = endpointTimeouts.isEmpty() ? requestTimeout
+                : endpointTimeouts.getOrDefault(endpointName(uri), requestTimeout);
+        if (timeout != null) {
+            requestBuilder.timeout(timeout);
+        }
+    }
 
+    /**
+     * Send a request, failing on an error status. The caller is responsible
+     * for closing the body of the returned response. Interrupting the caller makes
+     * {@code HttpClient.send} throw, but before Java 16 the exchange itself runs on until
+     * it completes or its {@link HttpRequest#timeout} fires, still holding its connection.
+     */
+    private HttpResponse<InputStream> exchange(HttpRequest request, String failureMessage,
+                                              Measurement measurement)
+            throws IOException, InterruptedException {
+        CircuitBreaker breaker = admit(measurement);
+        if (inFlight != null) {
+            try {
+                inFlight.acquireBlocking();
+            } catch (IOException | InterruptedException e) {
+                if (breaker != null) breaker.onIgnored();
+                measurement.failed(e);
+                throw e;
+            }
+            measurement.start();
+        }
+        HttpResponse<InputStream> response = null;
+        Throwable error = null;
+        try {
+            response = httpClient.send(request, measurement.timed(HttpResponse.BodyHandlers.ofInputStream()));
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            measurement.failed(e);
+            error = e;
+            throw e;
+        } finally {
+            // The server's work is done once it starts answering, so the permit is not held while the body streams
+            if (inFlight != null) {
+                inFlight.release(measurement.roundTripNanos(), isOverloaded(response, error));
+            }
+            recordOutcome(breaker, measurement, response, error);
+        }
         if (response.statusCode() >= 400) {
-            throw new IOException("RPC call failed: " + response.body());
+            byte[] raw;
+            try (InputStream in = measurement.counted(response.body())) {
+                raw = in.readAllBytes();
+            } finally {
+                measurement.rejected(response.statusCode());
+            }
+            throw apiError(response, failureMessage, measurement, errorBody(raw, contentEncoding(response)));
         }
 
-        return gson.fromJson(response.body(), Object.class);
+        InputStream decoded;
+        try {
+            decoded = ContentEncoding.decode(measurement.counted(response.body()), contentEncoding(response));
+        } catch (IOException e) {
+            response.body().close();
+            measurement.failed(e);
+            throw e;
+        }
+        return new DecodedResponse<>(response, decoded);
     }
 
-    // ========== Data Source Methods ==========
-
     /**
-     * Get all data sources
+     * A streamed response whose body has been wrapped for decompression
      */
-    public List<Map<String, Object>> getDataSources() throws IOException, InterruptedException {
-        return request("data_source", "backbone", null);
+    private static final class DecodedResponse<T> implements HttpResponse<T> {
+        private final HttpResponse<?> response;
+        private final T body;
+
+        DecodedResponse(HttpResponse<?> response, T body) {
+            this.response = response;
+            this.body = body;
+        }
+
+        @Override public int statusCode() { return response.statusCode(); }
+        @Override public HttpRequest request() { return response.request(); }
+        @Override public Optional<HttpResponse<T>> previousResponse() { return Optional.empty(); }
+        @Override public HttpHeaders headers() { return response.headers(); }
+        @Override public T body() { return body; }
+        @Override public Optional<SSLSession> sslSession() { return response.sslSession(); }
+        @Override public URI uri() { return response.uri(); }
+        @Override public HttpClient.Version version() { return response.version(); }
+    }
+
+    private static String contentEncoding(HttpResponse<?> response) {
+        return response.headers().firstValue("Content-Encoding").orElse(null);
     }
 
     /**
-     * Get a specific data source by UUID
+     * Text of an error response. A proxy's error page may carry a Content-Encoding
+     * its body does not have, so a body that fails to decode is reported as sent.
      */
-    public Map<String, Object> getDataSource(String uuid) throws IOException, InterruptedException {
-        Map<String, String> params = new HashMap<>();
-        params.put("data_source_uuid", "eq." + uuid);
-        List<Map<String, Object>> result = request("data_source", "backbone", params);
-        return result.isEmpty() ? null : result.get(0);
+    private static String errorBody(byte[] raw, String contentEncoding) {
+        try (InputStream in = ContentEncoding.decode(new ByteArrayInputStream(raw), contentEncoding)) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            return new String(raw, StandardCharsets.UTF_8);
+        }
     }
 
     /**
-     * List all downloadable data sources
+     * Decompressed body of a buffered asynchronous response
      */
-    @SuppressWarnings("unchecked")
-    public List<Map<String, Object>> listDownloadableDatasources() throws IOException, InterruptedException {
-        return (List<Map<String, Object>>) rpc("list_downloadable_datasources", new HashMap<>(), "backbone");
+    private static InputStream body(HttpResponse<byte[]> response) throws IOException {
+        return ContentEncoding.decode(new ByteArrayInputStream(response.body()), contentEncoding(response));
     }
 
-    // ========== Variable Source Methods ==========
-
     /**
-     * Get variable definitions
+     * Send a request and return the response body as an unbuffered stream.
+     * The caller is responsible for closing the returned stream.
      */
-    public List<Map<String, Object>> getVariables(String dataSourceUuid)
+    private InputStream send(HttpRequest request, String failureMessage)
             throws IOException, InterruptedException {
-        Map<String, String> params = new HashMap<>();
-        if (dataSourceUuid != null) {
-            params.put("data_source_uuid", "eq." + dataSourceUuid);
-        }
-        return request("variable_source", "backbone", params);
+        return retrying(request, () -> exchange(request, failureMessage, new Measurement(request, true)).body());
     }
 
-    // ========== Location Methods ==========
-
     /**
-     * Get location data
+     * Send a request and decode the response body as it streams in
      */
-    public List<Map<String, Object>> getLocations(String city, String state, Integer limit)
+    private <T> T execute(HttpRequest request, String failureMessage, BodyDecoder<T> decoder)
             throws IOException, InterruptedException {
-        Map<String, String> params = new HashMap<>();
-        params.put("limit", String.valueOf(limit != null ? limit : 100));
-        if (city != null) params.put("city", "eq." + city);
-        if (state != null) params.put("state", "eq." + state);
-
-        return request("location", "working", params);
+        if (isHedged(request)) {
+            return await(executeAsync(request, failureMessage, decoder));
+        }
+        return retrying(request, () -> {
+            Measurement measurement = new Measurement(request, false);
+            try (InputStream body = exchange(request, failureMessage, measurement).body()) {
+                return measurement.decode(body, decoder);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        });
     }
 
     /**
-     * Get a specific location by ID
+     * Send a request without blocking the calling thread. The response body is
+     * decoded on the client's executor once it has fully arrived; failures
+     * complete the future exceptionally with an {@link IOException}.
      */
-    public Map<String, Object> getLocation(int locationId) throws IOException, InterruptedException {
-        Map<String, String> params = new HashMap<>();
-        params.put("location_id", "eq." + locationId);
-        List<Map<String, Object>> result = request("location", "working", params);
-        return result.isEmpty() ? null : result.get(0);
+    private <T> CompletableFuture<T> executeAsync(HttpRequest request, String failureMessage,
+                                                  BodyDecoder<T> decoder) {
+        return executeWithHeadersAsync(request, failureMessage, headers -> decoder, null);
     }
 
     /**
-     * Get location history records
+     * {@link #executeAsync} with a decoder chosen from the response headers
+     * @param deadline Bounds every attempt's timeout, or null for none
      */
-    public List<Map<String, Object>> getLocationHistory(Integer locationId, Integer personId)
-            throws IOException, InterruptedException {
-        Map<String, String> params = new HashMap<>();
-        if (locationId != null) params.put("location_id", "eq." + locationId);
-        if (personId != null) params.put("entity_id", "eq." + personId);
-
-        return request("location_history", "working", params);
+    private <T> CompletableFuture<T> executeWithHeadersAsync(HttpRequest request, String failureMessage,
+                                                             Function<HttpHeaders, BodyDecoder<T>> decoderFor,
+                                                             Deadline deadline) {
+        return retryingAsync(request, deadline, () -> {
+            Measurement measurement = new Measurement(request, false);
+            CompletableFuture<HttpResponse<byte[]>> sent = sendAsync(request, measurement, deadline);
+            return propagateCancel(sent.thenApplyAsync(result -> {
+                try {
+                    checkStatus(result, failureMessage, measurement);
+                    return measurement.decode(body(result), decoderFor.apply(result.headers()));
+                } catch (IOException e) {
+                    measurement.failed(e);
+                    throw new CompletionException(e);
+                } catch (UncheckedIOException e) {
+                    throw new CompletionException(e.getCause());
+                }
+            }, executor), sent);
+        });
     }
 
-    // ========== External Exposure Methods ==========
-
     /**
-     * Get external exposure data
+     * Send a request asynchronously, waiting for an in-flight permit if the client is capped
+     * @param deadline Cuts the request's timeout to the time left when it is sent, or null
      */
-    public List<Map<String, Object>> getExposures(Integer personId, Integer locationId, Integer limit)
-            throws IOException, InterruptedException {
-        Map<String, String> params = new HashMap<>();
-        params.put("limit", String.valueOf(limit != null ? limit : 100));
-        if (personId != null) params.put("person_id", "eq." + personId);
-        if (locationId != null) params.put("location_id", "eq." + locationId);
+    private CompletableFuture<HttpResponse<byte[]>> sendAsync(HttpRequest request, Measurement measurement,
+                                                              Deadline deadline) {
+        CircuitBreaker breaker;
+        try {
+            breaker = admit(measurement);
+        } catch (CircuitOpenException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        HttpResponse.BodyHandler<byte[]> handler = measurement.timed(HttpResponse.BodyHandlers.ofByteArray());
+        if (inFlight == null) {
+            CompletableFuture<HttpResponse<byte[]>> exchange;
+            try {
+                exchange = httpClient.sendAsync(bounded(request, deadline), handler);
+            } catch (DeadlineExceededException e) {
+                exchange = CompletableFuture.failedFuture(e);
+            }
+            return propagateCancel(exchange
+                    .whenComplete((result, error) -> recordOutcome(breaker, measurement, result, error))
+                    .whenComplete(measurement::received), exchange);
+        }
 
-        return request("external_exposure", "working", params);
+        CompletableFuture<Void> permit = inFlight.acquire();
+        AtomicReference<Future<?>> pending = new AtomicReference<>(permit);
+        CompletableFuture<HttpResponse<byte[]>> response = permit.thenCompose(granted -> {
+            HttpRequest sent;
+            try {
+                sent = bounded(request, deadline);
+            } catch (DeadlineExceededException e) {
+                // Nothing reached the server, so the adaptive limit learns nothing from it
+                inFlight.release();
+                return CompletableFuture.failedFuture(e);
+            }
+            measurement.start();
+            CompletableFuture<HttpResponse<byte[]>> exchange = httpClient.sendAsync(sent, handler);
+            pending.set(exchange);
+            return exchange.whenComplete((result, error) ->
+                    inFlight.release(measurement.roundTripNanos(), isOverloaded(result, error)));
+        }).whenComplete((result, error) -> recordOutcome(breaker, measurement, result, error))
+                .whenComplete(measurement::received);
+        response.whenComplete((result, error) -> {
+            if (response.isCancelled()) pending.get().cancel(true);
+        });
+        return response;
     }
 
-    // ========== Data Ingestion Methods ==========
-
     /**
-     * Fetch JSON-LD metadata from URL and load it
+     * Whether the outcome of a request says the server is overloaded: a timeout, 429, 503 or 504
      */
-    @SuppressWarnings("unchecked")
-    public List<Map<String, Object>> fetchAndLoadJsonld(String url) throws IOException, InterruptedException {
-        Map<String, Object> params = new HashMap<>();
-        params.put("url", url);
-        return (List<Map<String, Object>>) rpc("fetch_and_load_jsonld", params, "backbone");
+    private static boolean isOverloaded(HttpResponse<?> response, Throwable error) {
+        if (error != null) {
+            return unwrap(error) instanceof HttpTimeoutException;
+        }
+        int status = response.statusCode();
+        return status == 429 || status == 503 || status == 504;
     }
 
     /**
-     * Quickly ingest a data source by name
+     * Current cap on requests in flight, or 0 if the client is unlimited
      */
-    @SuppressWarnings("unchecked")
-    public List<Map<String, Object>> quickIngestDatasource(String datasetName, String downloadUrl)
-            throws IOException, InterruptedException {
-        Map<String, Object> params = new HashMap<>();
-        params.put("p_dataset_name", datasetName);
-        if (downloadUrl != null) {
-            params.put("p_download_url", downloadUrl);
-        }
+    public int getConcurrencyLimit() {
+        return inFlight != null ? inFlight.getMaxInFlight() : 0;
+    }
 
-        return (List<Map<String, Object>>) rpc("quick_ingest_datasource", params, "backbone");
+    public int getInFlightRequests() {
+        return inFlight != null ? inFlight.getInFlight() : 0;
     }
 
     /**
-     * Load location and location history data from CSV files
+     * Number of requests refused because too many were queued for a permit
      */
-    @SuppressWarnings("unchecked")
-    public Map<String, Object> loadLocationData(String locationFile, String locationHistoryFile)
-            throws IOException, InterruptedException {
-        Map<String, Object> params = new HashMap<>();
-        params.put("p_location_file", locationFile);
-        params.put("p_location_history_file", locationHistoryFile);
-
-        return (Map<String, Object>) rpc("load_location_data", params, "working");
+    public long getRejectedRequests() {
+        return inFlight != null ? inFlight.getRejected() : 0;
     }
 
     /**
-     * Calculate exposures via spatial join
+     * Cancel {@code source} once {@code dependent} is cancelled. Cancellation does not travel
+     * back up a chain of stages by itself, so an abandoned request would otherwise keep its
+     * exchange running.
      */
-    @SuppressWarnings("unchecked")
-    public Map<String, Object> spatialJoinExposure(String variableSourceId, String externalTable)
-            throws IOException, InterruptedException {
-        Map<String, Object> params = new HashMap<>();
-        params.put("p_variable_source_id", variableSourceId);
-        params.put("p_external_table", externalTable);
-
-        return (Map<String, Object>) rpc("spatial_join_exposure", params, "working");
+    private static <T> CompletableFuture<T> propagateCancel(CompletableFuture<T> dependent, Future<?> source) {
+        dependent.whenComplete((value, error) -> {
+            if (dependent.isCancelled()) source.cancel(true);
+        });
+        return dependent;
     }
 
-    // ========== Advanced Query Methods ==========
-
     /**
-     * Advanced query with full PostgREST capabilities
+     * {@code source.thenApply(fn)}, cancelling {@code source} when the result is cancelled
      */
-    public List<Map<String, Object>> query(String table, String schema, String select,
-                                          Map<String, String> filters, String order,
-                                          Integer limit, Integer offset)
-            throws IOException, InterruptedException {
-        Map<String, String> params = new HashMap<>();
+    private static <T, R> CompletableFuture<R> mapping(CompletableFuture<T> source,
+                                                       Function<? super T, ? extends R> fn) {
+        return propagateCancel(source.thenApply(fn), source);
+    }
 
-        if (select != null) params.put("select", select);
-        if (filters != null) {
-            filters.forEach((key, value) -> params.put(key, "eq." + value));
+    /**
+     * Start an asynchronous call under a deadline. If it has not finished by then, it is
+     * cancelled and the result fails with a {@link DeadlineExceededException}; if the
+     * deadline has already passed, nothing is sent. The call must also hand the deadline to
+     * every request it sends, which then gets the time left as its {@link HttpRequest#timeout},
+     * since before Java 16 cancelling a request's future does not abort the exchange.
+     */
+    private <T> CompletableFuture<T> within(Deadline deadline, String endpoint,
+                                            Supplier<CompletableFuture<T>> call) {
+        if (deadline == null) {
+            return call.get();
+        }
+        long remaining = deadline.remainingNanos();
+        if (remaining <= 0) {
+            return CompletableFuture.failedFuture(deadline.exceeded(endpoint));
+        }
+        CompletableFuture<T> source = call.get();
+        CompletableFuture<T> result = new CompletableFuture<>();
+        source.whenComplete((value, error) -> {
+            Throwable cause = error != null ? unwrap(error) : null;
+            if (cause == null) result.complete(value);
+            else if (cause instanceof HttpTimeoutException && deadline.isExpired()) {
+                result.completeExceptionally(deadline.exceeded(endpoint));
+            } else result.completeExceptionally(cause);
+        });
+        // orTimeout drops its timer once completed, so finished calls do not linger until the deadline
+        CompletableFuture<Void> timer = new CompletableFuture<Void>().orTimeout(remaining, TimeUnit.NANOSECONDS);
+        timer.whenCompleteAsync((unused, timeout) -> {
+            if (timeout != null) result.completeExceptionally(deadline.exceeded(endpoint));
+        }, executor);
+        result.whenComplete((value, error) -> {
+            timer.complete(null);
+            if (!source.isDone()) source.cancel(true);
+        });
+        return result;
+    }
+
+    /**
+     * The request with its timeout cut to the time left before the deadline. JDK 11's
+     * HttpRequest has no copy builder, so the request is rebuilt field by field.
+     * @throws DeadlineExceededException If the deadline has already passed
+     */
+    private HttpRequest bounded(HttpRequest request, Deadline deadline) throws DeadlineExceededException {
+        if (deadline == null) {
+            return request;
+        }
+        long remaining = deadline.remainingNanos();
+        if (remaining <= 0) {
+            throw deadline.exceeded(endpointName(request.uri()));
+        }
+        Duration left = Duration.ofNanos(remaining);
+        if (request.timeout().map(timeout -> timeout.compareTo(left) <= 0).orElse(false)) {
+            return request;
+        }
+        HttpRequest.Builder copy = HttpRequest.newBuilder(request.uri())
+                .method(request.method(), request.bodyPublisher().orElse(HttpRequest.BodyPublishers.noBody()))
+                .expectContinue(request.expectContinue())
+                .timeout(left);
+        request.version().ifPresent(copy::version);
+        request.headers().map().forEach((name, values) -> values.forEach(value -> copy.header(name, value)));
+        return copy.build();
+    }
+
+    private static void checkStatus(HttpResponse<byte[]> response, String failureMessage,
+                                    Measurement measurement) throws IOException {
+        if (response.statusCode() >= 400) {
+            measurement.rejected(response.statusCode());
+            throw apiError(response, failureMessage, measurement,
+                    errorBody(response.body(), contentEncoding(response)));
+        }
+    }
+
+    private static GaiaCoreApiException apiError(HttpResponse<?> response, String failureMessage,
+                                                 Measurement measurement, String body) {
+        String retryAfter = response.headers().firstValue("Retry-After").orElse(null);
+        return new GaiaCoreApiException(failureMessage, measurement.endpoint, response.statusCode(), body,
+                RetryPolicy.parseRetryAfter(retryAfter));
+    }
+
+    // ========== Circuit breakers ==========
+
+    /**
+     * Let a request past the circuit breaker for its endpoint
+     * @return The breaker, which must be told the outcome, or null if the endpoint is unguarded
+     * @throws CircuitOpenException If the breaker is open
+     */
+    private CircuitBreaker admit(Measurement measurement) throws CircuitOpenException {
+        if (breakerPolicy == null || !breakerPolicy.covers(measurement.endpoint)) {
+            return null;
+        }
+        CircuitBreaker breaker = breakers.computeIfAbsent(measurement.endpoint,
+                endpoint -> new CircuitBreaker(endpoint, breakerPolicy));
+        if (!breaker.tryAcquire()) {
+            CircuitOpenException e = breaker.rejection();
+            measurement.failed(e);
+            throw e;
+        }
+        return breaker;
+    }
+
+    /**
+     * Tell a breaker how a request it let through went. Transport errors and 5xx, 408 and 429
+     * responses are failures; a request that was cancelled or never sent is not counted. A
+     * {@link DeadlineExceededException} here always means the deadline passed before sending:
+     * a request cut short by its deadline fails with the HttpTimeoutException it was sent with.
+     */
+    private static void recordOutcome(CircuitBreaker breaker, Measurement measurement,
+                                      HttpResponse<?> response, Throwable error) {
+        if (breaker == null) {
+            return;
+        }
+        Throwable cause = error != null ? unwrap(error) : null;
+        if (cause instanceof CancellationException || cause instanceof InterruptedException
+                || cause instanceof RequestRejectedException || cause instanceof DeadlineExceededException) {
+            breaker.onIgnored();
+        } else if (cause != null) {
+            breaker.onResult(true, measurement.elapsedNanos());
+        } else {
+            int status = response.statusCode();
+            breaker.onResult(status >= 500 || status == 408 || status == 429, measurement.roundTripNanos());
+        }
+    }
+
+    /**
+     * Circuit breakers by endpoint, for those endpoints called so far; empty unless
+     * {@link Builder#circuitBreakers} is set
+     */
+    public Map<String, CircuitBreaker> getCircuitBreakers() {
+        return Collections.unmodifiableMap(new TreeMap<>(breakers));
+    }
+
+    /**
+     * Number of requests failed fast by an open circuit breaker
+     */
+    public long getCircuitBreakerRejections() {
+        long rejected = 0;
+        for (CircuitBreaker breaker : breakers.values()) {
+            rejected += breaker.getNotPermittedCalls();
+        }
+        return rejected;
+    }
+
+    // ========== Retries ==========
+
+    /**
+     * Run a request, repeating it after a backoff for as long as the retry policy allows.
+     * Every attempt sends the request afresh and decodes its own response.
+     */
+    private <T> T retrying(HttpRequest request, Loader<T> attempt) throws IOException, InterruptedException {
+        String endpoint = endpointName(request.uri());
+        for (int attempts = 1; ; attempts++) {
+            try {
+                return attempt.load();
+            } catch (IOException e) {
+                Duration delay = retryPolicy.backoff(request.method(), endpoint, e, attempts);
+                if (delay == null) throw e;
+                TimeUnit.NANOSECONDS.sleep(delay.toNanos());
+            }
+        }
+    }
+
+    /**
+     * Asynchronous {@link #retrying}; backoff delays are waited out without holding a thread
+     * or an in-flight permit
+     * @param deadline Retries stop once a backoff would outlast it, failing with a
+     *                 {@link DeadlineExceededException} caused by the last failure; or null
+     */
+    private <T> CompletableFuture<T> retryingAsync(HttpRequest request, Deadline deadline,
+                                                   Supplier<CompletableFuture<T>> attempt) {
+        String endpoint = endpointName(request.uri());
+        if (retryPolicy.getMaxAttempts() == 1) {
+            return hedgedAsync(request, endpoint, attempt);
+        }
+        CompletableFuture<T> result = new CompletableFuture<>();
+        retryAsync(request, endpoint, deadline, attempt, 1, result);
+        return result;
+    }
+
+    private <T> void retryAsync(HttpRequest request, String endpoint, Deadline deadline,
+                                Supplier<CompletableFuture<T>> attempt, int attempts, CompletableFuture<T> result) {
+        CompletableFuture<T> current = hedgedAsync(request, endpoint, attempt);
+        propagateCancel(result, current);
+        current.whenComplete((value, error) -> {
+            if (error == null) {
+                result.complete(value);
+                return;
+            }
+            Throwable cause = unwrap(error);
+            // A cancelled caller stops the retries
+            Duration delay = result.isDone() ? null
+                    : retryPolicy.backoff(request.method(), endpoint, cause, attempts);
+            if (delay == null) {
+                result.completeExceptionally(cause);
+                return;
+            }
+            if (deadline != null && delay.toNanos() >= deadline.remainingNanos()) {
+                DeadlineExceededException exceeded = deadline.exceeded(endpoint);
+                exceeded.initCause(cause);
+                result.completeExceptionally(exceeded);
+                return;
+            }
+            // The caller may cancel, or the deadline pass, while the backoff runs
+            CompletableFuture.delayedExecutor(delay.toNanos(), TimeUnit.NANOSECONDS, executor).execute(() -> {
+                if (!result.isDone()) retryAsync(request, endpoint, deadline, attempt, attempts + 1, result);
+            });
+        });
+    }
+
+    // ========== Hedging ==========
+
+    private boolean isHedged(HttpRequest request) {
+        return hedger != null && hedger.appliesTo(request.method(), endpointName(request.uri()));
+    }
+
+    /**
+     * Run one attempt of a request, sending a duplicate if it has not answered within the
+     * endpoint's hedge delay. The first success wins and the other copy is cancelled; the
+     * attempt fails only if every copy fails.
+     */
+    private <T> CompletableFuture<T> hedgedAsync(HttpRequest request, String endpoint,
+                                                 Supplier<CompletableFuture<T>> attempt) {
+        if (hedger == null || !hedger.appliesTo(request.method(), endpoint)) {
+            return attempt.get();
+        }
+        long delayNanos = hedger.delayNanos(endpoint);
+        CompletableFuture<T> result = new CompletableFuture<>();
+        List<CompletableFuture<T>> copies = new CopyOnWriteArrayList<>();
+        AtomicInteger running = new AtomicInteger(1);
+        launchCopy(endpoint, attempt, false, result, copies, running);
+
+        if (delayNanos >= 0) {
+            CompletableFuture.delayedExecutor(delayNanos, TimeUnit.NANOSECONDS, executor).execute(() -> {
+                if (result.isDone() || !hedger.tryHedge()) return;
+                running.incrementAndGet();
+                launchCopy(endpoint, attempt, true, result, copies, running);
+            });
+        }
+        result.whenComplete((value, error) -> copies.forEach(copy -> copy.cancel(true)));
+        return result;
+    }
+
+    private <T> void launchCopy(String endpoint, Supplier<CompletableFuture<T>> attempt, boolean hedge,
+                                CompletableFuture<T> result, List<CompletableFuture<T>> copies,
+                                AtomicInteger running) {
+        long start = System.nanoTime();
+        CompletableFuture<T> copy = attempt.get();
+        copies.add(copy);
+        if (result.isDone()) copy.cancel(true);
+        copy.whenComplete((value, error) -> {
+            if (error == null) {
+                hedger.record(endpoint, System.nanoTime() - start);
+                if (result.complete(value) && hedge) hedger.recordWin();
+            } else if (running.decrementAndGet() == 0) {
+                result.completeExceptionally(unwrap(error));
+            }
+        });
+    }
+
+    /**
+     * Number of duplicate requests sent by hedging
+     */
+    public long getHedgedRequests() {
+        return hedger != null ? hedger.getHedges() : 0;
+    }
+
+    /**
+     * Number of hedged duplicates that answered before the original request
+     */
+    public long getHedgeWins() {
+        return hedger != null ? hedger.getWins() : 0;
+    }
+
+    /**
+     * The underlying failure of a future completed through a dependent stage
+     */
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    // ========== Metrics ==========
+
+    /**
+     * Timings and sizes of one request, reported to the client's {@link ClientMetrics} exactly once
+     */
+    private final class Measurement {
+        private final String endpoint;
+        private final boolean streamed;
+        private final AtomicBoolean reported = new AtomicBoolean();
+        private volatile long startNanos = System.nanoTime();
+        private volatile long headersNanos;
+        private volatile int statusCode;
+        private volatile long bytes; // written by one thread at a time, read when reporting
+
+        /**
+         * @param streamed Whether the body is handed to the caller undecoded; the request
+         *                 is then reported when the body is closed
+         */
+        Measurement(HttpRequest request, boolean streamed) {
+            this.endpoint = endpointName(request.uri());
+            this.streamed = streamed;
+        }
+
+        /**
+         * Restart the clock once the request actually goes out, e.g. after waiting for a permit
+         */
+        void start() {
+            startNanos = System.nanoTime();
+        }
+
+        /**
+         * Time since the request was sent
+         */
+        long elapsedNanos() {
+            return System.nanoTime() - startNanos;
+        }
+
+        /**
+         * Time from sending the request until its response headers arrived, or -1 if none did
+         */
+        long roundTripNanos() {
+            return statusCode != 0 ? headersNanos - startNanos : -1;
+        }
+
+        /**
+         * Wrap a body handler to note when the response headers arrive
+         */
+        <T> HttpResponse.BodyHandler<T> timed(HttpResponse.BodyHandler<T> handler) {
+            return info -> {
+                headersNanos = System.nanoTime();
+                statusCode = info.statusCode();
+                return handler.apply(info);
+            };
+        }
+
+        /**
+         * Count the bytes read from a response body as it streams in
+         */
+        InputStream counted(InputStream body) {
+            return new FilterInputStream(body) {
+                @Override
+                public int read() throws IOException {
+                    int b = super.read();
+                    if (b >= 0) bytes++;
+                    return b;
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) throws IOException {
+                    int n = super.read(buffer, offset, length);
+                    if (n > 0) bytes += n;
+                    return n;
+                }
+
+                @Override
+                public void close() throws IOException {
+                    super.close();
+                    if (streamed) report(statusCode, System.nanoTime() - headersNanos, -1);
+                }
+            };
+        }
+
+        /**
+         * Completion callback for a buffered asynchronous response
+         */
+        void received(HttpResponse<byte[]> response, Throwable error) {
+            if (error instanceof CancellationException) {
+                return; // abandoned, e.g. a losing hedge
+            }
+            if (error != null) {
+                failed(unwrap(error));
+            } else {
+                bytes = response.body().length;
+            }
+        }
+
+        <T> T decode(InputStream body, BodyDecoder<T> decoder) throws IOException {
+            long decodeStart = System.nanoTime();
+            try {
+                T value = decoder.decode(body);
+                report(statusCode, System.nanoTime() - decodeStart, rowCount(value));
+                return value;
+            } catch (UncheckedIOException e) {
+                failed(e.getCause());
+                throw e;
+            } catch (IOException | RuntimeException e) {
+                failed(e);
+                throw e;
+            }
+        }
+
+        /**
+         * The server answered with an error status
+         */
+        void rejected(int status) {
+            report(status, 0, -1);
+        }
+
+        void failed(Throwable error) {
+            if (reported.compareAndSet(false, true)) {
+                metrics.recordFailure(endpoint, error, System.nanoTime() - startNanos);
+            }
+        }
+
+        private void report(int status, long decodeNanos, long rows) {
+            if (reported.compareAndSet(false, true)) {
+                metrics.recordResponse(endpoint, status, System.nanoTime() - startNanos,
+                        headersNanos - startNanos, decodeNanos, bytes, rows);
+            }
+        }
+    }
+
+    /**
+     * Endpoint or RPC path of a request below the API root, e.g. {@code rpc/spatial_join_exposure}
+     */
+    private String endpointName(URI uri) {
+        String path = uri.getRawPath();
+        return path.length() > basePathLength ? path.substring(basePathLength + 1) : path;
+    }
+
+    private static long rowCount(Object value) {
+        if (value instanceof Collection) return ((Collection<?>) value).size();
+        if (value instanceof ColumnarResult) return ((ColumnarResult) value).size();
+        if (value instanceof Map) return 1;
+        return -1;
+    }
+
+    // ========== Conditional Requests ==========
+
+    /**
+     * GET an endpoint, revalidating a previous response with its ETag or
+     * Last-Modified date when conditional requests are enabled
+     */
+    private <T> T fetch(String endpoint, String schema, Map<String, String> params, String kind,
+                        BodyDecoder<T> decoder) throws IOException, InterruptedException {
+        return fetchUrl(buildUrl(endpoint, params), schema, kind, decoder);
+    }
+
+    private <T> T fetchUrl(String url, String schema, String kind, BodyDecoder<T> decoder)
+            throws IOException, InterruptedException {
+        if (validators == null) {
+            return execute(newGet(url, schema).build(), "API request failed: ", decoder);
+        }
+
+        String key = schema + " " + url + "#" + kind;
+        ValidatorCache.Validators cached = validators.get(key);
+        HttpRequest request = conditionalGet(url, schema, cached);
+        if (isHedged(request)) {
+            return await(fetchUrlAsync(url, schema, kind, decoder, null));
+        }
+        return retrying(request, () -> {
+            Measurement measurement = new Measurement(request, false);
+            HttpResponse<InputStream> response = exchange(request, "API request failed: ", measurement);
+            try (InputStream body = response.body()) {
+                if (response.statusCode() == 304) {
+                    return measurement.decode(body, unused -> notModified(cached, url));
+                }
+                ValidatorCache.CountingStream counted = new ValidatorCache.CountingStream(body);
+                T value = measurement.decode(counted, decoder);
+                return remember(key, response.headers(), value, counted.getCount());
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        });
+    }
+
+    private <T> CompletableFuture<T> fetchAsync(String endpoint, String schema, Map<String, String> params,
+                                                String kind, BodyDecoder<T> decoder, Deadline deadline) {
+        return fetchUrlAsync(buildUrl(endpoint, params), schema, kind, decoder, deadline);
+    }
+
+    private <T> CompletableFuture<T> fetchUrlAsync(String url, String schema, String kind,
+                                                   BodyDecoder<T> decoder, Deadline deadline) {
+        if (validators == null) {
+            return executeWithHeadersAsync(newGet(url, schema).build(), "API request failed: ",
+                    headers -> decoder, deadline);
+        }
+
+        String key = schema + " " + url + "#" + kind;
+        ValidatorCache.Validators cached = validators.get(key);
+        HttpRequest request = conditionalGet(url, schema, cached);
+        return retryingAsync(request, deadline, () -> {
+            Measurement measurement = new Measurement(request, false);
+            CompletableFuture<HttpResponse<byte[]>> sent = sendAsync(request, measurement, deadline);
+            return propagateCancel(sent.thenApplyAsync(response -> {
+                try {
+                    checkStatus(response, "API request failed: ", measurement);
+                    if (response.statusCode() == 304) {
+                        return measurement.decode(body(response), unused -> notModified(cached, url));
+                    }
+                    ValidatorCache.CountingStream counted = new ValidatorCache.CountingStream(body(response));
+                    T value = measurement.decode(counted, decoder);
+                    return remember(key, response.headers(), value, counted.getCount());
+                } catch (IOException e) {
+                    measurement.failed(e);
+                    throw new CompletionException(e);
+                } catch (UncheckedIOException e) {
+                    throw new CompletionException(e.getCause());
+                }
+            }, executor), sent);
+        });
+    }
+
+    private HttpRequest conditionalGet(String url, String schema, ValidatorCache.Validators cached) {
+        HttpRequest.Builder requestBuilder = newGet(url, schema);
+        if (cached != null) {
+            if (cached.etag != null) requestBuilder.header("If-None-Match", cached.etag);
+            if (cached.lastModified != null) requestBuilder.header("If-Modified-Since", cached.lastModified);
+        }
+        return requestBuilder.build();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T notModified(ValidatorCache.Validators cached, String url) throws IOException {
+        if (cached == null) {
+            throw new IOException("Unexpected 304 Not Modified for unconditional request: " + url);
+        }
+        return (T) cached.value;
+    }
+
+    /**
+     * Keep a decoded response for revalidation if the server sent validators.
+     * Remembered values are shared between callers, so they are returned read-only.
+     * @param size Bytes of JSON the value was decoded from
+     */
+    private <T> T remember(String key, HttpHeaders headers, T value, long size) {
+        String etag = headers.firstValue("ETag").orElse(null);
+        String lastModified = headers.firstValue("Last-Modified").orElse(null);
+        if (etag == null && lastModified == null) {
+            validators.remove(key);
+            return value;
+        }
+        T shared = readOnly(value);
+        validators.put(key, new ValidatorCache.Validators(etag, lastModified, shared, size));
+        return shared;
+    }
+
+    private List<Map<String, Object>> decodeRows(InputStream body) throws IOException {
+        return readJson(body, gson.getAdapter(ROW_LIST_TYPE));
+    }
+
+    private <T> BodyDecoder<List<T>> recordsDecoder(Class<T> type) {
+        TypeAdapter<T> adapter = gson.getAdapter(type);
+        return body -> {
+            List<T> rows = new ArrayList<>();
+            new JsonArrayIterator<>(body, adapter).forEachRemaining(rows::add);
+            return rows;
+        };
+    }
+
+    private static BodyDecoder<ColumnarResult> columnsDecoder(ColumnarResult.Schema columns) {
+        return body -> ColumnarResult.read(
+                new JsonReader(new InputStreamReader(body, StandardCharsets.UTF_8)), columns);
+    }
+
+    private Object decodeAny(InputStream body) throws IOException {
+        return readJson(body, gson.getAdapter(Object.class));
+    }
+
+    /**
+     * Decode a whole response body with an adapter. Unlike {@code Gson.fromJson}, a read
+     * failure partway through the body surfaces as the original {@link IOException}.
+     * An empty body decodes to {@code null}.
+     */
+    private static <T> T readJson(InputStream body, TypeAdapter<T> adapter) throws IOException {
+        JsonReader reader = new JsonReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        try {
+            reader.peek();
+        } catch (EOFException e) {
+            return null;
+        }
+        return adapter.read(reader);
+    }
+
+    /**
+     * Make a GET request to the API
+     */
+    private List<Map<String, Object>> request(String endpoint, String schema, Map<String, String> params)
+            throws IOException, InterruptedException {
+        if (isCached(schema)) {
+            return cached(cacheKey(endpoint, params, "rows"), () ->
+                    fetch(endpoint, schema, params, "rows", this::decodeRows));
+        }
+        return fetch(endpoint, schema, params, "rows", this::decodeRows);
+    }
+
+    /**
+     * Make a GET request to the API and decode each row with the registered adapter for a record type
+     */
+    private <T> List<T> request(String endpoint, String schema, Map<String, String> params, Class<T> type)
+            throws IOException, InterruptedException {
+        if (isCached(schema)) {
+            return cached(cacheKey(endpoint, params, type.getName()), () ->
+                    fetch(endpoint, schema, params, type.getName(), recordsDecoder(type)));
+        }
+        return fetch(endpoint, schema, params, type.getName(), recordsDecoder(type));
+    }
+
+    /**
+     * Make a GET request to the API and decode the response into column buffers
+     */
+    private ColumnarResult requestColumns(String endpoint, String schema, Map<String, String> params,
+                                          ColumnarResult.Schema columns)
+            throws IOException, InterruptedException {
+        return execute(buildGet(endpoint, schema, params), "API request failed: ", columnsDecoder(columns));
+    }
+
+    /**
+     * Make a GET request to the API without blocking the calling thread
+     */
+    private CompletableFuture<List<Map<String, Object>>> requestAsync(String endpoint, String schema,
+                                                                      Map<String, String> params) {
+        return requestAsync(endpoint, schema, params, (Deadline) null);
+    }
+
+    /**
+     * @param deadline Bounds the request's timeout, or null for none
+     */
+    private CompletableFuture<List<Map<String, Object>>> requestAsync(String endpoint, String schema,
+                                                                      Map<String, String> params,
+                                                                      Deadline deadline) {
+        if (isCached(schema)) {
+            return cachedAsync(cacheKey(endpoint, params, "rows"), () ->
+                    fetchAsync(endpoint, schema, params, "rows", this::decodeRows, deadline));
+        }
+        return fetchAsync(endpoint, schema, params, "rows", this::decodeRows, deadline);
+    }
+
+    private <T> CompletableFuture<List<T>> requestAsync(String endpoint, String schema,
+                                                        Map<String, String> params, Class<T> type) {
+        if (isCached(schema)) {
+            return cachedAsync(cacheKey(endpoint, params, type.getName()), () ->
+                    fetchAsync(endpoint, schema, params, type.getName(), recordsDecoder(type), null));
+        }
+        return fetchAsync(endpoint, schema, params, type.getName(), recordsDecoder(type), null);
+    }
+
+    /**
+     * Make a GET request to the API and decode the response array lazily.
+     * The returned iterator must be closed to release the connection.
+     */
+    private <T> JsonArrayIterator<T> requestIterator(String endpoint, String schema, Map<String, String> params,
+                                                     TypeAdapter<T> adapter)
+            throws IOException, InterruptedException {
+        HttpRequest request = buildGet(endpoint, schema, params);
+        return new JsonArrayIterator<>(send(request, "API request failed: "), adapter);
+    }
+
+    // ========== Metadata Cache ==========
+
+    @FunctionalInterface
+    private interface Loader<T> {
+        T load() throws IOException, InterruptedException;
+    }
+
+    /**
+     * Only backbone metadata is cached; working tables change with every load
+     */
+    private boolean isCached(String schema) {
+        return metadataCache != null && !"working".equals(schema);
+    }
+
+    private static String cacheKey(String endpoint, Map<String, String> params, String kind) {
+        return endpoint + "?" + (params != null ? new TreeMap<>(params) : "{}") + "#" + kind;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T cached(String key, Loader<T> loader) throws IOException, InterruptedException {
+        long generation = metadataGeneration();
+        Object value = metadataCache.get(key);
+        if (value != null) {
+            cacheHits.increment();
+            return (T) value;
+        }
+        cacheMisses.increment();
+        T loaded = readOnly(loader.load());
+        if (loaded != null) putIfCurrent(key, loaded, generation);
+        return loaded;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> CompletableFuture<T> cachedAsync(String key, Supplier<CompletableFuture<T>> loader) {
+        long generation = metadataGeneration();
+        Object value = metadataCache.get(key);
+        if (value != null) {
+            cacheHits.increment();
+            return CompletableFuture.completedFuture((T) value);
+        }
+        cacheMisses.increment();
+        return mapping(loader.get(), loaded -> {
+            T result = readOnly(loaded);
+            if (result != null) putIfCurrent(key, result, generation);
+            return result;
+        });
+    }
+
+    /**
+     * Cached values are shared between callers, so lists are handed out unmodifiable
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T readOnly(T value) {
+        return value instanceof List ? (T) Collections.unmodifiableList((List<?>) value) : value;
+    }
+
+    private long metadataGeneration() {
+        synchronized (metadataLock) {
+            return metadataGeneration;
+        }
+    }
+
+    /**
+     * Cache a loaded value unless the cache was invalidated while it loaded, so a
+     * response read before an ingest cannot put stale metadata back afterwards
+     */
+    private void putIfCurrent(String key, Object value, long generation) {
+        synchronized (metadataLock) {
+            if (generation == metadataGeneration) {
+                metadataCache.put(key, value);
+            }
+        }
+    }
+
+    /**
+     * Drop all cached metadata, e.g. after datasets were ingested through another
+     * client or directly in the database. {@link #fetchAndLoadJsonld} and
+     * {@link #quickIngestDatasource} do this themselves. Loads still in flight are
+     * not cached when they complete.
+     */
+    public void invalidateMetadataCache() {
+        if (metadataCache != null) {
+            synchronized (metadataLock) {
+                metadataGeneration++;
+                metadataCache.invalidateAll();
+            }
+        }
+    }
+
+    /**
+     * Number of metadata reads served from the cache
+     */
+    public long getMetadataCacheHits() {
+        return cacheHits.sum();
+    }
+
+    /**
+     * Number of metadata reads that missed the cache and went to the API
+     */
+    public long getMetadataCacheMisses() {
+        return cacheMisses.sum();
+    }
+
+    /**
+     * Wait for an asynchronous request, rethrowing its failure as a checked exception
+     */
+    private static <T> T await(CompletableFuture<T> future) throws IOException, InterruptedException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            throw e;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) throw (IOException) cause;
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * Call a PostgreSQL function via RPC
+     */
+    private Object rpc(String functionName, Map<String, Object> params, String schema)
+            throws IOException, InterruptedException {
+        return execute(buildRpc(functionName, params, schema), "RPC call failed: ", this::decodeAny);
+    }
+
+    /**
+     * Call a PostgreSQL function via RPC without blocking the calling thread
+     */
+    public CompletableFuture<Object> rpcAsync(String functionName, Map<String, Object> params, String schema) {
+        return executeAsync(buildRpc(functionName, params, schema), "RPC call failed: ", this::decodeAny);
+    }
+
+    // ========== Data Source Methods ==========
+
+    /**
+     * Get all data sources
+     */
+    public List<Map<String, Object>> getDataSources() throws IOException, InterruptedException {
+        return getDataSources(null);
+    }
+
+    /**
+     * Get all data sources, fetching only the columns in {@code select} (PostgREST syntax, null for all)
+     */
+    public List<Map<String, Object>> getDataSources(String select) throws IOException, InterruptedException {
+        return request("data_source", "backbone", withSelect(new HashMap<>(), select));
+    }
+
+    /**
+     * Get all data sources as typed records
+     */
+    public List<DataSource> getDataSourceRecords() throws IOException, InterruptedException {
+        return getDataSourceRecords(null);
+    }
+
+    /**
+     * Get only the {@code select} columns of all data sources as typed records.
+     * Columns left out come back as null, and {@code hasAttributes} as false.
+     */
+    public List<DataSource> getDataSourceRecords(String select) throws IOException, InterruptedException {
+        return request("data_source", "backbone", withSelect(new HashMap<>(), select), DataSource.class);
+    }
+
+    /**
+     * Get a specific data source by UUID
+     */
+    public Map<String, Object> getDataSource(String uuid) throws IOException, InterruptedException {
+        if (dataSourceLoader != null) {
+            return await(getDataSourceAsync(uuid));
+        }
+        return getDataSource(uuid, null);
+    }
+
+    /**
+     * Get only the {@code select} columns of a specific data source. Projected lookups are never coalesced.
+     */
+    public Map<String, Object> getDataSource(String uuid, String select)
+            throws IOException, InterruptedException {
+        if (select == null && dataSourceLoader != null) {
+            return getDataSource(uuid);
+        }
+        return firstOrNull(request("data_source", "backbone", withSelect(dataSourceParams(uuid), select)));
+    }
+
+    /**
+     * Get a specific data source by UUID, or only its {@code select} columns if not null, failing
+     * with a {@link DeadlineExceededException} if it has not arrived by the deadline. A coalesced
+     * lookup shares its request with other callers, so only its result, not the request's
+     * timeout, is bound by the deadline.
+     */
+    public Map<String, Object> getDataSource(String uuid, String select, Deadline deadline)
+            throws IOException, InterruptedException {
+        return await(getDataSourceAsync(uuid, select, deadline));
+    }
+
+    private static Map<String, String> dataSourceParams(String uuid) {
+        Map<String, String> params = new HashMap<>();
+        params.put("data_source_uuid", "eq." + uuid);
+        return params;
+    }
+
+    /**
+     * Restrict a request to the given PostgREST {@code select} list, if any
+     */
+    private static Map<String, String> withSelect(Map<String, String> params, String select) {
+        if (select != null) params.put("select", select);
+        return params;
+    }
+
+    private static <T> T firstOrNull(List<T> result) {
+        return result.isEmpty() ? null : result.get(0);
+    }
+
+    /**
+     * List all downloadable data sources
+     */
+    @SuppressWarnings("unchecked")
+    public List<Map<String, Object>> listDownloadableDatasources() throws IOException, InterruptedException {
+        if (metadataCache != null) {
+            return cached(cacheKey("rpc/list_downloadable_datasources", null, "rows"), () ->
+                    (List<Map<String, Object>>) rpc("list_downloadable_datasources", new HashMap<>(), "backbone"));
+        }
+        return (List<Map<String, Object>>) rpc("list_downloadable_datasources", new HashMap<>(), "backbone");
+    }
+
+    // ========== Variable Source Methods ==========
+
+    /**
+     * Get variable definitions
+     */
+    public List<Map<String, Object>> getVariables(String dataSourceUuid)
+            throws IOException, InterruptedException {
+        return getVariables(dataSourceUuid, null);
+    }
+
+    /**
+     * Get only the {@code select} columns of variable definitions
+     */
+    public List<Map<String, Object>> getVariables(String dataSourceUuid, String select)
+            throws IOException, InterruptedException {
+        return request("variable_source", "backbone", withSelect(variableParams(dataSourceUuid), select));
+    }
+
+    /**
+     * Get variable definitions as typed records
+     */
+    public List<VariableSource> getVariableRecords(String dataSourceUuid)
+            throws IOException, InterruptedException {
+        return getVariableRecords(dataSourceUuid, null);
+    }
+
+    /**
+     * Get only the {@code select} columns of variable definitions as typed records.
+     * Columns left out come back as null.
+     */
+    public List<VariableSource> getVariableRecords(String dataSourceUuid, String select)
+            throws IOException, InterruptedException {
+        return request("variable_source", "backbone", withSelect(variableParams(dataSourceUuid), select),
+                VariableSource.class);
+    }
+
+    private static Map<String, String> variableParams(String dataSourceUuid) {
+        Map<String, String> params = new HashMap<>();
+        if (dataSourceUuid != null) {
+            params.put("data_source_uuid", "eq." + dataSourceUuid);
+        }
+        return params;
+    }
+
+    // ========== Location Methods ==========
+
+    /**
+     * Get location data
+     */
+    public List<Map<String, Object>> getLocations(String city, String state, Integer limit)
+            throws IOException, InterruptedException {
+        return getLocations(city, state, limit, null);
+    }
+
+    /**
+     * Get only the {@code select} columns of location data, e.g. {@code "location_id,latitude,longitude"}
+     */
+    public List<Map<String, Object>> getLocations(String city, String state, Integer limit, String select)
+            throws IOException, InterruptedException {
+        return request("location", "working", withSelect(locationParams(city, state, limit), select));
+    }
+
+    /**
+     * Get location data as typed records
+     */
+    public List<Location> getLocationRecords(String city, String state, Integer limit)
+            throws IOException, InterruptedException {
+        return getLocationRecords(city, state, limit, null);
+    }
+
+    /**
+     * Get only the {@code select} columns of location data as typed records. Columns left
+     * out come back as 0 for location_id, NaN for the coordinates and null otherwise.
+     */
+    public List<Location> getLocationRecords(String city, String state, Integer limit, String select)
+            throws IOException, InterruptedException {
+        return request("location", "working", withSelect(locationParams(city, state, limit), select),
+                Location.class);
+    }
+
+    private static Map<String, String> locationParams(String city, String state, Integer limit) {
+        Map<String, String> params = new HashMap<>();
+        params.put("limit", String.valueOf(limit != null ? limit : 100));
+        if (city != null) params.put("city", "eq." + city);
+        if (state != null) params.put("state", "eq." + state);
+        return params;
+    }
+
+    /**
+     * Get a specific location by ID
+     */
+    public Map<String, Object> getLocation(int locationId) throws IOException, InterruptedException {
+        return getLocation(locationId, null);
+    }
+
+    /**
+     * Get only the {@code select} columns of a specific location. Projected lookups are never coalesced.
+     */
+    public Map<String, Object> getLocation(int locationId, String select)
+            throws IOException, InterruptedException {
+        if (select == null && locationLoader != null) {
+            return await(locationLoader.load(locationId));
+        }
+        return firstOrNull(request("location", "working", withSelect(locationIdParams(locationId), select)));
+    }
+
+    /**
+     * Get a specific location by ID, or only its {@code select} columns if not null, failing
+     * with a {@link DeadlineExceededException} if it has not arrived by the deadline. A coalesced
+     * lookup shares its request with other callers, so only its result, not the request's
+     * timeout, is bound by the deadline.
+     */
+    public Map<String, Object> getLocation(int locationId, String select, Deadline deadline)
+            throws IOException, InterruptedException {
+        return await(getLocationAsync(locationId, select, deadline));
+    }
+
+    private static Map<String, String> locationIdParams(int locationId) {
+        Map<String, String> params = new HashMap<>();
+        params.put("location_id", "eq." + locationId);
+        return params;
+    }
+
+    /**
+     * Get location history records
+     */
+    public List<Map<String, Object>> getLocationHistory(Integer locationId, Integer personId)
+            throws IOException, InterruptedException {
+        return getLocationHistory(locationId, personId, null);
+    }
+
+    /**
+     * Get only the {@code select} columns of location history records
+     */
+    public List<Map<String, Object>> getLocationHistory(Integer locationId, Integer personId, String select)
+            throws IOException, InterruptedException {
+        return request("location_history", "working",
+                withSelect(locationHistoryParams(locationId, personId), select));
+    }
+
+    /**
+     * Get location history as typed records
+     */
+    public List<LocationHistory> getLocationHistoryRecords(Integer locationId, Integer personId)
+            throws IOException, InterruptedException {
+        return getLocationHistoryRecords(locationId, personId, null);
+    }
+
+    /**
+     * Get only the {@code select} columns of location history as typed records.
+     * Columns left out come back as 0 for the ids and null otherwise.
+     */
+    public List<LocationHistory> getLocationHistoryRecords(Integer locationId, Integer personId, String select)
+            throws IOException, InterruptedException {
+        return request("location_history", "working",
+                withSelect(locationHistoryParams(locationId, personId), select), LocationHistory.class);
+    }
+
+    private static Map<String, String> locationHistoryParams(Integer locationId, Integer personId) {
+        Map<String, String> params = new HashMap<>();
+        if (locationId != null) params.put("location_id", "eq." + locationId);
+        if (personId != null) params.put("entity_id", "eq." + personId);
+        return params;
+    }
+
+    // ========== External Exposure Methods ==========
+
+    /**
+     * Get external exposure data
+     */
+    public List<Map<String, Object>> getExposures(Integer personId, Integer locationId, Integer limit)
+            throws IOException, InterruptedException {
+        return getExposures(personId, locationId, limit, null);
+    }
+
+    /**
+     * Get only the {@code select} columns of external exposure data
+     */
+    public List<Map<String, Object>> getExposures(Integer personId, Integer locationId, Integer limit,
+                                                  String select)
+            throws IOException, InterruptedException {
+        return request("external_exposure", "working",
+                withSelect(exposureParams(personId, locationId, limit), select));
+    }
+
+    /**
+     * Get external exposure data as typed records
+     */
+    public List<ExternalExposure> getExposureRecords(Integer personId, Integer locationId, Integer limit)
+            throws IOException, InterruptedException {
+        return getExposureRecords(personId, locationId, limit, null);
+    }
+
+    /**
+     * Get only the {@code select} columns of external exposure data as typed records.
+     * Columns left out come back as 0 for the ids and the exposure, type and relationship
+     * concepts, NaN for quantity and value_as_number, and null otherwise.
+     */
+    public List<ExternalExposure> getExposureRecords(Integer personId, Integer locationId, Integer limit,
+                                                     String select)
+            throws IOException, InterruptedException {
+        return request("external_exposure", "working",
+                withSelect(exposureParams(personId, locationId, limit), select), ExternalExposure.class);
+    }
+
+    /**
+     * Get the person_id, location_id and value_as_number columns of external exposure data
+     * as primitive arrays, without materializing a row object per exposure
+     */
+    public ColumnarResult getExposureColumns(Integer personId, Integer locationId, Integer limit)
+            throws IOException, InterruptedException {
+        ColumnarResult.Schema columns = ColumnarResult.schema()
+                .withLong("person_id")
+                .withInt("location_id")
+                .withDouble("value_as_number");
+        Map<String, String> params = exposureParams(personId, locationId, limit);
+        params.put("select", columns.toSelect());
+
+        return requestColumns("external_exposure", "working", params, columns);
+    }
+
+    /**
+     * Stream external exposure data to a callback, one row at a time
+     */
+    public void forEachExposure(Integer personId, Integer locationId, Integer limit,
+                                Consumer<Map<String, Object>> action)
+            throws IOException, InterruptedException {
+        forEach("external_exposure", "working", exposureParams(personId, locationId, limit), action);
+    }
+
+    private static Map<String, String> exposureParams(Integer personId, Integer locationId, Integer limit) {
+        Map<String, String> params = new HashMap<>();
+        params.put("limit", String.valueOf(limit != null ? limit : 100));
+        if (personId != null) params.put("person_id", "eq." + personId);
+        if (locationId != null) params.put("location_id", "eq." + locationId);
+        return params;
+    }
+
+    // ========== Data Ingestion Methods ==========
+
+    /**
+     * Fetch JSON-LD metadata from URL and load it
+     */
+    @SuppressWarnings("unchecked")
+    public List<Map<String, Object>> fetchAndLoadJsonld(String url) throws IOException, InterruptedException {
+        try {
+            return (List<Map<String, Object>>) rpc("fetch_and_load_jsonld", jsonldParams(url), "backbone");
+        } finally {
+            invalidateMetadataCache();
+        }
+    }
+
+    private static Map<String, Object> jsonldParams(String url) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("url", url);
+        return params;
+    }
+
+    /**
+     * Quickly ingest a data source by name
+     */
+    @SuppressWarnings("unchecked")
+    public List<Map<String, Object>> quickIngestDatasource(String datasetName, String downloadUrl)
+            throws IOException, InterruptedException {
+        try {
+            return (List<Map<String, Object>>) rpc("quick_ingest_datasource",
+                    quickIngestParams(datasetName, downloadUrl), "backbone");
+        } finally {
+            invalidateMetadataCache();
+        }
+    }
+
+    private static Map<String, Object> quickIngestParams(String datasetName, String downloadUrl) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("p_dataset_name", datasetName);
+        if (downloadUrl != null) {
+            params.put("p_download_url", downloadUrl);
+        }
+        return params;
+    }
+
+    /**
+     * Load location and location history data from CSV files
+     */
+    @SuppressWarnings("unchecked")
+    public Map<String, Object> loadLocationData(String locationFile, String locationHistoryFile)
+            throws IOException, InterruptedException {
+        return (Map<String, Object>) rpc("load_location_data",
+                locationDataParams(locationFile, locationHistoryFile), "working");
+    }
+
+    private static Map<String, Object> locationDataParams(String locationFile, String locationHistoryFile) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("p_location_file", locationFile);
+        params.put("p_location_history_file", locationHistoryFile);
+        return params;
+    }
+
+    /**
+     * Calculate exposures via spatial join
+     */
+    @SuppressWarnings("unchecked")
+    public Map<String, Object> spatialJoinExposure(String variableSourceId, String externalTable)
+            throws IOException, InterruptedException {
+        return (Map<String, Object>) rpc("spatial_join_exposure",
+                spatialJoinParams(variableSourceId, externalTable), "working");
+    }
+
+    private static Map<String, Object> spatialJoinParams(String variableSourceId, String externalTable) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("p_variable_source_id", variableSourceId);
+        params.put("p_external_table", externalTable);
+        return params;
+    }
+
+    // ========== Advanced Query Methods ==========
+
+    /**
+     * Advanced query with full PostgREST capabilities
+     */
+    public List<Map<String, Object>> query(String table, String schema, String select,
+                                          Map<String, String> filters, String order,
+                                          Integer limit, Integer offset)
+            throws IOException, InterruptedException {
+        return request(table, schema, queryParams(select, filters, order, limit, offset));
+    }
+
+    private static Map<String, String> queryParams(String select, Map<String, String> filters, String order,
+                                                   Integer limit, Integer offset) {
+        Map<String, String> params = new HashMap<>();
+
+        if (select != null) params.put("select", select);
+        if (filters != null) {
+            filters.forEach((key, value) -> params.put(key, "eq." + value));
         }
         if (order != null) params.put("order", order);
         if (limit != null) params.put("limit", String.valueOf(limit));
         if (offset != null) params.put("offset", String.valueOf(offset));
 
-        return request(table, schema, params);
+        return params;
+    }
+
+    /**
+     * Advanced query decoded into primitive column buffers. Only the schema's
+     * columns are selected; filters use equality as in {@link #query}.
+     */
+    public ColumnarResult queryColumns(String table, String schema, ColumnarResult.Schema columns,
+                                       Map<String, String> filters, String order,
+                                       Integer limit, Integer offset)
+            throws IOException, InterruptedException {
+        return requestColumns(table, schema,
+                queryParams(columns.toSelect(), filters, order, limit, offset), columns);
+    }
+
+    /**
+     * Run a query built with {@link PostgrestQuery}, which supports every PostgREST filter operator
+     */
+    public List<Map<String, Object>> query(PostgrestQuery query) throws IOException, InterruptedException {
+        return requestUrl(baseUrl + "/" + query.toPath(), query.getSchema(), "rows", this::decodeRows);
+    }
+
+    /**
+     * Run a query built with {@link PostgrestQuery} and decode each row with the adapter for a record type
+     */
+    public <T> List<T> query(PostgrestQuery query, Class<T> type) throws IOException, InterruptedException {
+        return requestUrl(baseUrl + "/" + query.toPath(), query.getSchema(), type.getName(), recordsDecoder(type));
+    }
+
+    /**
+     * Compile a query with {@link PostgrestQuery#param placeholders} into a reusable template for this client
+     */
+    public QueryTemplate prepare(PostgrestQuery query) {
+        return new QueryTemplate(baseUrl, query);
+    }
+
+    /**
+     * Run a prepared query, binding {@code values} to its placeholders in order
+     */
+    public List<Map<String, Object>> query(QueryTemplate template, Object... values)
+            throws IOException, InterruptedException {
+        return requestUrl(template.url(values), template.getSchema(), "rows", this::decodeRows);
+    }
+
+    /**
+     * Run a prepared query and decode each row with the adapter for a record type
+     */
+    public <T> List<T> query(QueryTemplate template, Class<T> type, Object... values)
+            throws IOException, InterruptedException {
+        return requestUrl(template.url(values), template.getSchema(), type.getName(), recordsDecoder(type));
+    }
+
+    /**
+     * GET a URL that already carries its encoded query string
+     */
+    private <T> T requestUrl(String url, String schema, String kind, BodyDecoder<T> decoder)
+            throws IOException, InterruptedException {
+        if (isCached(schema)) {
+            return cached(urlCacheKey(url, kind), () -> fetchUrl(url, schema, kind, decoder));
+        }
+        return fetchUrl(url, schema, kind, decoder);
+    }
+
+    private <T> CompletableFuture<T> requestUrlAsync(String url, String schema, String kind,
+                                                     BodyDecoder<T> decoder) {
+        if (isCached(schema)) {
+            return cachedAsync(urlCacheKey(url, kind), () -> fetchUrlAsync(url, schema, kind, decoder, null));
+        }
+        return fetchUrlAsync(url, schema, kind, decoder, null);
+    }
+
+    private String urlCacheKey(String url, String kind) {
+        return url.substring(baseUrl.length() + 1) + "#" + kind;
+    }
+
+    // ========== Aggregation Methods ==========
+    // Computed by PostgREST (v12+, with db-aggregates-enabled) so only one row per group is transferred.
+
+    /**
+     * Aggregate rows on the server, grouped by the {@code groupBy} columns. Requires PostgREST 12+
+     * with {@code PGRST_DB_AGGREGATES_ENABLED=true}; otherwise the server answers with 400.
+     * The result is one response, so PostgREST truncates it at {@code db-max-rows} groups.
+     * For or/and groups or other filters a column map cannot express, select the same
+     * aggregates with {@link PostgrestQuery#select} and run it through {@link #query(PostgrestQuery)}.
+     * @param aggregates Output name to aggregate expression, e.g. {@code "mean" -> "value_as_number.avg()"};
+     *                   supported functions are count(), sum(), avg(), min() and max()
+     * @param filters Column to PostgREST condition, operator included, e.g.
+     *                {@code "location_id" -> "eq.42"} or {@code "value_as_number" -> "gte.10"}
+     */
+    public List<Map<String, Object>> aggregate(String table, String schema, List<String> groupBy,
+                                              Map<String, String> aggregates, Map<String, String> filters,
+                                              String order, Integer limit)
+            throws IOException, InterruptedException {
+        return request(table, schema, aggregateParams(groupBy, aggregates, filters, order, limit));
+    }
+
+    private static Map<String, String> aggregateParams(List<String> groupBy, Map<String, String> aggregates,
+                                                       Map<String, String> filters, String order, Integer limit) {
+        Map<String, String> params = queryParams(aggregateSelect(groupBy, aggregates), null, order, limit, null);
+        if (filters != null) params.putAll(filters);
+        return params;
+    }
+
+    private static String aggregateSelect(List<String> groupBy, Map<String, String> aggregates) {
+        if (aggregates == null || aggregates.isEmpty()) {
+            throw new IllegalArgumentException("At least one aggregate is required");
+        }
+        StringJoiner select = new StringJoiner(",");
+        if (groupBy != null) groupBy.forEach(select::add);
+        aggregates.forEach((alias, expression) -> select.add(alias + ":" + expression));
+        return select.toString();
+    }
+
+    /**
+     * Count, mean, minimum and maximum exposure value per person, optionally for a single location.
+     * Computed by the server, so PostgREST must have aggregates enabled as for {@link #aggregate}.
+     * Groups are fetched page by page, since PostgREST caps each response at {@code db-max-rows}
+     * (see {@link Builder#maxRowsPerResponse}).
+     * @param limit Maximum number of persons, or null for all
+     */
+    public List<ExposureSummary> getExposureSummariesByPerson(Integer locationId, Integer limit)
+            throws IOException, InterruptedException {
+        return await(getExposureSummariesByPersonAsync(locationId, limit));
+    }
+
+    /**
+     * Count, mean, minimum and maximum exposure value per location, optionally for a single person.
+     * Computed by the server, so PostgREST must have aggregates enabled as for {@link #aggregate}.
+     * Groups are fetched page by page, since PostgREST caps each response at {@code db-max-rows}
+     * (see {@link Builder#maxRowsPerResponse}).
+     * @param limit Maximum number of locations, or null for all
+     */
+    public List<ExposureSummary> getExposureSummariesByLocation(Integer personId, Integer limit)
+            throws IOException, InterruptedException {
+        return await(getExposureSummariesByLocationAsync(personId, limit));
+    }
+
+    /**
+     * Collect summary groups with order/limit/offset pages of at most {@code maxRowsPerResponse}
+     * rows until the limit is reached or a page comes back shorter than requested. Cancelling
+     * the result cancels the page in flight.
+     */
+    private CompletableFuture<List<ExposureSummary>> exposureSummariesAsync(String groupBy, String filterColumn,
+                                                                           Integer filterValue, Integer limit) {
+        CompletableFuture<List<ExposureSummary>> result = new CompletableFuture<>();
+        AtomicReference<Future<?>> pending = new AtomicReference<>();
+        exposureSummaryPage(groupBy, filterColumn, filterValue, limit, new ArrayList<>(), result, pending);
+        result.whenComplete((groups, error) -> {
+            Future<?> page = pending.get();
+            if (result.isCancelled() && page != null) page.cancel(true);
+        });
+        return result;
+    }
+
+    private void exposureSummaryPage(String groupBy, String filterColumn, Integer filterValue, Integer limit,
+                                     List<ExposureSummary> groups,
+                                     CompletableFuture<List<ExposureSummary>> result,
+                                     AtomicReference<Future<?>> pending) {
+        int pageSize = limit != null ? Math.min(limit - groups.size(), maxRowsPerResponse) : maxRowsPerResponse;
+        Map<String, String> params = exposureSummaryParams(groupBy, filterColumn, filterValue, pageSize);
+        if (!groups.isEmpty()) params.put("offset", String.valueOf(groups.size()));
+
+        CompletableFuture<List<ExposureSummary>> page =
+                requestAsync("external_exposure", "working", params, ExposureSummary.class);
+        pending.set(page);
+        if (result.isCancelled()) page.cancel(true);
+        page.whenComplete((rows, error) -> {
+            if (error != null) {
+                result.completeExceptionally(unwrap(error));
+            } else if (rows.size() < pageSize || (limit != null && groups.size() + rows.size() >= limit)) {
+                groups.addAll(rows);
+                result.complete(groups);
+            } else {
+                groups.addAll(rows);
+                exposureSummaryPage(groupBy, filterColumn, filterValue, limit, groups, result, pending);
+            }
+        });
+    }
+
+    private static Map<String, String> exposureSummaryParams(String groupBy, String filterColumn,
+                                                             Integer filterValue, int limit) {
+        Map<String, String> params = new HashMap<>();
+        params.put("select", groupBy + "," + ExposureSummary.AGGREGATES);
+        params.put("order", groupBy + ".asc");
+        if (filterValue != null) params.put(filterColumn, "eq." + filterValue);
+        params.put("limit", String.valueOf(limit));
+        return params;
+    }
+
+    // ========== Batch Lookup Methods ==========
+    // Resolve many ids with a few "column=in.(...)" requests instead of one round trip
+    // per id. Ids are split into chunks that keep each URL under a length budget and
+    // the chunks are fetched concurrently, subject to the client's in-flight cap.
+
+    /**
+     * Get many locations by ID, keyed by location_id in input order.
+     * IDs with no matching location are absent from the result.
+     */
+    public Map<Integer, Map<String, Object>> getLocations(Collection<Integer> locationIds)
+            throws IOException, InterruptedException {
+        return await(getLocationsAsync(locationIds));
+    }
+
+    /**
+     * Get many locations by ID, failing with a {@link DeadlineExceededException} if the
+     * requests have not all finished by the deadline
+     */
+    public Map<Integer, Map<String, Object>> getLocations(Collection<Integer> locationIds, Deadline deadline)
+            throws IOException, InterruptedException {
+        return await(getLocationsAsync(locationIds, deadline));
+    }
+
+    public CompletableFuture<Map<Integer, Map<String, Object>>> getLocationsAsync(
+            Collection<Integer> locationIds) {
+        return getLocationsAsync(locationIds, null);
+    }
+
+    public CompletableFuture<Map<Integer, Map<String, Object>>> getLocationsAsync(
+            Collection<Integer> locationIds, Deadline deadline) {
+        return mapping(batchRequestAsync("location", "working", "location_id", true, locationIds, null, deadline),
+                rows -> indexUnique(locationIds, rows, "location_id", GaiaCoreClient::toInteger));
+    }
+
+    /**
+     * Get the location history of many persons, keyed by person ID in input order.
+     * Every requested person is present, with an empty list if they have no history.
+     */
+    public Map<Integer, List<Map<String, Object>>> getLocationHistoryForPersons(Collection<Integer> personIds)
+            throws IOException, InterruptedException {
+        return await(getLocationHistoryForPersonsAsync(personIds));
+    }
+
+    public Map<Integer, List<Map<String, Object>>> getLocationHistoryForPersons(Collection<Integer> personIds,
+                                                                                Deadline deadline)
+            throws IOException, InterruptedException {
+        return await(getLocationHistoryForPersonsAsync(personIds, deadline));
+    }
+
+    public CompletableFuture<Map<Integer, List<Map<String, Object>>>> getLocationHistoryForPersonsAsync(
+            Collection<Integer> personIds) {
+        return getLocationHistoryForPersonsAsync(personIds, null);
+    }
+
+    public CompletableFuture<Map<Integer, List<Map<String, Object>>>> getLocationHistoryForPersonsAsync(
+            Collection<Integer> personIds, Deadline deadline) {
+        return mapping(batchRequestAsync("location_history", "working", "entity_id", false, personIds, null, deadline),
+                rows -> indexGrouped(personIds, rows, "entity_id", GaiaCoreClient::toInteger));
+    }
+
+    /**
+     * Get many data sources by UUID, keyed by data_source_uuid in input order.
+     * UUIDs with no matching data source are absent from the result.
+     */
+    public Map<String, Map<String, Object>> getDataSourcesByUuid(Collection<String> uuids)
+            throws IOException, InterruptedException {
+        return await(getDataSourcesByUuidAsync(uuids));
+    }
+
+    public Map<String, Map<String, Object>> getDataSourcesByUuid(Collection<String> uuids, Deadline deadline)
+            throws IOException, InterruptedException {
+        return await(getDataSourcesByUuidAsync(uuids, deadline));
+    }
+
+    public CompletableFuture<Map<String, Map<String, Object>>> getDataSourcesByUuidAsync(
+            Collection<String> uuids) {
+        return getDataSourcesByUuidAsync(uuids, null);
+    }
+
+    public CompletableFuture<Map<String, Map<String, Object>>> getDataSourcesByUuidAsync(
+            Collection<String> uuids, Deadline deadline) {
+        return mapping(batchRequestAsync("data_source", "backbone", "data_source_uuid", true, uuids, null, deadline),
+                rows -> indexUnique(uuids, rows, "data_source_uuid", String::valueOf));
+    }
+
+    /**
+     * Fetch every row whose column matches one of the keys, in as few requests as
+     * the URL budget allows, and concatenate the results. The first failed chunk fails
+     * the batch and cancels the rest, as does cancelling the batch or missing the deadline.
+     * @param unique Whether the column is a unique key, so no chunk can match more rows than keys
+     * @param deadline Bounds all chunks together, or null for none
+     */
+    private <K> CompletableFuture<List<Map<String, Object>>> batchRequestAsync(String endpoint, String schema,
+                                                                               String column, boolean unique,
+                                                                               Collection<K> keys,
+                                                                               Map<String, String> params,
+                                                                               Deadline deadline) {
+        return within(deadline, endpoint,
+                () -> chunkedRequestAsync(endpoint, schema, column, unique, keys, params, deadline));
+    }
+
+    private <K> CompletableFuture<List<Map<String, Object>>> chunkedRequestAsync(String endpoint, String schema,
+                                                                                 String column, boolean unique,
+                                                                                 Collection<K> keys,
+                                                                                 Map<String, String> params,
+                                                                                 Deadline deadline) {
+        int prefixLength = baseUrl.length() + endpoint.length() + column.length() + 8;
+        if (params != null) {
+            for (Map.Entry<String, String> param : params.entrySet()) {
+                prefixLength += QueryEncoding.encodedLength(param.getKey())
+                        + QueryEncoding.encodedLength(param.getValue()) + 2;
+            }
+        }
+
+        List<CompletableFuture<List<Map<String, Object>>>> chunks = new ArrayList<>();
+        List<String> inList = new ArrayList<>();
+        int encodedLength = 0;
+        for (K key : new LinkedHashSet<>(keys)) {
+            String value = QueryEncoding.quote(String.valueOf(key));
+            int valueLength = QueryEncoding.encodedLength(value);
+            if (!inList.isEmpty() && prefixLength + encodedLength + valueLength + 1 > BATCH_URL_BUDGET) {
+                chunks.add(requestInChunkAsync(endpoint, schema, column, unique, inList, params, deadline));
+                inList = new ArrayList<>();
+                encodedLength = 0;
+            }
+            if (!inList.isEmpty()) {
+                encodedLength++;
+            }
+            inList.add(value);
+            encodedLength += valueLength;
+        }
+        if (!inList.isEmpty()) {
+            chunks.add(requestInChunkAsync(endpoint, schema, column, unique, inList, params, deadline));
+        }
+        return concatAsync(chunks);
+    }
+
+    /**
+     * Concatenate the rows of several requests in order. The first failure fails the
+     * result and cancels the other requests, as does cancelling the result.
+     */
+    private static CompletableFuture<List<Map<String, Object>>> concatAsync(
+            List<CompletableFuture<List<Map<String, Object>>>> chunks) {
+        CompletableFuture<List<Map<String, Object>>> result = new CompletableFuture<>();
+        for (CompletableFuture<List<Map<String, Object>>> chunk : chunks) {
+            chunk.whenComplete((value, error) -> {
+                if (error != null) result.completeExceptionally(unwrap(error));
+            });
+        }
+        CompletableFuture.allOf(chunks.toArray(new CompletableFuture<?>[0])).thenRun(() -> {
+            List<Map<String, Object>> rows = new ArrayList<>();
+            for (CompletableFuture<List<Map<String, Object>>> chunk : chunks) {
+                rows.addAll(chunk.join());
+            }
+            result.complete(rows);
+        });
+        result.whenComplete((value, error) -> {
+            if (error != null) chunks.forEach(chunk -> chunk.cancel(true));
+        });
+        return result;
+    }
+
+    private CompletableFuture<List<Map<String, Object>>> requestInChunkAsync(String endpoint, String schema,
+                                                                             String column, boolean unique,
+                                                                             List<String> values,
+                                                                             Map<String, String> params,
+                                                                             Deadline deadline) {
+        Map<String, String> chunkParams = params != null ? new HashMap<>(params) : new HashMap<>();
+        chunkParams.put(column, "in.(" + String.join(",", values) + ")");
+        Supplier<CompletableFuture<List<Map<String, Object>>>> fetch = unique
+                ? () -> fetchAsync(endpoint, schema, chunkParams, "rows", this::decodeRows, deadline)
+                : () -> fetchChunkAsync(endpoint, schema, column, values, params, chunkParams, deadline);
+        if (isCached(schema)) {
+            return cachedAsync(cacheKey(endpoint, chunkParams, "rows"), fetch);
+        }
+        return fetch.get();
+    }
+
+    /**
+     * Fetch one chunk of a one-to-many batch lookup, asking PostgREST to count the matches.
+     * PostgREST silently truncates responses at {@code db-max-rows}, which lookups such as
+     * location history can exceed; a truncated chunk is split in half and fetched again,
+     * and a single key with more rows than the server will return fails the lookup.
+     * Unique-key chunks never match more rows than keys, so they skip the count.
+     */
+    private CompletableFuture<List<Map<String, Object>>> fetchChunkAsync(String endpoint, String schema,
+                                                                         String column, List<String> values,
+                                                                         Map<String, String> params,
+                                                                         Map<String, String> chunkParams,
+                                                                         Deadline deadline) {
+        HttpRequest request = newGet(buildUrl(endpoint, chunkParams), schema)
+                .header("Prefer", "count=exact")
+                .build();
+        CompletableFuture<CountedRows> counted = executeWithHeadersAsync(request, "API request failed: ",
+                headers -> body -> new CountedRows(decodeRows(body), totalCount(headers)), deadline);
+
+        CompletableFuture<List<Map<String, Object>>> result = new CompletableFuture<>();
+        AtomicReference<Future<?>> pending = new AtomicReference<>(counted);
+        counted.whenComplete((page, error) -> {
+            if (error != null) {
+                result.completeExceptionally(unwrap(error));
+            } else if (page.total < 0 || page.rows.size() >= page.total) {
+                result.complete(page.rows);
+            } else if (values.size() == 1) {
+                result.completeExceptionally(new IOException("Server returned only " + page.rows.size() + " of "
+                        + page.total + " rows of " + endpoint + " for " + column + "=" + values.get(0)
+                        + "; raise PostgREST's db-max-rows"));
+            } else {
+                int half = values.size() / 2;
+                List<String> first = values.subList(0, half);
+                List<String> second = values.subList(half, values.size());
+                CompletableFuture<List<Map<String, Object>>> split = concatAsync(Arrays.asList(
+                        requestInChunkAsync(endpoint, schema, column, false, first, params, deadline),
+                        requestInChunkAsync(endpoint, schema, column, false, second, params, deadline)));
+                pending.set(split);
+                split.whenComplete((rows, splitError) -> {
+                    if (splitError != null) result.completeExceptionally(unwrap(splitError));
+                    else result.complete(rows);
+                });
+                if (result.isCancelled()) split.cancel(true);
+            }
+        });
+        result.whenComplete((rows, error) -> {
+            if (result.isCancelled()) pending.get().cancel(true);
+        });
+        return result;
+    }
+
+    /**
+     * Rows of a response together with the number of matching rows, or -1 if not counted
+     */
+    private static final class CountedRows {
+        final List<Map<String, Object>> rows;
+        final long total;
+
+        CountedRows(List<Map<String, Object>> rows, long total) {
+            this.rows = rows;
+            this.total = total;
+        }
+    }
+
+    /**
+     * Total from a {@code Content-Range: 0-999/2500} header, or -1 if absent or {@code *}
+     */
+    private static long totalCount(HttpHeaders headers) {
+        String range = headers.firstValue("Content-Range").orElse(null);
+        int slash = range != null ? range.lastIndexOf('/') : -1;
+        if (slash < 0) return -1;
+        try {
+            return Long.parseLong(range.substring(slash + 1).trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static <K> Map<K, Map<String, Object>> indexUnique(Collection<K> keys, List<Map<String, Object>> rows,
+                                                               String column, Function<Object, K> keyOf) {
+        Map<K, Map<String, Object>> byKey = new HashMap<>();
+        for (Map<String, Object> row : rows) {
+            byKey.put(keyOf.apply(row.get(column)), row);
+        }
+        Map<K, Map<String, Object>> result = new LinkedHashMap<>();
+        for (K key : keys) {
+            Map<String, Object> row = byKey.get(key);
+            if (row != null) result.put(key, row);
+        }
+        return result;
+    }
+
+    private static <K> Map<K, List<Map<String, Object>>> indexGrouped(Collection<K> keys,
+                                                                      List<Map<String, Object>> rows,
+                                                                      String column, Function<Object, K> keyOf) {
+        Map<K, List<Map<String, Object>>> result = new LinkedHashMap<>();
+        for (K key : keys) {
+            result.put(key, new ArrayList<>());
+        }
+        for (Map<String, Object> row : rows) {
+            List<Map<String, Object>> group = result.get(keyOf.apply(row.get(column)));
+            if (group != null) group.add(row);
+        }
+        return result;
+    }
+
+    /**
+     * Gson decodes every JSON number as a double; convert an id column back to an Integer
+     */
+    private static Integer toInteger(Object value) {
+        return value instanceof Number ? Integer.valueOf(((Number) value).intValue()) : null;
+    }
+
+    // ========== Fan-out Methods ==========
+
+    /**
+     * Run a blocking client call for each distinct key concurrently and join the results,
+     * in key order. If any call fails, the others are cancelled and its exception is rethrown;
+     * interrupting the caller cancels them all. Calls run on virtual threads where the JVM
+     * has them, otherwise on a pool of daemon threads started with the first fan-out, e.g.
+     * {@code client.fanOut(personIds, id -> client.getLocationHistory(null, id))}.
+     * @throws IllegalStateException if the client is closed
+     */
+    public <K, V> Map<K, V> fanOut(Collection<K> keys, FanOut.Call<K, V> call)
+            throws IOException, InterruptedException {
+        return FanOut.invokeAll(fanOutExecutor(), fanOutParallelism, keys, call);
+    }
+
+    private synchronized ExecutorService fanOutExecutor() {
+        if (closed) {
+            throw new IllegalStateException("Client is closed");
+        }
+        if (fanOutExecutor == null) {
+            fanOutExecutor = VirtualThreads.isSupported()
+                    ? VirtualThreads.newVirtualThreadPerTaskExecutor()
+                    : Executors.newCachedThreadPool(runnable -> {
+                        Thread thread = new Thread(runnable, "gaiacore-fan-out");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+        }
+        return fanOutExecutor;
+    }
+
+    /**
+     * Get external exposure data for several persons, up to {@code limitPerPerson} rows each,
+     * with one concurrent request per person
+     */
+    public Map<Integer, List<Map<String, Object>>> getExposuresForPersons(Collection<Integer> personIds,
+                                                                        Integer limitPerPerson)
+            throws IOException, InterruptedException {
+        return fanOut(personIds, personId -> getExposures(personId, null, limitPerPerson));
+    }
+
+    // ========== Async Methods ==========
+    // Non-blocking variants of the methods above. Failures complete the returned
+    // future exceptionally with an IOException as the cause.
+    // Unlike the blocking methods, which decode rows as they arrive, these buffer
+    // each response body in full before decoding it: a call holds its whole
+    // response in memory, so use forEach*, paginate or the blocking getters for
+    // results too large for that.
+
+    public CompletableFuture<List<Map<String, Object>>> getDataSourcesAsync() {
+        return getDataSourcesAsync(null);
+    }
+
+    public CompletableFuture<List<Map<String, Object>>> getDataSourcesAsync(String select) {
+        return requestAsync("data_source", "backbone", withSelect(new HashMap<>(), select));
+    }
+
+    public CompletableFuture<List<DataSource>> getDataSourceRecordsAsync() {
+        return getDataSourceRecordsAsync(null);
+    }
+
+    public CompletableFuture<List<DataSource>> getDataSourceRecordsAsync(String select) {
+        return requestAsync("data_source", "backbone", withSelect(new HashMap<>(), select), DataSource.class);
+    }
+
+    public CompletableFuture<Map<String, Object>> getDataSourceAsync(String uuid) {
+        return getDataSourceAsync(uuid, null);
+    }
+
+    public CompletableFuture<Map<String, Object>> getDataSourceAsync(String uuid, String select) {
+        if (select == null && dataSourceLoader != null) {
+            if (metadataCache != null) {
+                return cachedAsync(cacheKey("data_source", dataSourceParams(uuid), "row"),
+                        () -> dataSourceLoader.load(uuid));
+            }
+            return dataSourceLoader.load(uuid);
+        }
+        return mapping(requestAsync("data_source", "backbone", withSelect(dataSourceParams(uuid), select)),
+                GaiaCoreClient::firstOrNull);
+    }
+
+    public CompletableFuture<Map<String, Object>> getDataSourceAsync(String uuid, String select,
+                                                                     Deadline deadline) {
+        if (select == null && dataSourceLoader != null) {
+            return within(deadline, "data_source", () -> getDataSourceAsync(uuid));
+        }
+        return within(deadline, "data_source", () -> mapping(
+                requestAsync("data_source", "backbone", withSelect(dataSourceParams(uuid), select), deadline),
+                GaiaCoreClient::firstOrNull));
+    }
+
+    @SuppressWarnings("unchecked")
+    public CompletableFuture<List<Map<String, Object>>> listDownloadableDatasourcesAsync() {
+        Supplier<CompletableFuture<List<Map<String, Object>>>> call = () ->
+                mapping(rpcAsync("list_downloadable_datasources", new HashMap<>(), "backbone"),
+                        result -> (List<Map<String, Object>>) result);
+        if (metadataCache != null) {
+            return cachedAsync(cacheKey("rpc/list_downloadable_datasources", null, "rows"), call);
+        }
+        return call.get();
+    }
+
+    public CompletableFuture<List<Map<String, Object>>> getVariablesAsync(String dataSourceUuid) {
+        return getVariablesAsync(dataSourceUuid, null);
+    }
+
+    public CompletableFuture<List<Map<String, Object>>> getVariablesAsync(String dataSourceUuid, String select) {
+        return requestAsync("variable_source", "backbone", withSelect(variableParams(dataSourceUuid), select));
+    }
+
+    public CompletableFuture<List<VariableSource>> getVariableRecordsAsync(String dataSourceUuid) {
+        return getVariableRecordsAsync(dataSourceUuid, null);
+    }
+
+    public CompletableFuture<List<VariableSource>> getVariableRecordsAsync(String dataSourceUuid, String select) {
+        return requestAsync("variable_source", "backbone", withSelect(variableParams(dataSourceUuid), select),
+                VariableSource.class);
+    }
+
+    public CompletableFuture<List<Map<String, Object>>> getLocationsAsync(String city, String state,
+                                                                          Integer limit) {
+        return getLocationsAsync(city, state, limit, null);
+    }
+
+    public CompletableFuture<List<Map<String, Object>>> getLocationsAsync(String city, String state,
+                                                                          Integer limit, String select) {
+        return requestAsync("location", "working", withSelect(locationParams(city, state, limit), select));
+    }
+
+    public CompletableFuture<List<Location>> getLocationRecordsAsync(String city, String state, Integer limit) {
+        return getLocationRecordsAsync(city, state, limit, null);
+    }
+
+    public CompletableFuture<List<Location>> getLocationRecordsAsync(String city, String state, Integer limit,
+                                                                     String select) {
+        return requestAsync("location", "working", withSelect(locationParams(city, state, limit), select),
+                Location.class);
+    }
+
+    public CompletableFuture<Map<String, Object>> getLocationAsync(int locationId) {
+        return getLocationAsync(locationId, null);
+    }
+
+    public CompletableFuture<Map<String, Object>> getLocationAsync(int locationId, String select) {
+        if (select == null && locationLoader != null) {
+            return locationLoader.load(locationId);
+        }
+        return mapping(requestAsync("location", "working", withSelect(locationIdParams(locationId), select)),
+                GaiaCoreClient::firstOrNull);
+    }
+
+    public CompletableFuture<Map<String, Object>> getLocationAsync(int locationId, String select,
+                                                                   Deadline deadline) {
+        if (select == null && locationLoader != null) {
+            return within(deadline, "location", () -> locationLoader.load(locationId));
+        }
+        return within(deadline, "location", () -> mapping(
+                requestAsync("location", "working", withSelect(locationIdParams(locationId), select), deadline),
+                GaiaCoreClient::firstOrNull));
+    }
+
+    public CompletableFuture<List<Map<String, Object>>> getLocationHistoryAsync(Integer locationId,
+                                                                                Integer personId) {
+        return getLocationHistoryAsync(locationId, personId, null);
+    }
+
+    public CompletableFuture<List<Map<String, Object>>> getLocationHistoryAsync(Integer locationId,
+                                                                                Integer personId, String select) {
+        return requestAsync("location_history", "working",
+                withSelect(locationHistoryParams(locationId, personId), select));
+    }
+
+    public CompletableFuture<List<LocationHistory>> getLocationHistoryRecordsAsync(Integer locationId,
+                                                                                   Integer personId) {
+        return getLocationHistoryRecordsAsync(locationId, personId, null);
+    }
+
+    public CompletableFuture<List<LocationHistory>> getLocationHistoryRecordsAsync(Integer locationId,
+                                                                                   Integer personId,
+                                                                                   String select) {
+        return requestAsync("location_history", "working",
+                withSelect(locationHistoryParams(locationId, personId), select), LocationHistory.class);
+    }
+
+    public CompletableFuture<List<Map<String, Object>>> getExposuresAsync(Integer personId, Integer locationId,
+                                                                          Integer limit) {
+        return getExposuresAsync(personId, locationId, limit, null);
+    }
+
+    public CompletableFuture<List<Map<String, Object>>> getExposuresAsync(Integer personId, Integer locationId,
+                                                                          Integer limit, String select) {
+        return requestAsync("external_exposure", "working",
+                withSelect(exposureParams(personId, locationId, limit), select));
+    }
+
+    public CompletableFuture<List<ExternalExposure>> getExposureRecordsAsync(Integer personId, Integer locationId,
+                                                                             Integer limit) {
+        return getExposureRecordsAsync(personId, locationId, limit, null);
+    }
+
+    public CompletableFuture<List<ExternalExposure>> getExposureRecordsAsync(Integer personId, Integer locationId,
+                                                                             Integer limit, String select) {
+        return requestAsync("external_exposure", "working",
+                withSelect(exposureParams(personId, locationId, limit), select), ExternalExposure.class);
+    }
+
+    @SuppressWarnings("unchecked")
+    public CompletableFuture<List<Map<String, Object>>> fetchAndLoadJsonldAsync(String url) {
+        CompletableFuture<Object> call = rpcAsync("fetch_and_load_jsonld", jsonldParams(url), "backbone");
+        return propagateCancel(call.whenComplete((result, error) -> invalidateMetadataCache())
+                .thenApply(result -> (List<Map<String, Object>>) result), call);
+    }
+
+    @SuppressWarnings("unchecked")
+    public CompletableFuture<List<Map<String, Object>>> quickIngestDatasourceAsync(String datasetName,
+                                                                                   String downloadUrl) {
+        CompletableFuture<Object> call =
+                rpcAsync("quick_ingest_datasource", quickIngestParams(datasetName, downloadUrl), "backbone");
+        return propagateCancel(call.whenComplete((result, error) -> invalidateMetadataCache())
+                .thenApply(result -> (List<Map<String, Object>>) result), call);
+    }
+
+    @SuppressWarnings("unchecked")
+    public CompletableFuture<Map<String, Object>> loadLocationDataAsync(String locationFile,
+                                                                        String locationHistoryFile) {
+        return mapping(rpcAsync("load_location_data", locationDataParams(locationFile, locationHistoryFile),
+                "working"), result -> (Map<String, Object>) result);
+    }
+
+    @SuppressWarnings("unchecked")
+    public CompletableFuture<Map<String, Object>> spatialJoinExposureAsync(String variableSourceId,
+                                                                           String externalTable) {
+        return mapping(rpcAsync("spatial_join_exposure", spatialJoinParams(variableSourceId, externalTable),
+                "working"), result -> (Map<String, Object>) result);
+    }
+
+    public CompletableFuture<List<Map<String, Object>>> queryAsync(String table, String schema, String select,
+                                                                   Map<String, String> filters, String order,
+                                                                   Integer limit, Integer offset) {
+        return requestAsync(table, schema, queryParams(select, filters, order, limit, offset));
+    }
+
+    public CompletableFuture<List<Map<String, Object>>> queryAsync(PostgrestQuery query) {
+        return requestUrlAsync(baseUrl + "/" + query.toPath(), query.getSchema(), "rows", this::decodeRows);
+    }
+
+    public <T> CompletableFuture<List<T>> queryAsync(PostgrestQuery query, Class<T> type) {
+        return requestUrlAsync(baseUrl + "/" + query.toPath(), query.getSchema(), type.getName(),
+                recordsDecoder(type));
+    }
+
+    public CompletableFuture<List<Map<String, Object>>> queryAsync(QueryTemplate template, Object... values) {
+        return requestUrlAsync(template.url(values), template.getSchema(), "rows", this::decodeRows);
+    }
+
+    public <T> CompletableFuture<List<T>> queryAsync(QueryTemplate template, Class<T> type, Object... values) {
+        return requestUrlAsync(template.url(values), template.getSchema(), type.getName(), recordsDecoder(type));
+    }
+
+    public CompletableFuture<List<Map<String, Object>>> aggregateAsync(String table, String schema,
+                                                                       List<String> groupBy,
+                                                                       Map<String, String> aggregates,
+                                                                       Map<String, String> filters,
+                                                                       String order, Integer limit) {
+        return requestAsync(table, schema, aggregateParams(groupBy, aggregates, filters, order, limit));
+    }
+
+    public CompletableFuture<List<ExposureSummary>> getExposureSummariesByPersonAsync(Integer locationId,
+                                                                                      Integer limit) {
+        return exposureSummariesAsync("person_id", "location_id", locationId, limit);
+    }
+
+    public CompletableFuture<List<ExposureSummary>> getExposureSummariesByLocationAsync(Integer personId,
+                                                                                        Integer limit) {
+        return exposureSummariesAsync("location_id", "person_id", personId, limit);
+    }
+
+    public CompletableFuture<ColumnarResult> queryColumnsAsync(String table, String schema,
+                                                               ColumnarResult.Schema columns,
+                                                               Map<String, String> filters, String order,
+                                                               Integer limit, Integer offset) {
+        Map<String, String> params = queryParams(columns.toSelect(), filters, order, limit, offset);
+        return executeAsync(buildGet(table, schema, params), "API request failed: ", columnsDecoder(columns));
+    }
+
+    // ========== Streaming Methods ==========
+
+    /**
+     * Stream rows of a table to a callback as they are decoded.
+     * Only one row is held in memory at a time.
+     * @param params Raw PostgREST query parameters, e.g. {@code location_id -> gt.100}
+     */
+    public void forEach(String table, String schema, Map<String, String> params,
+                        Consumer<Map<String, Object>> action)
+            throws IOException, InterruptedException {
+        try (JsonArrayIterator<Map<String, Object>> rows =
+                     requestIterator(table, schema, params, gson.getAdapter(ROW_TYPE))) {
+            while (rows.hasNext()) {
+                action.accept(rows.next());
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Stream rows of a table lazily. Rows are decoded as the stream is consumed,
+     * so processing can start before the response has fully arrived.
+     * The stream must be closed to release the connection.
+     * @param params Raw PostgREST query parameters, e.g. {@code location_id -> gt.100}
+     */
+    public Stream<Map<String, Object>> stream(String table, String schema, Map<String, String> params)
+            throws IOException, InterruptedException {
+        JsonArrayIterator<Map<String, Object>> rows =
+                requestIterator(table, schema, params, gson.getAdapter(ROW_TYPE));
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(rows, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(rows::close);
+    }
+
+    /**
+     * Stream rows of a table lazily, decoded as typed records
+     * such as {@link Location} or {@link ExternalExposure}.
+     * The stream must be closed to release the connection.
+     */
+    public <T> Stream<T> stream(String table, String schema, Map<String, String> params, Class<T> type)
+            throws IOException, InterruptedException {
+        JsonArrayIterator<T> rows = requestIterator(table, schema, params, gson.getAdapter(type));
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(rows, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(rows::close);
+    }
+
+    // ========== Pagination Methods ==========
+
+    /**
+     * Iterate over a whole table using keyset pagination on a monotonically
+     * increasing column such as {@code location_id} or {@code external_exposure_id}.
+     * Unlike limit/offset paging, each page costs the same at any depth, and the
+     * next page is prefetched while the current one is consumed.
+     * @param keyColumn Unique, ordered column to page by
+     * @param params Additional raw PostgREST filters; must not filter, order or limit on their own
+     * @param pageSize Rows per request; the server may return fewer (PostgREST caps responses at
+     *                 {@code db-max-rows}), and paging continues until a page comes back empty
+     */
+    public KeysetIterator<Map<String, Object>> paginate(String table, String schema, String keyColumn,
+                                                        Map<String, String> params, int pageSize) {
+        return paginate(table, schema, keyColumn, params, pageSize, null);
+    }
+
+    /**
+     * Iterate over a whole table within a deadline. Each page request gets only the time left,
+     * and iteration fails with a {@link DeadlineExceededException} once it runs out.
+     */
+    public KeysetIterator<Map<String, Object>> paginate(String table, String schema, String keyColumn,
+                                                        Map<String, String> params, int pageSize,
+                                                        Deadline deadline) {
+        if (params != null) {
+            for (String reserved : new String[] {keyColumn, "order", "limit", "offset"}) {
+                if (params.containsKey(reserved)) {
+                    throw new IllegalArgumentException("Parameter '" + reserved + "' is managed by the paginator");
+                }
+            }
+        }
+
+        return new KeysetIterator<>(lastKey -> {
+            Map<String, String> pageParams = params != null ? new HashMap<>(params) : new HashMap<>();
+            if (lastKey != null) pageParams.put(keyColumn, "gt." + lastKey);
+            pageParams.put("order", keyColumn + ".asc");
+            pageParams.put("limit", String.valueOf(pageSize));
+            return within(deadline, table, () -> requestAsync(table, schema, pageParams, deadline));
+        }, row -> formatKey(row.get(keyColumn), keyColumn), pageSize);
+    }
+
+    /**
+     * Format a decoded key value for use in a PostgREST filter. Gson decodes
+     * every JSON number as a double, so integral values are written without a fraction.
+     */
+    private static String formatKey(Object value, String keyColumn) {
+        if (value == null) {
+            throw new IllegalStateException("Row has no value for pagination key '" + keyColumn + "'");
+        }
+        if (value instanceof Number) {
+            double number = ((Number) value).doubleValue();
+            if (number == Math.rint(number) && Math.abs(number) < 1e15) {
+                return String.valueOf((long) number);
+            }
+        }
+        return value.toString();
     }
 
     // ========== Example Usage ==========
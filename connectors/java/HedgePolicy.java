@@ -0,0 +1,137 @@
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * When a {@link GaiaCoreClient} sends a second copy of a slow GET. If a request has not
+ * answered after the {@link Builder#percentile}-th percentile of its endpoint's recent
+ * latency, a duplicate is sent, the first response wins and the other is cancelled.
+ * A budget caps hedges at a fraction of requests, so a slow server never sees more
+ * than that much extra load.
+ *
+ * Hedging targets small interactive reads; restrict it with {@link Builder#endpoints}
+ * when the same client also runs bulk reads, whose latency depends on their size.
+ * Hedged reads are buffered rather than decoded as they stream in.
+ *
+ * Needs Java 16 or later: on older JVMs cancelling the losing copy leaves its exchange
+ * running to completion, so every hedge would double the load for the whole request.
+ *
+ * Example usage:
+ *     GaiaCoreClient client = GaiaCoreClient.builder(url)
+ *             .hedging(HedgePolicy.builder().percentile(95).budget(0.05)
+ *                     .endpoints("location", "data_source").build())
+ *             .build();
+ */
+public final class HedgePolicy {
+    private final double percentile;
+    private final long minDelayNanos;
+    private final double budget;
+    private final int maxBurst;
+    private final int window;
+    private final Set<String> endpoints;
+
+    private HedgePolicy(Builder builder) {
+        this.percentile = builder.percentile;
+        this.minDelayNanos = builder.minDelay.toNanos();
+        this.budget = builder.budget;
+        this.maxBurst = builder.maxBurst;
+        this.window = builder.window;
+        this.endpoints = builder.endpoints != null ? Collections.unmodifiableSet(builder.endpoints) : null;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Configuration for a {@link HedgePolicy}
+     */
+    public static class Builder {
+        private double percentile = 95;
+        private Duration minDelay = Duration.ofMillis(1);
+        private double budget = 0.05;
+        private int maxBurst = 10;
+        private int window = 1000;
+        private Set<String> endpoints;
+
+        private Builder() {}
+
+        /**
+         * Hedge requests still unanswered at this latency percentile. Defaults to 95.
+         */
+        public Builder percentile(double percentile) {
+            if (percentile <= 0 || percentile >= 100) {
+                throw new IllegalArgumentException("percentile must be between 0 and 100: " + percentile);
+            }
+            this.percentile = percentile;
+            return this;
+        }
+
+        /**
+         * Never hedge sooner than this, whatever the percentile. Defaults to 1ms.
+         */
+        public Builder minDelay(Duration minDelay) {
+            if (minDelay.isNegative()) {
+                throw new IllegalArgumentException("minDelay must not be negative: " + minDelay);
+            }
+            this.minDelay = minDelay;
+            return this;
+        }
+
+        /**
+         * Hedges allowed as a fraction of requests, e.g. 0.05 for at most 5% extra
+         * requests, with up to {@code maxBurst} saved up for a burst of slow responses.
+         * Defaults to 0.05 and 10.
+         */
+        public Builder budget(double fraction, int maxBurst) {
+            if (fraction <= 0 || fraction > 1) {
+                throw new IllegalArgumentException("fraction must be in (0, 1]: " + fraction);
+            }
+            if (maxBurst <= 0) {
+                throw new IllegalArgumentException("maxBurst must be positive: " + maxBurst);
+            }
+            this.budget = fraction;
+            this.maxBurst = maxBurst;
+            return this;
+        }
+
+        public Builder budget(double fraction) {
+            return budget(fraction, maxBurst);
+        }
+
+        /**
+         * Number of latest responses per endpoint the percentile is taken over. Defaults to 1000.
+         */
+        public Builder window(int responses) {
+            if (responses < 20) {
+                throw new IllegalArgumentException("window must be at least 20 responses: " + responses);
+            }
+            this.window = responses;
+            return this;
+        }
+
+        /**
+         * Only hedge GETs to these endpoints, e.g. {@code location}. All GETs by default.
+         */
+        public Builder endpoints(String... endpoints) {
+            this.endpoints = new HashSet<>(Arrays.asList(endpoints));
+            return this;
+        }
+
+        public HedgePolicy build() {
+            return new HedgePolicy(this);
+        }
+    }
+
+    double getPercentile() { return percentile; }
+    long getMinDelayNanos() { return minDelayNanos; }
+    double getBudget() { return budget; }
+    int getMaxBurst() { return maxBurst; }
+    int getWindow() { return window; }
+
+    boolean covers(String method, String endpoint) {
+        return "GET".equals(method) && (endpoints == null || endpoints.contains(endpoint));
+    }
+}
@@ -0,0 +1,132 @@
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Caps the number of requests in flight without blocking callers.
+ * {@link #acquire()} returns a future that completes once a permit is free;
+ * every completed acquire must be paired with one {@link #release}.
+ *
+ * The cap is either fixed or moved after every request by an {@link AdaptiveLimit}.
+ * With a bounded queue, acquires beyond it fail with a {@link RequestRejectedException}.
+ */
+class InFlightLimiter {
+    private final AdaptiveLimit adaptive;
+    private final int maxQueued;
+    private final Queue<CompletableFuture<Void>> waiters = new ArrayDeque<>();
+    private int limit;
+    private int inFlight;
+    private long rejected;
+
+    InFlightLimiter(int maxInFlight) {
+        this(maxInFlight, 0);
+    }
+
+    /**
+     * @param maxQueued Most acquires waiting at once, or 0 for no bound
+     */
+    InFlightLimiter(int maxInFlight, int maxQueued) {
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("maxInFlight must be positive: " + maxInFlight);
+        }
+        this.adaptive = null;
+        this.limit = maxInFlight;
+        this.maxQueued = maxQueued;
+    }
+
+    InFlightLimiter(AdaptiveLimit adaptive, int maxQueued) {
+        this.adaptive = adaptive;
+        this.limit = adaptive.initialLimit();
+        this.maxQueued = maxQueued;
+    }
+
+    CompletableFuture<Void> acquire() {
+        synchronized (this) {
+            if (inFlight < limit) {
+                inFlight++;
+                return CompletableFuture.completedFuture(null);
+            }
+            if (maxQueued > 0 && waiters.size() >= maxQueued) {
+                waiters.removeIf(CompletableFuture::isDone);
+                if (waiters.size() >= maxQueued) {
+                    rejected++;
+                    return CompletableFuture.failedFuture(new RequestRejectedException("Too many requests queued: "
+                            + waiters.size() + " waiting, " + inFlight + " in flight"));
+                }
+            }
+            CompletableFuture<Void> waiter = new CompletableFuture<>();
+            waiters.add(waiter);
+            return waiter;
+        }
+    }
+
+    /**
+     * Wait on the calling thread for a permit
+     */
+    void acquireBlocking() throws IOException, InterruptedException {
+        CompletableFuture<Void> permit = acquire();
+        try {
+            permit.get();
+        } catch (InterruptedException e) {
+            // Give back a permit granted while we were being interrupted
+            if (!permit.cancel(false) && !permit.isCompletedExceptionally()) {
+                release();
+            }
+            throw e;
+        } catch (ExecutionException e) {
+            throw (IOException) e.getCause();
+        }
+    }
+
+    void release() {
+        release(-1, false);
+    }
+
+    /**
+     * Return a permit, feeding the finished request to the adaptive limit
+     * @param rttNanos Round-trip time of the request, or -1 if it got no response
+     * @param overloaded Whether it timed out or was answered with 429, 503 or 504
+     */
+    void release(long rttNanos, boolean overloaded) {
+        List<CompletableFuture<Void>> granted = new ArrayList<>();
+        synchronized (this) {
+            if (adaptive != null) {
+                limit = adaptive.update(limit, rttNanos, inFlight, overloaded);
+            }
+            inFlight--;
+            while (inFlight < limit) {
+                CompletableFuture<Void> next = waiters.poll();
+                if (next == null) break;
+                if (next.isDone()) continue;
+                inFlight++;
+                granted.add(next);
+            }
+        }
+        // Hand permits straight to the next waiters, outside the lock
+        for (CompletableFuture<Void> next : granted) {
+            if (!next.complete(null)) {
+                release();
+            }
+        }
+    }
+
+    synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    synchronized int getMaxInFlight() {
+        return limit;
+    }
+
+    synchronized int getQueued() {
+        return waiters.size();
+    }
+
+    synchronized long getRejected() {
+        return rejected;
+    }
+}
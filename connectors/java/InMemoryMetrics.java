@@ -0,0 +1,204 @@
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * A {@link ClientMetrics} that keeps counters and {@link LatencyHistogram}s per endpoint
+ * in memory. Read them with {@link #getEndpoints()}, or publish each endpoint as an
+ * MXBean named {@code org.gaiacore:type=GaiaCoreClient,client=<name>,endpoint=<endpoint>}
+ * with {@link #registerMBeans(String)} to watch them from JConsole or a JMX exporter.
+ *
+ * Example usage:
+ *     InMemoryMetrics metrics = new InMemoryMetrics();
+ *     metrics.registerMBeans("ingest");
+ *     GaiaCoreClient client = GaiaCoreClient.builder(url).metrics(metrics).build();
+ *     ...
+ *     InMemoryMetrics.Endpoint exposures = metrics.getEndpoint("external_exposure");
+ *     System.out.println(exposures.getLatencyP99Millis());
+ */
+public class InMemoryMetrics implements ClientMetrics {
+    private final ConcurrentMap<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+    private final List<ObjectName> registered = new ArrayList<>();
+    private String jmxClientName;
+
+    @Override
+    public void recordResponse(String endpoint, int statusCode, long latencyNanos, long firstByteNanos,
+                               long decodeNanos, long responseBytes, long rows) {
+        Endpoint stats = endpoint(endpoint);
+        stats.latency.record(latencyNanos);
+        stats.firstByte.record(firstByteNanos);
+        stats.statusCodes.computeIfAbsent(statusCode, status -> new LongAdder()).increment();
+        stats.responseBytes.add(responseBytes);
+        if (statusCode >= 400) {
+            stats.errors.increment();
+        } else {
+            stats.decode.record(decodeNanos);
+        }
+        if (rows > 0) {
+            stats.rows.add(rows);
+        }
+    }
+
+    @Override
+    public void recordFailure(String endpoint, Throwable error, long latencyNanos) {
+        Endpoint stats = endpoint(endpoint);
+        stats.latency.record(latencyNanos);
+        stats.failures.increment();
+    }
+
+    private Endpoint endpoint(String name) {
+        Endpoint stats = endpoints.get(name);
+        if (stats != null) return stats;
+        stats = endpoints.computeIfAbsent(name, key -> new Endpoint());
+        synchronized (this) {
+            if (jmxClientName != null) register(name, stats);
+        }
+        return stats;
+    }
+
+    /**
+     * Measurements for one endpoint, or null if it has not been called
+     */
+    public Endpoint getEndpoint(String name) {
+        return endpoints.get(name);
+    }
+
+    /**
+     * Every endpoint called so far, by name
+     */
+    public Map<String, Endpoint> getEndpoints() {
+        return Collections.unmodifiableMap(new TreeMap<>(endpoints));
+    }
+
+    // ========== JMX ==========
+
+    /**
+     * Register an MXBean for every endpoint, including endpoints first called later
+     * @param clientName Distinguishes clients sharing a JVM
+     */
+    public synchronized void registerMBeans(String clientName) {
+        if (jmxClientName != null) {
+            throw new IllegalStateException("MBeans already registered as " + jmxClientName);
+        }
+        this.jmxClientName = clientName;
+        endpoints.forEach(this::register);
+    }
+
+    public synchronized void unregisterMBeans() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (ObjectName name : registered) {
+            try {
+                server.unregisterMBean(name);
+            } catch (JMException e) {
+                // already gone
+            }
+        }
+        registered.clear();
+        jmxClientName = null;
+    }
+
+    private void register(String endpoint, Endpoint stats) {
+        try {
+            ObjectName name = new ObjectName("org.gaiacore:type=GaiaCoreClient,client="
+                    + ObjectName.quote(jmxClientName) + ",endpoint=" + ObjectName.quote(endpoint));
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (!server.isRegistered(name)) {
+                server.registerMBean(stats, name);
+                registered.add(name);
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException("Could not register metrics MBean for " + endpoint, e);
+        }
+    }
+
+    /**
+     * JMX view of an {@link Endpoint}. Durations are in milliseconds.
+     */
+    public interface EndpointMXBean {
+        long getRequests();
+        long getErrors();
+        long getFailures();
+        Map<String, Long> getStatusCodes();
+        long getResponseBytes();
+        long getRows();
+        double getLatencyMeanMillis();
+        double getLatencyP50Millis();
+        double getLatencyP90Millis();
+        double getLatencyP99Millis();
+        double getLatencyP999Millis();
+        double getLatencyMaxMillis();
+        double getFirstByteP50Millis();
+        double getFirstByteP99Millis();
+        double getDecodeP50Millis();
+        double getDecodeP99Millis();
+    }
+
+    /**
+     * Measurements for one endpoint. Latency and failures cover every request; time to
+     * first byte covers every response; decode time covers successful responses only.
+     */
+    public static final class Endpoint implements EndpointMXBean {
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LatencyHistogram firstByte = new LatencyHistogram();
+        private final LatencyHistogram decode = new LatencyHistogram();
+        private final ConcurrentMap<Integer, LongAdder> statusCodes = new ConcurrentHashMap<>();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder responseBytes = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+
+        private Endpoint() {}
+
+        public LatencyHistogram getLatency() { return latency; }
+        public LatencyHistogram getFirstByte() { return firstByte; }
+        public LatencyHistogram getDecode() { return decode; }
+
+        /** Requests made, whether or not they got a response */
+        @Override public long getRequests() { return latency.getCount(); }
+        /** Responses with a 4xx or 5xx status */
+        @Override public long getErrors() { return errors.sum(); }
+        /** Requests that got no usable response */
+        @Override public long getFailures() { return failures.sum(); }
+        @Override public long getResponseBytes() { return responseBytes.sum(); }
+        @Override public long getRows() { return rows.sum(); }
+
+        @Override
+        public Map<String, Long> getStatusCodes() {
+            Map<String, Long> counts = new TreeMap<>();
+            statusCodes.forEach((status, count) -> counts.put(String.valueOf(status), count.sum()));
+            return counts;
+        }
+
+        @Override public double getLatencyMeanMillis() { return latency.getMean() / 1e6; }
+        @Override public double getLatencyP50Millis() { return millis(latency, 50); }
+        @Override public double getLatencyP90Millis() { return millis(latency, 90); }
+        @Override public double getLatencyP99Millis() { return millis(latency, 99); }
+        @Override public double getLatencyP999Millis() { return millis(latency, 99.9); }
+        @Override public double getLatencyMaxMillis() { return latency.getMax() / 1e6; }
+        @Override public double getFirstByteP50Millis() { return millis(firstByte, 50); }
+        @Override public double getFirstByteP99Millis() { return millis(firstByte, 99); }
+        @Override public double getDecodeP50Millis() { return millis(decode, 50); }
+        @Override public double getDecodeP99Millis() { return millis(decode, 99); }
+
+        private static double millis(LatencyHistogram histogram, double percentile) {
+            return histogram.getValueAtPercentile(percentile) / 1e6;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("requests=%d errors=%d failures=%d p50=%.1fms p99=%.1fms ttfb.p50=%.1fms "
+                            + "decode.p50=%.1fms bytes=%d rows=%d",
+                    getRequests(), getErrors(), getFailures(), getLatencyP50Millis(), getLatencyP99Millis(),
+                    getFirstByteP50Millis(), getDecodeP50Millis(), getResponseBytes(), getRows());
+        }
+    }
+}
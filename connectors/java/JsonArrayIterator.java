@@ -0,0 +1,79 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+/**
+ * Lazily decodes the elements of a top-level JSON array from a response stream.
+ * Only the element currently being returned is held in memory.
+ */
+class JsonArrayIterator<T> implements Iterator<T>, AutoCloseable {
+    private final JsonReader reader;
+    private final TypeAdapter<T> adapter;
+    private boolean started;
+    private boolean finished;
+
+    JsonArrayIterator(InputStream body, TypeAdapter<T> adapter) {
+        this.reader = new JsonReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        this.adapter = adapter;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (finished) {
+            return false;
+        }
+        try {
+            if (!started) {
+                started = true;
+                if (reader.peek() == JsonToken.NULL) {
+                    finished = true;
+                    return false;
+                }
+                reader.beginArray();
+            }
+            if (reader.hasNext()) {
+                return true;
+            }
+            reader.endArray();
+            finished = true;
+            close();
+            return false;
+        } catch (IOException e) {
+            close();
+            throw new UncheckedIOException("Failed to decode response", e);
+        }
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        try {
+            return adapter.read(reader);
+        } catch (IOException e) {
+            close();
+            throw new UncheckedIOException("Failed to decode response", e);
+        }
+    }
+
+    /**
+     * Release the underlying connection. Safe to call more than once.
+     */
+    @Override
+    public void close() {
+        finished = true;
+        try {
+            reader.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+import java.io.IOException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Null-tolerant field readers and writers shared by the typed record adapters.
+ * Absent ids decode as 0 and absent measurements as NaN, so records can keep
+ * primitive fields; surrogate ids start at 1, so 0 is written back as null.
+ * Concept ids that OMOP allows to be null are read into boxed fields instead,
+ * so that a null stays distinct from concept 0 ("No matching concept").
+ */
+final class JsonFields {
+    private JsonFields() {}
+
+    static String readString(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return in.nextString();
+    }
+
+    static long readLong(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return 0L;
+        }
+        return in.nextLong();
+    }
+
+    static int readInt(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return 0;
+        }
+        return in.nextInt();
+    }
+
+    static Integer readNullableInt(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return in.nextInt();
+    }
+
+    static double readDouble(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return Double.NaN;
+        }
+        return in.nextDouble();
+    }
+
+    static boolean readBoolean(JsonReader in) throws IOException {
+        JsonToken token = in.peek();
+        if (token == JsonToken.NULL) {
+            in.nextNull();
+            return false;
+        }
+        if (token == JsonToken.STRING) {
+            return Boolean.parseBoolean(in.nextString());
+        }
+        return in.nextBoolean();
+    }
+
+    /**
+     * Writes a surrogate id, with the unset id 0 written as null
+     */
+    static void writeId(JsonWriter out, String name, long value) throws IOException {
+        out.name(name);
+        if (value == 0L) {
+            out.nullValue();
+        } else {
+            out.value(value);
+        }
+    }
+
+    static void writeLong(JsonWriter out, String name, long value) throws IOException {
+        out.name(name).value(value);
+    }
+
+    static void writeInt(JsonWriter out, String name, int value) throws IOException {
+        out.name(name).value(value);
+    }
+
+    static void writeNullableInt(JsonWriter out, String name, Integer value) throws IOException {
+        out.name(name).value(value);
+    }
+
+    static void writeDouble(JsonWriter out, String name, double value) throws IOException {
+        out.name(name);
+        if (Double.isNaN(value)) {
+            out.nullValue();
+        } else {
+            out.value(value);
+        }
+    }
+
+    static void writeString(JsonWriter out, String name, String value) throws IOException {
+        out.name(name).value(value);
+    }
+}
@@ -0,0 +1,119 @@
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+
+/**
+ * Iterates over a table page by page using keyset pagination
+ * ({@code key=gt.<last>&order=key.asc&limit=N}) instead of OFFSET, so every
+ * page costs the same regardless of depth. The next page is requested as soon
+ * as the current one arrives, while the caller is still consuming it.
+ *
+ * Iteration ends at the first empty page, not at a short one: PostgREST caps
+ * every response at its {@code db-max-rows} setting without saying so, so a
+ * page shorter than requested does not mean the table is exhausted.
+ *
+ * Close the iterator when abandoning it early to cancel the prefetch.
+ */
+public class KeysetIterator<T> implements Iterator<T>, AutoCloseable {
+    private final Function<String, CompletableFuture<List<T>>> pageFetcher;
+    private final Function<T, String> keyExtractor;
+
+    private List<T> page = Collections.emptyList();
+    private int index;
+    private CompletableFuture<List<T>> nextPage;
+
+    /**
+     * @param pageFetcher Requests the page after the given key (null for the first page)
+     * @param keyExtractor Extracts the pagination key of a row, formatted for a PostgREST filter
+     * @param pageSize Maximum rows per page, as requested by the fetcher
+     */
+    KeysetIterator(Function<String, CompletableFuture<List<T>>> pageFetcher,
+                   Function<T, String> keyExtractor, int pageSize) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("pageSize must be positive: " + pageSize);
+        }
+        this.pageFetcher = pageFetcher;
+        this.keyExtractor = keyExtractor;
+        this.nextPage = pageFetcher.apply(null);
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (index >= page.size()) {
+            if (nextPage == null) {
+                return false;
+            }
+            page = awaitPage(nextPage);
+            index = 0;
+            nextPage = null;
+            if (!page.isEmpty()) {
+                nextPage = pageFetcher.apply(keyExtractor.apply(page.get(page.size() - 1)));
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return page.get(index++);
+    }
+
+    /**
+     * Stop iterating and cancel any outstanding prefetch
+     */
+    @Override
+    public void close() {
+        if (nextPage != null) {
+            nextPage.cancel(true);
+            nextPage = null;
+        }
+        page = Collections.emptyList();
+        index = 0;
+    }
+
+    /**
+     * Wait for a page. Interrupting the waiting thread cancels the page request and
+     * surfaces as an {@link InterruptedIOException}, with the interrupt flag kept set.
+     */
+    private List<T> awaitPage(CompletableFuture<List<T>> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            nextPage = null;
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new UncheckedIOException(new InterruptedIOException("Interrupted while waiting for a page"));
+        } catch (ExecutionException e) {
+            nextPage = null;
+            Throwable cause = e.getCause();
+            if (cause instanceof UncheckedIOException) {
+                throw (UncheckedIOException) cause;
+            }
+            if (cause instanceof IOException) {
+                throw new UncheckedIOException((IOException) cause);
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new CompletionException(cause);
+        } catch (CancellationException e) {
+            nextPage = null;
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+import java.io.IOException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * A row of the working.location table.
+ * Missing ids decode as 0, missing coordinates as NaN and a missing country concept as null.
+ */
+public final class Location {
+    private final long locationId;
+    private final String address1;
+    private final String address2;
+    private final String city;
+    private final String state;
+    private final String zip;
+    private final String county;
+    private final String locationSourceValue;
+    private final Integer countryConceptId;
+    private final String countrySourceValue;
+    private final double latitude;
+    private final double longitude;
+
+    Location(long locationId, String address1, String address2, String city, String state, String zip,
+             String county, String locationSourceValue, Integer countryConceptId, String countrySourceValue,
+             double latitude, double longitude) {
+        this.locationId = locationId;
+        this.address1 = address1;
+        this.address2 = address2;
+        this.city = city;
+        this.state = state;
+        this.zip = zip;
+        this.county = county;
+        this.locationSourceValue = locationSourceValue;
+        this.countryConceptId = countryConceptId;
+        this.countrySourceValue = countrySourceValue;
+        this.latitude = latitude;
+        this.longitude = longitude;
+    }
+
+    public long getLocationId() { return locationId; }
+    public String getAddress1() { return address1; }
+    public String getAddress2() { return address2; }
+    public String getCity() { return city; }
+    public String getState() { return state; }
+    public String getZip() { return zip; }
+    public String getCounty() { return county; }
+    public String getLocationSourceValue() { return locationSourceValue; }
+    public Integer getCountryConceptId() { return countryConceptId; }
+    public String getCountrySourceValue() { return countrySourceValue; }
+    public double getLatitude() { return latitude; }
+    public double getLongitude() { return longitude; }
+
+    @Override
+    public String toString() {
+        return "Location{locationId=" + locationId + ", address1=" + address1 + ", city=" + city
+                + ", state=" + state + ", zip=" + zip + ", latitude=" + latitude + ", longitude=" + longitude + "}";
+    }
+
+    /**
+     * Decodes location rows directly into primitive fields, skipping unknown columns
+     */
+    static final class Adapter extends TypeAdapter<Location> {
+        @Override
+        public Location read(JsonReader in) throws IOException {
+            long locationId = 0;
+            String address1 = null, address2 = null, city = null, state = null, zip = null, county = null;
+            String locationSourceValue = null, countrySourceValue = null;
+            Integer countryConceptId = null;
+            double latitude = Double.NaN, longitude = Double.NaN;
+
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "location_id": locationId = JsonFields.readLong(in); break;
+                    case "address_1": address1 = JsonFields.readString(in); break;
+                    case "address_2": address2 = JsonFields.readString(in); break;
+                    case "city": city = JsonFields.readString(in); break;
+                    case "state": state = JsonFields.readString(in); break;
+                    case "zip": zip = JsonFields.readString(in); break;
+                    case "county": county = JsonFields.readString(in); break;
+                    case "location_source_value": locationSourceValue = JsonFields.readString(in); break;
+                    case "country_concept_id": countryConceptId = JsonFields.readNullableInt(in); break;
+                    case "country_source_value": countrySourceValue = JsonFields.readString(in); break;
+                    case "latitude": latitude = JsonFields.readDouble(in); break;
+                    case "longitude": longitude = JsonFields.readDouble(in); break;
+                    default: in.skipValue();
+                }
+            }
+            in.endObject();
+
+            return new Location(locationId, address1, address2, city, state, zip, county,
+                    locationSourceValue, countryConceptId, countrySourceValue, latitude, longitude);
+        }
+
+        @Override
+        public void write(JsonWriter out, Location value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            JsonFields.writeId(out, "location_id", value.locationId);
+            JsonFields.writeString(out, "address_1", value.address1);
+            JsonFields.writeString(out, "address_2", value.address2);
+            JsonFields.writeString(out, "city", value.city);
+            JsonFields.writeString(out, "state", value.state);
+            JsonFields.writeString(out, "zip", value.zip);
+            JsonFields.writeString(out, "county", value.county);
+            JsonFields.writeString(out, "location_source_value", value.locationSourceValue);
+            JsonFields.writeNullableInt(out, "country_concept_id", value.countryConceptId);
+            JsonFields.writeString(out, "country_source_value", value.countrySourceValue);
+            JsonFields.writeDouble(out, "latitude", value.latitude);
+            JsonFields.writeDouble(out, "longitude", value.longitude);
+            out.endObject();
+        }
+    }
+}
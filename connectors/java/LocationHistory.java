@@ -0,0 +1,90 @@
+import java.io.IOException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * A row of the working.location_history table.
+ * Missing ids decode as 0 and a missing relationship type as null; dates are kept as ISO-8601 strings.
+ */
+public final class LocationHistory {
+    private final long locationHistoryId;
+    private final long locationId;
+    private final Integer relationshipTypeConceptId;
+    private final String domainId;
+    private final long entityId;
+    private final String startDate;
+    private final String endDate;
+
+    LocationHistory(long locationHistoryId, long locationId, Integer relationshipTypeConceptId, String domainId,
+                    long entityId, String startDate, String endDate) {
+        this.locationHistoryId = locationHistoryId;
+        this.locationId = locationId;
+        this.relationshipTypeConceptId = relationshipTypeConceptId;
+        this.domainId = domainId;
+        this.entityId = entityId;
+        this.startDate = startDate;
+        this.endDate = endDate;
+    }
+
+    public long getLocationHistoryId() { return locationHistoryId; }
+    public long getLocationId() { return locationId; }
+    public Integer getRelationshipTypeConceptId() { return relationshipTypeConceptId; }
+    public String getDomainId() { return domainId; }
+    public long getEntityId() { return entityId; }
+    public String getStartDate() { return startDate; }
+    public String getEndDate() { return endDate; }
+
+    @Override
+    public String toString() {
+        return "LocationHistory{locationId=" + locationId + ", entityId=" + entityId
+                + ", startDate=" + startDate + ", endDate=" + endDate + "}";
+    }
+
+    /**
+     * Decodes location_history rows directly into primitive fields, skipping unknown columns
+     */
+    static final class Adapter extends TypeAdapter<LocationHistory> {
+        @Override
+        public LocationHistory read(JsonReader in) throws IOException {
+            long locationHistoryId = 0, locationId = 0, entityId = 0;
+            Integer relationshipTypeConceptId = null;
+            String domainId = null, startDate = null, endDate = null;
+
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "location_history_id": locationHistoryId = JsonFields.readLong(in); break;
+                    case "location_id": locationId = JsonFields.readLong(in); break;
+                    case "relationship_type_concept_id": relationshipTypeConceptId = JsonFields.readNullableInt(in); break;
+                    case "domain_id": domainId = JsonFields.readString(in); break;
+                    case "entity_id": entityId = JsonFields.readLong(in); break;
+                    case "start_date": startDate = JsonFields.readString(in); break;
+                    case "end_date": endDate = JsonFields.readString(in); break;
+                    default: in.skipValue();
+                }
+            }
+            in.endObject();
+
+            return new LocationHistory(locationHistoryId, locationId, relationshipTypeConceptId, domainId,
+                    entityId, startDate, endDate);
+        }
+
+        @Override
+        public void write(JsonWriter out, LocationHistory value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            JsonFields.writeId(out, "location_history_id", value.locationHistoryId);
+            JsonFields.writeId(out, "location_id", value.locationId);
+            JsonFields.writeNullableInt(out, "relationship_type_concept_id", value.relationshipTypeConceptId);
+            JsonFields.writeString(out, "domain_id", value.domainId);
+            JsonFields.writeId(out, "entity_id", value.entityId);
+            JsonFields.writeString(out, "start_date", value.startDate);
+            JsonFields.writeString(out, "end_date", value.endDate);
+            out.endObject();
+        }
+    }
+}
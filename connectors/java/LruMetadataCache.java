@@ -0,0 +1,67 @@
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A {@link MetadataCache} holding at most {@code maxEntries} values, evicting the
+ * least recently used, with each value expiring {@code ttl} after it was stored.
+ */
+public class LruMetadataCache implements MetadataCache {
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final LinkedHashMap<String, CachedValue> entries;
+
+    private static final class CachedValue {
+        final Object value;
+        final long expiresAt;
+
+        CachedValue(Object value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    public LruMetadataCache(int maxEntries, Duration ttl) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries must be positive: " + maxEntries);
+        }
+        if (ttl.isNegative() || ttl.isZero()) {
+            throw new IllegalArgumentException("ttl must be positive: " + ttl);
+        }
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttl.toNanos();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedValue> eldest) {
+                return size() > LruMetadataCache.this.maxEntries;
+            }
+        };
+    }
+
+    @Override
+    public synchronized Object get(String key) {
+        CachedValue entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (System.nanoTime() - entry.expiresAt >= 0) {
+            entries.remove(key);
+            return null;
+        }
+        return entry.value;
+    }
+
+    @Override
+    public synchronized void put(String key, Object value) {
+        entries.put(key, new CachedValue(value, System.nanoTime() + ttlNanos));
+    }
+
+    @Override
+    public synchronized void invalidateAll() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+}
@@ -0,0 +1,22 @@
+/**
+ * Read-through cache for backbone metadata responses (data_source, variable_source,
+ * downloadable data source listings). Keys identify the endpoint and its query
+ * parameters; values are decoded responses and must be treated as read-only.
+ *
+ * Implementations must be thread-safe. {@link LruMetadataCache} is a bounded
+ * LRU implementation with a time-to-live.
+ */
+public interface MetadataCache {
+
+    /**
+     * Return the cached value for a key, or null if absent or expired
+     */
+    Object get(String key);
+
+    void put(String key, Object value);
+
+    /**
+     * Drop every entry, e.g. after new metadata has been ingested
+     */
+    void invalidateAll();
+}
@@ -0,0 +1,336 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.StringJoiner;
+
+/**
+ * An immutable PostgREST read query: projection, embedded resources, filters,
+ * ordering and range. Every method returns a new query, so a partially built
+ * query can be shared and extended safely.
+ *
+ * Example usage:
+ *     PostgrestQuery adults = PostgrestQuery.from("location_history", "working")
+ *             .select("entity_id", "location_id", "start_date")
+ *             .gte("start_date", "2020-01-01")
+ *             .in("location_id", List.of(1, 2, 3))
+ *             .or(PostgrestQuery.Filter.isNull("end_date"), PostgrestQuery.Filter.gt("end_date", "2021-01-01"))
+ *             .order("entity_id")
+ *             .range(0, 99);
+ *     List<Map<String, Object>> rows = client.query(adults);
+ */
+public final class PostgrestQuery {
+
+    /**
+     * A named placeholder for a filter value, bound per call when the query is run as a
+     * {@link QueryTemplate}. Only top-level comparison filters (eq, neq, gt, gte, lt, lte)
+     * may take a placeholder.
+     */
+    public static final class Param {
+        /** Delimits a placeholder in the rendered query; NUL cannot occur in PostgreSQL text */
+        static final char MARK = '\0';
+
+        private final String name;
+
+        private Param(String name) {
+            this.name = name;
+        }
+
+        public String getName() { return name; }
+
+        @Override
+        public String toString() {
+            return MARK + name + MARK;
+        }
+    }
+
+    /**
+     * A placeholder for a value supplied when a prepared query is run
+     */
+    public static Param param(String name) {
+        if (name == null || name.isEmpty() || name.indexOf(Param.MARK) >= 0) {
+            throw new IllegalArgumentException("Invalid parameter name: " + name);
+        }
+        return new Param(name);
+    }
+
+    /**
+     * A single PostgREST condition, or a logical combination of conditions
+     */
+    public static final class Filter {
+        private final String column;          // null for or/and
+        private final String operator;
+        private final String value;           // raw operand; null for or/and
+        private final List<Filter> children;  // operands of or/and
+        private final boolean negated;
+
+        private Filter(String column, String operator, String value, List<Filter> children, boolean negated) {
+            this.column = column;
+            this.operator = operator;
+            this.value = value;
+            this.children = children;
+            this.negated = negated;
+        }
+
+        private static Filter op(String column, String operator, Object value) {
+            Objects.requireNonNull(column, "column");
+            return new Filter(column, operator, String.valueOf(value), null, false);
+        }
+
+        public static Filter eq(String column, Object value) { return op(column, "eq", value); }
+        public static Filter neq(String column, Object value) { return op(column, "neq", value); }
+        public static Filter gt(String column, Object value) { return op(column, "gt", value); }
+        public static Filter gte(String column, Object value) { return op(column, "gte", value); }
+        public static Filter lt(String column, Object value) { return op(column, "lt", value); }
+        public static Filter lte(String column, Object value) { return op(column, "lte", value); }
+
+        /** Case-sensitive pattern match; {@code *} is the wildcard */
+        public static Filter like(String column, String pattern) { return op(column, "like", pattern); }
+
+        /** Case-insensitive pattern match; {@code *} is the wildcard */
+        public static Filter ilike(String column, String pattern) { return op(column, "ilike", pattern); }
+
+        public static Filter in(String column, Collection<?> values) {
+            StringJoiner list = new StringJoiner(",", "(", ")");
+            for (Object value : values) {
+                if (value instanceof Param) {
+                    throw new IllegalArgumentException("Placeholders are not supported in in() lists");
+                }
+                list.add(QueryEncoding.quote(String.valueOf(value)));
+            }
+            return op(column, "in", list);
+        }
+
+        /** {@code IS NULL}, {@code IS TRUE} or {@code IS FALSE} */
+        public static Filter is(String column, Boolean value) {
+            return op(column, "is", value == null ? "null" : value);
+        }
+
+        public static Filter isNull(String column) { return is(column, null); }
+
+        public static Filter or(Filter... filters) { return logical("or", filters); }
+        public static Filter and(Filter... filters) { return logical("and", filters); }
+
+        public static Filter not(Filter filter) {
+            return new Filter(filter.column, filter.operator, filter.value, filter.children, !filter.negated);
+        }
+
+        private static Filter logical(String operator, Filter... filters) {
+            if (filters.length == 0) {
+                throw new IllegalArgumentException(operator + " needs at least one filter");
+            }
+            for (Filter filter : filters) {
+                if (filter.isParameterized()) {
+                    throw new IllegalArgumentException("Placeholders are not supported inside " + operator + "()");
+                }
+            }
+            return new Filter(null, operator, null, Collections.unmodifiableList(Arrays.asList(filters.clone())),
+                    false);
+        }
+
+        private boolean isLogical() {
+            return children != null;
+        }
+
+        private boolean isParameterized() {
+            if (isLogical()) return false; // rejected when the group was built
+            return value.indexOf(Param.MARK) >= 0;
+        }
+
+        /** Query parameter name */
+        private String key() {
+            return isLogical() ? (negated ? "not." : "") + operator : column;
+        }
+
+        /** Query parameter value, before URL encoding. Top-level operands need no quoting. */
+        private String value() {
+            if (isLogical()) return operands();
+            return (negated ? "not." : "") + operator + "." + value;
+        }
+
+        /** Form used inside or=(...) / and=(...), where reserved characters must be quoted */
+        private String nested() {
+            if (isLogical()) return (negated ? "not." : "") + operator + operands();
+            String operand = operator.equals("in") || operator.equals("is") ? value : QueryEncoding.quote(value);
+            return column + "." + (negated ? "not." : "") + operator + "." + operand;
+        }
+
+        private String operands() {
+            StringJoiner list = new StringJoiner(",", "(", ")");
+            for (Filter child : children) {
+                list.add(child.nested());
+            }
+            return list.toString();
+        }
+
+        @Override
+        public String toString() {
+            return key() + "=" + value();
+        }
+    }
+
+    private final String table;
+    private final String schema;
+    private final List<String> select;
+    private final List<String> embeds;
+    private final List<Filter> filters;
+    private final List<String> order;
+    private final Integer limit;
+    private final Integer offset;
+
+    private PostgrestQuery(String table, String schema, List<String> select, List<String> embeds,
+                           List<Filter> filters, List<String> order, Integer limit, Integer offset) {
+        this.table = table;
+        this.schema = schema;
+        this.select = select;
+        this.embeds = embeds;
+        this.filters = filters;
+        this.order = order;
+        this.limit = limit;
+        this.offset = offset;
+    }
+
+    /**
+     * Start a query on a table or view
+     * @param schema "backbone" or "working"
+     */
+    public static PostgrestQuery from(String table, String schema) {
+        return new PostgrestQuery(Objects.requireNonNull(table, "table"), schema, Collections.emptyList(),
+                Collections.emptyList(), Collections.emptyList(), Collections.emptyList(), null, null);
+    }
+
+    public String getTable() { return table; }
+    public String getSchema() { return schema; }
+
+    /**
+     * Fetch only these columns, replacing any earlier selection. Embedded resources are kept.
+     */
+    public PostgrestQuery select(String... columns) {
+        return new PostgrestQuery(table, schema, Collections.unmodifiableList(Arrays.asList(columns.clone())),
+                embeds, filters, order, limit, offset);
+    }
+
+    /**
+     * Embed a related resource through its foreign key, e.g. {@code embed("location", "city", "state")}.
+     * Filter on its columns as {@code "resource.column"}.
+     */
+    public PostgrestQuery embed(String resource, String... columns) {
+        String item = resource + "(" + (columns.length == 0 ? "*" : String.join(",", columns)) + ")";
+        return new PostgrestQuery(table, schema, select, append(embeds, item), filters, order, limit, offset);
+    }
+
+    public PostgrestQuery where(Filter filter) {
+        return new PostgrestQuery(table, schema, select, embeds, append(filters, filter), order, limit, offset);
+    }
+
+    public PostgrestQuery eq(String column, Object value) { return where(Filter.eq(column, value)); }
+    public PostgrestQuery neq(String column, Object value) { return where(Filter.neq(column, value)); }
+    public PostgrestQuery gt(String column, Object value) { return where(Filter.gt(column, value)); }
+    public PostgrestQuery gte(String column, Object value) { return where(Filter.gte(column, value)); }
+    public PostgrestQuery lt(String column, Object value) { return where(Filter.lt(column, value)); }
+    public PostgrestQuery lte(String column, Object value) { return where(Filter.lte(column, value)); }
+    public PostgrestQuery like(String column, String pattern) { return where(Filter.like(column, pattern)); }
+    public PostgrestQuery ilike(String column, String pattern) { return where(Filter.ilike(column, pattern)); }
+    public PostgrestQuery in(String column, Collection<?> values) { return where(Filter.in(column, values)); }
+    public PostgrestQuery is(String column, Boolean value) { return where(Filter.is(column, value)); }
+    public PostgrestQuery isNull(String column) { return where(Filter.isNull(column)); }
+    public PostgrestQuery or(Filter... filters) { return where(Filter.or(filters)); }
+    public PostgrestQuery and(Filter... filters) { return where(Filter.and(filters)); }
+    public PostgrestQuery not(Filter filter) { return where(Filter.not(filter)); }
+
+    /**
+     * Sort ascending by a column, after any earlier sort columns
+     */
+    public PostgrestQuery order(String column) {
+        return withOrder(column + ".asc");
+    }
+
+    public PostgrestQuery orderDesc(String column) {
+        return withOrder(column + ".desc");
+    }
+
+    private PostgrestQuery withOrder(String item) {
+        return new PostgrestQuery(table, schema, select, embeds, filters, append(order, item), limit, offset);
+    }
+
+    public PostgrestQuery limit(int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("limit must not be negative: " + limit);
+        }
+        return new PostgrestQuery(table, schema, select, embeds, filters, order, limit, offset);
+    }
+
+    public PostgrestQuery offset(int offset) {
+        if (offset < 0) {
+            throw new IllegalArgumentException("offset must not be negative: " + offset);
+        }
+        return new PostgrestQuery(table, schema, select, embeds, filters, order, limit, offset);
+    }
+
+    /**
+     * Rows {@code from} to {@code to}, both inclusive and zero-based
+     */
+    public PostgrestQuery range(int from, int to) {
+        if (from < 0 || to < from) {
+            throw new IllegalArgumentException("Invalid range: " + from + "-" + to);
+        }
+        return new PostgrestQuery(table, schema, select, embeds, filters, order, to - from + 1, from);
+    }
+
+    /**
+     * The URL-encoded query string, without the leading {@code ?}
+     */
+    public String toQueryString() {
+        StringBuilder query = new StringBuilder(64);
+        appendQuery(query);
+        return query.toString();
+    }
+
+    /**
+     * The table followed by the encoded query string, relative to the API base URL
+     */
+    String toPath() {
+        StringBuilder path = new StringBuilder(table.length() + 64).append(table).append('?');
+        appendQuery(path);
+        if (path.length() == table.length() + 1) path.setLength(table.length());
+        return path.toString();
+    }
+
+    private void appendQuery(StringBuilder query) {
+        int start = query.length();
+        if (!select.isEmpty() || !embeds.isEmpty()) {
+            StringJoiner columns = new StringJoiner(",");
+            if (select.isEmpty()) columns.add("*");
+            select.forEach(columns::add);
+            embeds.forEach(columns::add);
+            appendParam(query, start, "select", columns.toString());
+        }
+        for (Filter filter : filters) {
+            appendParam(query, start, filter.key(), filter.value());
+        }
+        if (!order.isEmpty()) appendParam(query, start, "order", String.join(",", order));
+        if (limit != null) appendParam(query, start, "limit", limit.toString());
+        if (offset != null) appendParam(query, start, "offset", offset.toString());
+    }
+
+    private static void appendParam(StringBuilder query, int start, String key, String value) {
+        if (query.length() > start) query.append('&');
+        QueryEncoding.append(query, key);
+        query.append('=');
+        QueryEncoding.append(query, value);
+    }
+
+    @Override
+    public String toString() {
+        return toPath();
+    }
+
+    private static <T> List<T> append(List<T> list, T item) {
+        List<T> copy = new ArrayList<>(list.size() + 1);
+        copy.addAll(list);
+        copy.add(item);
+        return Collections.unmodifiableList(copy);
+    }
+}
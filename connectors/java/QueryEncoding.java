@@ -0,0 +1,146 @@
+/**
+ * Percent-encoding of query string keys and values, and PostgREST quoting of
+ * list and logical operands.
+ *
+ * Unreserved characters pass through, as do the characters PostgREST uses in
+ * its own syntax ({@code , ( ) . : *}): they are legal in a query component and
+ * PostgREST decodes the query string before parsing it, so escaping them would
+ * not change their meaning. Values that must not be read as syntax are
+ * double-quoted instead, see {@link #quote}. Strings that are already safe are
+ * returned or appended without copying.
+ */
+final class QueryEncoding {
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+    private static final boolean[] SAFE = new boolean[128];
+
+    static {
+        for (char c = 'A'; c <= 'Z'; c++) SAFE[c] = true;
+        for (char c = 'a'; c <= 'z'; c++) SAFE[c] = true;
+        for (char c = '0'; c <= '9'; c++) SAFE[c] = true;
+        for (char c : "-._~,():*".toCharArray()) SAFE[c] = true;
+    }
+
+    private QueryEncoding() {}
+
+    private static boolean isSafe(char c) {
+        return c < 128 && SAFE[c];
+    }
+
+    /**
+     * Index of the first character that needs escaping, or -1 if none does
+     */
+    private static int firstUnsafe(CharSequence text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (!isSafe(text.charAt(i))) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Percent-encode a string, returning it unchanged if nothing needs escaping
+     */
+    static String encode(String text) {
+        int unsafe = firstUnsafe(text);
+        if (unsafe < 0) {
+            return text;
+        }
+        StringBuilder out = new StringBuilder(text.length() + 16);
+        out.append(text, 0, unsafe);
+        appendEscaped(out, text, unsafe);
+        return out.toString();
+    }
+
+    /**
+     * Append the percent-encoded form of a string to a URL being built
+     */
+    static void append(StringBuilder out, CharSequence text) {
+        int unsafe = firstUnsafe(text);
+        if (unsafe < 0) {
+            out.append(text);
+            return;
+        }
+        out.append(text, 0, unsafe);
+        appendEscaped(out, text, unsafe);
+    }
+
+    /**
+     * Length of the percent-encoded form of a string, without encoding it
+     */
+    static int encodedLength(CharSequence text) {
+        int length = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (isSafe(c)) {
+                length += 1;
+            } else if (c < 0x80) {
+                length += 3;
+            } else if (c < 0x800) {
+                length += 6;
+            } else if (Character.isSurrogate(c)) {
+                if (Character.isHighSurrogate(c) && i + 1 < text.length()
+                        && Character.isLowSurrogate(text.charAt(i + 1))) {
+                    length += 12;
+                    i++;
+                } else {
+                    length += 3;
+                }
+            } else {
+                length += 9;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * UTF-8 percent-encode {@code text} from {@code start} on, directly into {@code out}.
+     * Unpaired surrogates are encoded as '?', like {@link java.net.URLEncoder}.
+     */
+    private static void appendEscaped(StringBuilder out, CharSequence text, int start) {
+        for (int i = start; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (isSafe(c)) {
+                out.append(c);
+            } else if (c < 0x80) {
+                appendByte(out, c);
+            } else if (c < 0x800) {
+                appendByte(out, 0xC0 | (c >> 6));
+                appendByte(out, 0x80 | (c & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                if (Character.isHighSurrogate(c) && i + 1 < text.length()
+                        && Character.isLowSurrogate(text.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, text.charAt(++i));
+                    appendByte(out, 0xF0 | (codePoint >> 18));
+                    appendByte(out, 0x80 | ((codePoint >> 12) & 0x3F));
+                    appendByte(out, 0x80 | ((codePoint >> 6) & 0x3F));
+                    appendByte(out, 0x80 | (codePoint & 0x3F));
+                } else {
+                    appendByte(out, '?');
+                }
+            } else {
+                appendByte(out, 0xE0 | (c >> 12));
+                appendByte(out, 0x80 | ((c >> 6) & 0x3F));
+                appendByte(out, 0x80 | (c & 0x3F));
+            }
+        }
+    }
+
+    private static void appendByte(StringBuilder out, int b) {
+        out.append('%').append(HEX[(b >> 4) & 0xF]).append(HEX[b & 0xF]);
+    }
+
+    /**
+     * Double-quote an operand of an {@code in.(...)} list or an {@code or}/{@code and}
+     * group if it contains characters PostgREST reserves there, escaping
+     * embedded quotes and backslashes
+     */
+    static String quote(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == ',' || c == '.' || c == ':' || c == '(' || c == ')' || c == '"' || c == '\\'
+                    || Character.isWhitespace(c)) {
+                return "\"" + text.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+            }
+        }
+        return text;
+    }
+}
@@ -0,0 +1,112 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A {@link PostgrestQuery} compiled once into pre-encoded URL fragments, with
+ * {@link PostgrestQuery#param placeholders} filled in positionally on each call.
+ * Running a template only encodes the bound values and concatenates, so tight loops
+ * of repeated lookups skip the parameter map and query-string building entirely.
+ * Templates are immutable and safe to share between threads.
+ *
+ * Example usage:
+ *     QueryTemplate byPerson = client.prepare(PostgrestQuery.from("location_history", "working")
+ *             .select("location_id", "start_date")
+ *             .eq("entity_id", PostgrestQuery.param("person")));
+ *     for (int personId : personIds) {
+ *         List<Map<String, Object>> rows = client.query(byPerson, personId);
+ *     }
+ */
+public final class QueryTemplate {
+    private static final String ENCODED_MARK = QueryEncoding.encode(String.valueOf(PostgrestQuery.Param.MARK));
+
+    private final String schema;
+    private final String[] fragments;   // literal URL text around the placeholders
+    private final int[] slots;          // parameter index filling the gap after each fragment
+    private final List<String> parameterNames;
+    private final int literalLength;
+
+    QueryTemplate(String baseUrl, PostgrestQuery query) {
+        this.schema = query.getSchema();
+
+        String[] parts = (baseUrl + "/" + query.toPath()).split(ENCODED_MARK, -1);
+        List<String> names = new ArrayList<>();
+        this.fragments = new String[parts.length / 2 + 1];
+        this.slots = new int[parts.length / 2];
+        int length = 0;
+        for (int i = 0; i < parts.length; i++) {
+            if (i % 2 == 0) {
+                fragments[i / 2] = parts[i];
+                length += parts[i].length();
+            } else {
+                String name = parts[i];
+                int index = names.indexOf(name);
+                if (index < 0) {
+                    index = names.size();
+                    names.add(name);
+                }
+                slots[i / 2] = index;
+            }
+        }
+        this.parameterNames = Collections.unmodifiableList(names);
+        this.literalLength = length;
+    }
+
+    public String getSchema() { return schema; }
+
+    /**
+     * Placeholder names in the order their values are bound
+     */
+    public List<String> getParameterNames() { return parameterNames; }
+
+    /**
+     * The request URL with the given values bound to the placeholders
+     */
+    public String url(Object... values) {
+        if (values.length != parameterNames.size()) {
+            throw new IllegalArgumentException("Expected " + parameterNames.size() + " values for "
+                    + parameterNames + " but got " + values.length);
+        }
+        if (slots.length == 0) {
+            return fragments[0];
+        }
+
+        String[] encoded = new String[values.length];
+        int length = literalLength;
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == null) {
+                throw new IllegalArgumentException("No value bound to " + parameterNames.get(i));
+            }
+            encoded[i] = encode(values[i]);
+            length += encoded[i].length();
+        }
+
+        StringBuilder url = new StringBuilder(length);
+        for (int i = 0; i < slots.length; i++) {
+            url.append(fragments[i]).append(encoded[slots[i]]);
+        }
+        return url.append(fragments[slots.length]).toString();
+    }
+
+    /**
+     * Integers never need escaping; everything else is percent-encoded
+     */
+    private static String encode(Object value) {
+        if (value instanceof Integer || value instanceof Long || value instanceof Short) {
+            return value.toString();
+        }
+        return QueryEncoding.encode(value.toString());
+    }
+
+    /**
+     * The request URL with placeholders shown as {@code {name}}
+     */
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < slots.length; i++) {
+            text.append(fragments[i]).append('{').append(parameterNames.get(slots[i])).append('}');
+        }
+        return text.append(fragments[slots.length]).toString();
+    }
+}
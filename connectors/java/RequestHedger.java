@@ -0,0 +1,111 @@
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runtime state behind a {@link HedgePolicy}: a rolling latency histogram per endpoint
+ * from which the hedge delay is derived, and the token bucket that bounds hedge traffic.
+ * Every request earns {@code budget} of a token; each hedge spends a whole one.
+ */
+class RequestHedger {
+    /** Responses an endpoint needs before its percentile is trusted */
+    private static final int MIN_SAMPLES = 20;
+    private static final long TOKEN = 1_000_000;
+
+    private final HedgePolicy policy;
+    private final ConcurrentMap<String, Window> windows = new ConcurrentHashMap<>();
+    private final AtomicLong tokens;
+    private final long earnPerRequest;
+    private final long maxTokens;
+    private final LongAdder hedges = new LongAdder();
+    private final LongAdder wins = new LongAdder();
+
+    RequestHedger(HedgePolicy policy) {
+        this.policy = policy;
+        this.earnPerRequest = (long) (policy.getBudget() * TOKEN);
+        this.maxTokens = policy.getMaxBurst() * TOKEN;
+        this.tokens = new AtomicLong(maxTokens);
+    }
+
+    boolean appliesTo(String method, String endpoint) {
+        return policy.covers(method, endpoint);
+    }
+
+    /**
+     * Count a request towards the hedge budget and return how long to wait before
+     * hedging it, or -1 while the endpoint has too few responses to tell
+     */
+    long delayNanos(String endpoint) {
+        tokens.accumulateAndGet(earnPerRequest, (current, earned) -> Math.min(maxTokens, current + earned));
+        return window(endpoint).delayNanos;
+    }
+
+    /**
+     * Take a token for a hedge, if the budget allows one
+     */
+    boolean tryHedge() {
+        long current;
+        do {
+            current = tokens.get();
+            if (current < TOKEN) return false;
+        } while (!tokens.compareAndSet(current, current - TOKEN));
+        hedges.increment();
+        return true;
+    }
+
+    void recordWin() {
+        wins.increment();
+    }
+
+    /**
+     * Record the latency of a successful attempt
+     */
+    void record(String endpoint, long nanos) {
+        window(endpoint).record(nanos);
+    }
+
+    long getHedges() {
+        return hedges.sum();
+    }
+
+    long getWins() {
+        return wins.sum();
+    }
+
+    private Window window(String endpoint) {
+        return windows.computeIfAbsent(endpoint, key -> new Window());
+    }
+
+    /**
+     * Latencies of the latest responses: the percentile is read from the last complete
+     * window, or from the filling one until the first window completes
+     */
+    private final class Window {
+        private volatile LatencyHistogram current = new LatencyHistogram();
+        private volatile LatencyHistogram previous;
+        private volatile long delayNanos = -1;
+
+        void record(long nanos) {
+            LatencyHistogram histogram = current;
+            histogram.record(nanos);
+            long count = histogram.getCount();
+            if (count >= policy.getWindow()) {
+                synchronized (this) {
+                    if (current == histogram) {
+                        previous = histogram;
+                        current = new LatencyHistogram();
+                        update(histogram);
+                    }
+                }
+            } else if (previous == null && count >= MIN_SAMPLES && count % 16 == 0) {
+                update(histogram);
+            }
+        }
+
+        private void update(LatencyHistogram histogram) {
+            long percentile = histogram.getValueAtPercentile(policy.getPercentile());
+            delayNanos = Math.max(policy.getMinDelayNanos(), percentile);
+        }
+    }
+}
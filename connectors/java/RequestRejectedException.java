@@ -0,0 +1,15 @@
+import java.io.IOException;
+
+/**
+ * The client refused to send a request to protect the API, for instance because too
+ * many requests were already waiting for an in-flight permit. Nothing reached the
+ * server. These failures are not retried by a {@link RetryPolicy}, since retrying at
+ * once would only add to the overload.
+ */
+public class RequestRejectedException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    public RequestRejectedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,202 @@
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.http.HttpConnectTimeoutException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.zip.ZipException;
+
+/**
+ * When and how soon a {@link GaiaCoreClient} retries a failed request. Failures are
+ * classified by type and status code:
+ * <ul>
+ *   <li>requests the client itself rejected ({@link RequestRejectedException}) are not retried;</li>
+ *   <li>requests that ran out of their {@link Deadline} ({@link DeadlineExceededException}) are not retried;</li>
+ *   <li>connection failures, where the request never reached the server, are retried for any request;</li>
+ *   <li>error statuses in {@link Builder#retryOnStatus} (429, 502, 503, 504 by default) and
+ *       other I/O errors such as a reset connection are retried only for idempotent requests:
+ *       GETs, and RPC functions explicitly marked safe with {@link Builder#retryRpc};</li>
+ *   <li>anything else, including other 4xx/5xx responses and malformed bodies, is not retried.</li>
+ * </ul>
+ * Retries wait an exponentially growing, fully jittered delay, or the server's
+ * {@code Retry-After} if that is longer. A {@code Retry-After} beyond the maximum
+ * backoff fails the request instead of waiting.
+ *
+ * Example usage:
+ *     GaiaCoreClient client = GaiaCoreClient.builder(url)
+ *             .retry(RetryPolicy.builder()
+ *                     .maxAttempts(5)
+ *                     .backoff(Duration.ofMillis(200), Duration.ofSeconds(30))
+ *                     .retryRpc("list_downloadable_datasources")
+ *                     .build())
+ *             .build();
+ */
+public final class RetryPolicy {
+
+    /**
+     * Never retry; the default
+     */
+    public static final RetryPolicy NONE = builder().maxAttempts(1).build();
+
+    private final int maxAttempts;
+    private final long initialBackoffNanos;
+    private final long maxBackoffNanos;
+    private final Set<Integer> retryStatuses;
+    private final Set<String> safeRpcs;
+
+    private RetryPolicy(Builder builder) {
+        this.maxAttempts = builder.maxAttempts;
+        this.initialBackoffNanos = builder.initialBackoff.toNanos();
+        this.maxBackoffNanos = builder.maxBackoff.toNanos();
+        this.retryStatuses = Collections.unmodifiableSet(new HashSet<>(builder.retryStatuses));
+        this.safeRpcs = Collections.unmodifiableSet(new HashSet<>(builder.safeRpcs));
+    }
+
+    /**
+     * Up to 3 attempts, backing off from 100ms to at most 10s, on 429, 502, 503 and 504
+     */
+    public static RetryPolicy defaults() {
+        return builder().build();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Configuration for a {@link RetryPolicy}
+     */
+    public static class Builder {
+        private int maxAttempts = 3;
+        private Duration initialBackoff = Duration.ofMillis(100);
+        private Duration maxBackoff = Duration.ofSeconds(10);
+        private Set<Integer> retryStatuses = new HashSet<>(Arrays.asList(429, 502, 503, 504));
+        private final Set<String> safeRpcs = new HashSet<>();
+
+        private Builder() {}
+
+        /**
+         * Total attempts per request, including the first
+         */
+        public Builder maxAttempts(int maxAttempts) {
+            if (maxAttempts <= 0) {
+                throw new IllegalArgumentException("maxAttempts must be positive: " + maxAttempts);
+            }
+            this.maxAttempts = maxAttempts;
+            return this;
+        }
+
+        /**
+         * The n-th retry waits a random time up to {@code initial * 2^(n-1)}, capped at {@code max}
+         */
+        public Builder backoff(Duration initial, Duration max) {
+            if (initial.isNegative() || max.compareTo(initial) < 0) {
+                throw new IllegalArgumentException("Invalid backoff: " + initial + " to " + max);
+            }
+            this.initialBackoff = initial;
+            this.maxBackoff = max;
+            return this;
+        }
+
+        /**
+         * Error statuses worth retrying, replacing the default 429, 502, 503 and 504
+         */
+        public Builder retryOnStatus(int... statusCodes) {
+            Set<Integer> statuses = new HashSet<>();
+            for (int status : statusCodes) statuses.add(status);
+            this.retryStatuses = statuses;
+            return this;
+        }
+
+        /**
+         * Treat these RPC functions as idempotent, so they are retried like GETs. RPCs that
+         * load or join data, such as {@code spatial_join_exposure}, should only be listed
+         * if running them twice is harmless.
+         */
+        public Builder retryRpc(String... functionNames) {
+            safeRpcs.addAll(Arrays.asList(functionNames));
+            return this;
+        }
+
+        public RetryPolicy build() {
+            return new RetryPolicy(this);
+        }
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * Whether a request may be sent twice without changing its effect
+     * @param endpoint Endpoint or RPC path below the API root
+     */
+    boolean isIdempotent(String method, String endpoint) {
+        if ("GET".equals(method) || "HEAD".equals(method)) return true;
+        return endpoint.startsWith("rpc/") && safeRpcs.contains(endpoint.substring(4));
+    }
+
+    /**
+     * How long to wait before retrying after attempt number {@code attempt} failed, or null to give up
+     */
+    Duration backoff(String method, String endpoint, Throwable error, int attempt) {
+        if (attempt >= maxAttempts || !isRetryable(method, endpoint, error)) {
+            return null;
+        }
+        long ceiling = initialBackoffNanos << Math.min(attempt - 1, 30);
+        if (ceiling < 0 || ceiling > maxBackoffNanos) ceiling = maxBackoffNanos;
+        long delay = ceiling > 0 ? ThreadLocalRandom.current().nextLong(ceiling + 1) : 0;
+
+        if (error instanceof GaiaCoreApiException) {
+            Duration retryAfter = ((GaiaCoreApiException) error).getRetryAfter().orElse(null);
+            if (retryAfter != null) {
+                if (retryAfter.toNanos() > maxBackoffNanos) return null;
+                delay = Math.max(delay, retryAfter.toNanos());
+            }
+        }
+        return Duration.ofNanos(delay);
+    }
+
+    private boolean isRetryable(String method, String endpoint, Throwable error) {
+        if (error instanceof RequestRejectedException || error instanceof DeadlineExceededException) {
+            return false;
+        }
+        if (error instanceof ConnectException || error instanceof HttpConnectTimeoutException) {
+            return true;
+        }
+        if (!isIdempotent(method, endpoint)) {
+            return false;
+        }
+        if (error instanceof GaiaCoreApiException) {
+            return retryStatuses.contains(((GaiaCoreApiException) error).getStatusCode());
+        }
+        return error instanceof IOException && !(error instanceof ZipException);
+    }
+
+    /**
+     * Parse a {@code Retry-After} header given in seconds or as an HTTP date
+     */
+    static Duration parseRetryAfter(String value) {
+        if (value == null) return null;
+        String trimmed = value.trim();
+        try {
+            return Duration.ofSeconds(Math.max(0, Long.parseLong(trimmed)));
+        } catch (NumberFormatException e) {
+            // not delta-seconds
+        }
+        try {
+            Instant at = ZonedDateTime.parse(trimmed, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+            Duration wait = Duration.between(Instant.now(), at);
+            return wait.isNegative() ? Duration.ZERO : wait;
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * Remembers the ETag / Last-Modified validators and decoded body of recent GET
+ * responses, so a repeated request can be sent conditionally and a
+ * {@code 304 Not Modified} answered from memory. Bounded by entry count and by the
+ * total size of the JSON bodies behind the kept values, least recently used first out.
+ */
+class ValidatorCache {
+
+    static final class Validators {
+        final String etag;
+        final String lastModified;
+        final Object value;
+        /** Uncompressed size of the response body the value was decoded from */
+        final long size;
+
+        Validators(String etag, String lastModified, Object value, long size) {
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.value = value;
+            this.size = size;
+        }
+    }
+
+    /**
+     * Counts the bytes a decoder reads, to weigh the value it produces
+     */
+    static final class CountingStream extends FilterInputStream {
+        private long count;
+
+        CountingStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) count++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) count += n;
+            return n;
+        }
+
+        long getCount() {
+            return count;
+        }
+    }
+
+    private final int maxEntries;
+    private final long maxBytes;
+    private final LinkedHashMap<String, Validators> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+
+    ValidatorCache(int maxEntries, long maxBytes) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries must be positive: " + maxEntries);
+        }
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("maxBytes must be positive: " + maxBytes);
+        }
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+    }
+
+    synchronized Validators get(String key) {
+        return entries.get(key);
+    }
+
+    /**
+     * Keep validators, evicting the least recently used entries to stay within both
+     * bounds. A value larger than the byte bound on its own is not kept.
+     */
+    synchronized void put(String key, Validators validators) {
+        remove(key);
+        if (validators.size > maxBytes) {
+            return;
+        }
+        entries.put(key, validators);
+        bytes += validators.size;
+        Iterator<Validators> eldest = entries.values().iterator();
+        while (entries.size() > maxEntries || bytes > maxBytes) {
+            bytes -= eldest.next().size;
+            eldest.remove();
+        }
+    }
+
+    synchronized void remove(String key) {
+        Validators removed = entries.remove(key);
+        if (removed != null) {
+            bytes -= removed.size;
+        }
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    synchronized long getBytes() {
+        return bytes;
+    }
+}
@@ -0,0 +1,70 @@
+import java.io.IOException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * A row of the backbone.variable_source table
+ */
+public final class VariableSource {
+    private final String variableSourceId;
+    private final String variableName;
+    private final String variableDesc;
+    private final String dataSourceUuid;
+
+    VariableSource(String variableSourceId, String variableName, String variableDesc, String dataSourceUuid) {
+        this.variableSourceId = variableSourceId;
+        this.variableName = variableName;
+        this.variableDesc = variableDesc;
+        this.dataSourceUuid = dataSourceUuid;
+    }
+
+    public String getVariableSourceId() { return variableSourceId; }
+    public String getVariableName() { return variableName; }
+    public String getVariableDesc() { return variableDesc; }
+    public String getDataSourceUuid() { return dataSourceUuid; }
+
+    @Override
+    public String toString() {
+        return "VariableSource{variableSourceId=" + variableSourceId + ", variableName=" + variableName
+                + ", dataSourceUuid=" + dataSourceUuid + "}";
+    }
+
+    /**
+     * Decodes variable_source rows field by field, skipping unknown columns
+     */
+    static final class Adapter extends TypeAdapter<VariableSource> {
+        @Override
+        public VariableSource read(JsonReader in) throws IOException {
+            String variableSourceId = null, variableName = null, variableDesc = null, dataSourceUuid = null;
+
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "variable_source_id": variableSourceId = JsonFields.readString(in); break;
+                    case "variable_name": variableName = JsonFields.readString(in); break;
+                    case "variable_desc": variableDesc = JsonFields.readString(in); break;
+                    case "data_source_uuid": dataSourceUuid = JsonFields.readString(in); break;
+                    default: in.skipValue();
+                }
+            }
+            in.endObject();
+
+            return new VariableSource(variableSourceId, variableName, variableDesc, dataSourceUuid);
+        }
+
+        @Override
+        public void write(JsonWriter out, VariableSource value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            JsonFields.writeString(out, "variable_source_id", value.variableSourceId);
+            JsonFields.writeString(out, "variable_name", value.variableName);
+            JsonFields.writeString(out, "variable_desc", value.variableDesc);
+            JsonFields.writeString(out, "data_source_uuid", value.dataSourceUuid);
+            out.endObject();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Access to Java 21 virtual threads from code compiled for Java 11.
+ * The factory is looked up reflectively so the connector still builds and runs
+ * on older JDKs; asking for virtual threads there fails fast.
+ */
+final class VirtualThreads {
+    private VirtualThreads() {}
+
+    /**
+     * Whether the running JVM supports virtual threads
+     */
+    static boolean isSupported() {
+        try {
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @throws UnsupportedOperationException on JVMs older than Java 21
+     */
+    static void requireSupported() {
+        if (!isSupported()) {
+            throw unsupported();
+        }
+    }
+
+    /**
+     * An executor that starts a new virtual thread for each task
+     * @throws UnsupportedOperationException on JVMs older than Java 21
+     */
+    static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException e) {
+            throw unsupported();
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            throw new IllegalStateException("Could not create a virtual thread executor", e);
+        }
+    }
+
+    private static UnsupportedOperationException unsupported() {
+        return new UnsupportedOperationException("Virtual threads require Java 21 or later (running "
+                + System.getProperty("java.version") + ")");
+    }
+}
@@ -0,0 +1,129 @@
+package org.gaiacore.benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Method handles onto the client. The client classes live in the unnamed package,
+ * which code in a named package cannot reference and JMH does not allow benchmarks
+ * in, so they are reached reflectively. Public methods are looked up so the
+ * benchmarks measure what callers can reach. The one private method is
+ * {@code buildUrl}, reached through {@code privateLookupIn}: {@code request()} and
+ * every convenience getter build their URLs with it, and no public method exposes
+ * it without also sending a request. Handles are resolved once; invoking them
+ * costs the same in every benchmark, so comparisons between paths stay fair.
+ */
+final class ClientAccess {
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    static final Class<?> CLIENT = load("GaiaCoreClient");
+    static final Class<?> LOCATION = load("Location");
+    static final Class<?> EXTERNAL_EXPOSURE = load("ExternalExposure");
+    static final Class<?> POSTGREST_QUERY = load("PostgrestQuery");
+
+    private static final MethodHandle NEW_CLIENT = method(CLIENT, "builder", String.class);
+    private static final MethodHandle BUILD = method(load("GaiaCoreClient$Builder"), "build");
+    private static final MethodHandle QUERY_ROWS = method(CLIENT, "query", POSTGREST_QUERY);
+    private static final MethodHandle QUERY_RECORDS = method(CLIENT, "query", POSTGREST_QUERY, Class.class);
+    private static final MethodHandle GET_LOCATIONS =
+            method(CLIENT, "getLocations", String.class, String.class, Integer.class);
+    private static final MethodHandle GET_LOCATIONS_ASYNC =
+            method(CLIENT, "getLocationsAsync", String.class, String.class, Integer.class);
+    private static final MethodHandle PREPARE = method(CLIENT, "prepare", POSTGREST_QUERY);
+    private static final MethodHandle TEMPLATE_URL = method(load("QueryTemplate"), "url", Object[].class);
+    private static final MethodHandle QUERY_FROM = method(POSTGREST_QUERY, "from", String.class, String.class);
+    private static final MethodHandle QUERY_SELECT = method(POSTGREST_QUERY, "select", String[].class);
+    private static final MethodHandle QUERY_EQ = method(POSTGREST_QUERY, "eq", String.class, Object.class);
+    private static final MethodHandle QUERY_PARAM = method(POSTGREST_QUERY, "param", String.class);
+    private static final MethodHandle QUERY_PATH = method(POSTGREST_QUERY, "toString");
+    private static final MethodHandle BUILD_URL = privateMethod(CLIENT, "buildUrl", String.class, Map.class);
+
+    private ClientAccess() {}
+
+    private static Class<?> load(String name) {
+        try {
+            return Class.forName(name);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("gaiacore-client is not on the classpath", e);
+        }
+    }
+
+    private static MethodHandle method(Class<?> owner, String name, Class<?>... parameterTypes) {
+        try {
+            return LOOKUP.unreflect(owner.getMethod(name, parameterTypes));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Client method not found: " + owner.getName() + "." + name, e);
+        }
+    }
+
+    private static MethodHandle privateMethod(Class<?> owner, String name, Class<?>... parameterTypes) {
+        try {
+            Method method = owner.getDeclaredMethod(name, parameterTypes);
+            return MethodHandles.privateLookupIn(owner, LOOKUP).unreflect(method);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Client method not found: " + owner.getName() + "." + name, e);
+        }
+    }
+
+    static Object newClient(String baseUrl) throws Throwable {
+        return BUILD.invoke(NEW_CLIENT.invoke(baseUrl));
+    }
+
+    @SuppressWarnings("unchecked")
+    static List<Map<String, Object>> query(Object client, Object query) throws Throwable {
+        return (List<Map<String, Object>>) QUERY_ROWS.invoke(client, query);
+    }
+
+    static List<?> query(Object client, Object query, Class<?> type) throws Throwable {
+        return (List<?>) QUERY_RECORDS.invoke(client, query, type);
+    }
+
+    static List<?> getLocations(Object client, Integer limit) throws Throwable {
+        return (List<?>) GET_LOCATIONS.invoke(client, null, null, limit);
+    }
+
+    static CompletableFuture<?> getLocationsAsync(Object client, Integer limit) throws Throwable {
+        return (CompletableFuture<?>) GET_LOCATIONS_ASYNC.invoke(client, null, null, limit);
+    }
+
+    static Object from(String table, String schema) throws Throwable {
+        return QUERY_FROM.invoke(table, schema);
+    }
+
+    /**
+     * The query {@code table?select=<columns>&<column>=eq.<value>} in the given schema
+     */
+    static Object eqQuery(String table, String schema, String[] columns, String column, Object value)
+            throws Throwable {
+        Object query = from(table, schema);
+        query = QUERY_SELECT.invoke(query, columns);
+        return QUERY_EQ.invoke(query, column, value);
+    }
+
+    static Object param(String name) throws Throwable {
+        return QUERY_PARAM.invoke(name);
+    }
+
+    static String toPath(Object query) throws Throwable {
+        return (String) QUERY_PATH.invoke(query);
+    }
+
+    static Object prepare(Object client, Object query) throws Throwable {
+        return PREPARE.invoke(client, query);
+    }
+
+    /**
+     * The URL {@code request()} sends for an endpoint and its parameters
+     */
+    static String buildUrl(Object client, String endpoint, Map<String, String> params) throws Throwable {
+        return (String) BUILD_URL.invoke(client, endpoint, params);
+    }
+
+    static String templateUrl(Object template, Object... values) throws Throwable {
+        return (String) TEMPLATE_URL.invoke(template, values);
+    }
+}
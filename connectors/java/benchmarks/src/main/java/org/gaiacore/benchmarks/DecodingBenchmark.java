@@ -0,0 +1,66 @@
+package org.gaiacore.benchmarks;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Decoding a response body into the generic {@code List<Map<String, Object>>} rows
+ * versus typed records, for location and external_exposure payloads of 1k to 1M rows.
+ * Both run the same query through the public API against a loopback server holding a
+ * pre-rendered body, so they differ only in the decoder; the shared transfer cost is
+ * small next to decoding at these sizes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class DecodingBenchmark {
+    @Param({"location", "external_exposure"})
+    public String table;
+
+    @Param({"1000", "100000", "1000000"})
+    public int rows;
+
+    private LoopbackServer server;
+    private Object client;
+    private Object query;
+    private Class<?> type;
+
+    @Setup
+    public void setUp() throws Throwable {
+        server = new LoopbackServer(Payloads.forTable(table, rows), 0, 1);
+        client = ClientAccess.newClient(server.getUrl());
+        query = ClientAccess.from(table, "working");
+        type = "location".equals(table) ? ClientAccess.LOCATION : ClientAccess.EXTERNAL_EXPOSURE;
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.close();
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> mapRows() throws Throwable {
+        return ClientAccess.query(client, query);
+    }
+
+    @Benchmark
+    public List<?> typedRecords() throws Throwable {
+        return ClientAccess.query(client, query, type);
+    }
+}
@@ -0,0 +1,47 @@
+package org.gaiacore.benchmarks;
+
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * An HTTP server on the loopback interface answering every request with the same JSON
+ * body, after an optional delay standing in for database time
+ */
+final class LoopbackServer implements AutoCloseable {
+    private final HttpServer server;
+    private final ExecutorService threads;
+
+    LoopbackServer(byte[] body, int latencyMillis, int threadCount) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 256);
+        server.createContext("/", exchange -> {
+            try {
+                if (latencyMillis > 0) Thread.sleep(latencyMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        threads = Executors.newFixedThreadPool(threadCount);
+        server.setExecutor(threads);
+        server.start();
+    }
+
+    String getUrl() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        threads.shutdownNow();
+    }
+}
@@ -0,0 +1,72 @@
+package org.gaiacore.benchmarks;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * Synthetic PostgREST response bodies shaped like the working schema tables
+ */
+final class Payloads {
+    private static final String[] CITIES = {"BOSTON", "FRESNO", "LOS ANGELES", "WORCESTER", "SPRINGFIELD"};
+    private static final String[] STATES = {"MA", "CA", "NY", "TX"};
+
+    private Payloads() {}
+
+    static byte[] forTable(String table, int rows) {
+        switch (table) {
+            case "location": return locations(rows);
+            case "external_exposure": return exposures(rows);
+            default: throw new IllegalArgumentException("No payload for " + table);
+        }
+    }
+
+    static byte[] locations(int rows) {
+        Random random = new Random(42);
+        StringBuilder json = new StringBuilder(rows * 230 + 2).append('[');
+        for (int i = 1; i <= rows; i++) {
+            if (i > 1) json.append(',');
+            json.append("{\"location_id\":").append(i)
+                .append(",\"address_1\":\"").append(random.nextInt(9999)).append(" Main St\"")
+                .append(",\"address_2\":null")
+                .append(",\"city\":\"").append(CITIES[random.nextInt(CITIES.length)]).append('"')
+                .append(",\"state\":\"").append(STATES[random.nextInt(STATES.length)]).append('"')
+                .append(",\"zip\":\"0").append(1000 + random.nextInt(8999)).append('"')
+                .append(",\"county\":null")
+                .append(",\"location_source_value\":\"src-").append(i).append('"')
+                .append(",\"country_concept_id\":4330442")
+                .append(",\"country_source_value\":\"US\"")
+                .append(",\"latitude\":").append(25 + random.nextDouble() * 20)
+                .append(",\"longitude\":").append(-120 + random.nextDouble() * 50)
+                .append('}');
+        }
+        return json.append(']').toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    static byte[] exposures(int rows) {
+        Random random = new Random(42);
+        StringBuilder json = new StringBuilder(rows * 480 + 2).append('[');
+        for (int i = 1; i <= rows; i++) {
+            if (i > 1) json.append(',');
+            json.append("{\"external_exposure_id\":").append(i)
+                .append(",\"location_id\":").append(1 + random.nextInt(10000))
+                .append(",\"person_id\":").append(1 + random.nextInt(100000))
+                .append(",\"exposure_concept_id\":").append(2000000000 + random.nextInt(100))
+                .append(",\"exposure_start_date\":\"2020-01-01\"")
+                .append(",\"exposure_end_date\":\"2020-12-31\"")
+                .append(",\"exposure_type_concept_id\":32880")
+                .append(",\"exposure_relationship_concept_id\":0")
+                .append(",\"exposure_source_concept_id\":0")
+                .append(",\"exposure_source_value\":\"pm25\"")
+                .append(",\"exposure_relationship_source_value\":null")
+                .append(",\"dose_unit_source_value\":\"ug/m3\"")
+                .append(",\"quantity\":null")
+                .append(",\"modifier_source_value\":null")
+                .append(",\"operator_concept_id\":0")
+                .append(",\"value_as_number\":").append(random.nextDouble() * 40)
+                .append(",\"value_as_concept_id\":0")
+                .append(",\"unit_concept_id\":0")
+                .append('}');
+        }
+        return json.append(']').toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,76 @@
+package org.gaiacore.benchmarks;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Requests per second through the whole client stack against an in-process HTTP
+ * server on the loopback interface: a batch of getLocations calls issued one after
+ * another versus all at once through getLocationsAsync. The server answers with a
+ * fixed body after an optional delay standing in for database time.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ThroughputBenchmark {
+    private static final int BATCH = 64;
+
+    /** Rows per response */
+    @Param({"10", "1000"})
+    public int rows;
+
+    /** Simulated server-side latency per request */
+    @Param({"0", "5"})
+    public int latencyMillis;
+
+    private LoopbackServer server;
+    private Object client;
+
+    @Setup
+    public void setUp() throws Throwable {
+        server = new LoopbackServer(Payloads.locations(rows), latencyMillis, BATCH);
+        client = ClientAccess.newClient(server.getUrl());
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public int sync() throws Throwable {
+        int total = 0;
+        for (int i = 0; i < BATCH; i++) {
+            total += ClientAccess.getLocations(client, rows).size();
+        }
+        return total;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public int async() throws Throwable {
+        CompletableFuture<?>[] calls = new CompletableFuture<?>[BATCH];
+        for (int i = 0; i < BATCH; i++) {
+            calls[i] = ClientAccess.getLocationsAsync(client, rows);
+        }
+        CompletableFuture.allOf(calls).join();
+        return calls.length;
+    }
+}
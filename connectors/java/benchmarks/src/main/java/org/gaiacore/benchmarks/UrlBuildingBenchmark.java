@@ -0,0 +1,105 @@
+package org.gaiacore.benchmarks;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of turning a lookup into a request URL: the parameter map every convenience
+ * getter and {@code request()} encode (with and without values that need escaping),
+ * rendering a built query likewise, building and rendering a fresh point lookup as a
+ * one-off call does, and binding a prepared template.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UrlBuildingBenchmark {
+    private static final String[] COLUMNS = {"location_id", "city", "latitude", "longitude"};
+
+    private Object safeQuery;
+    private Object escapedQuery;
+    private Object template;
+    private Object client;
+    private Map<String, String> safeParams;
+    private Map<String, String> escapedParams;
+    private int locationId;
+
+    @Setup
+    public void setUp() throws Throwable {
+        safeQuery = ClientAccess.eqQuery("location", "working", COLUMNS, "city", "BOSTON");
+        escapedQuery = ClientAccess.eqQuery("location", "working", COLUMNS, "address_1", "12 Main St & 2nd Ave #4");
+        client = ClientAccess.newClient("http://localhost:3000");
+        safeParams = params("city", "eq.BOSTON");
+        escapedParams = params("address_1", "eq.12 Main St & 2nd Ave #4");
+        template = ClientAccess.prepare(client,
+                ClientAccess.eqQuery("location", "working", COLUMNS, "location_id", ClientAccess.param("id")));
+    }
+
+    /**
+     * The parameters getLocations(city, null, limit, select) sends
+     */
+    private static Map<String, String> params(String column, String filter) {
+        Map<String, String> params = new HashMap<>();
+        params.put("limit", "100");
+        params.put(column, filter);
+        params.put("select", String.join(",", COLUMNS));
+        return params;
+    }
+
+    @Benchmark
+    public String paramsSafe() throws Throwable {
+        return ClientAccess.buildUrl(client, "location", safeParams);
+    }
+
+    @Benchmark
+    public String paramsEscaped() throws Throwable {
+        return ClientAccess.buildUrl(client, "location", escapedParams);
+    }
+
+    /**
+     * Everything getLocation(id) does before sending: fill a fresh parameter map, then its URL
+     */
+    @Benchmark
+    public String paramsPointLookup() throws Throwable {
+        Map<String, String> params = new HashMap<>();
+        params.put("location_id", "eq." + (locationId++ & 0xFFFF));
+        return ClientAccess.buildUrl(client, "location", params);
+    }
+
+    @Benchmark
+    public String querySafe() throws Throwable {
+        return ClientAccess.toPath(safeQuery);
+    }
+
+    @Benchmark
+    public String queryEscaped() throws Throwable {
+        return ClientAccess.toPath(escapedQuery);
+    }
+
+    /**
+     * Everything a one-off point lookup does before sending: build the query, then its path
+     */
+    @Benchmark
+    public String pointLookup() throws Throwable {
+        return ClientAccess.toPath(
+                ClientAccess.eqQuery("location", "working", COLUMNS, "location_id", locationId++ & 0xFFFF));
+    }
+
+    @Benchmark
+    public String preparedTemplate() throws Throwable {
+        return ClientAccess.templateUrl(template, locationId++ & 0xFFFF);
+    }
+}
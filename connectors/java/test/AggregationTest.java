@@ -0,0 +1,136 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Server-side aggregation against the stub server: the select and filters actually
+ * sent, and summary paging that ends on the first short page.
+ */
+class AggregationTest {
+
+    @Test
+    void summariesSendTheAggregateSelect() throws Exception {
+        try (StubPostgrestServer server = StubPostgrestServer.builder()
+                .table("external_exposure", exposures(3, 4))
+                .start()) {
+            GaiaCoreClient client = new GaiaCoreClient(server.getUrl());
+
+            List<ExposureSummary> summaries = client.getExposureSummariesByPerson(2, null);
+
+            List<String> log = decodedLog(server);
+            assertEquals(1, log.size(), "a short first page is the last one");
+            String request = log.get(0);
+            assertTrue(request.startsWith("GET /external_exposure?"), request);
+            assertTrue(request.contains("select=person_id,count:value_as_number.count(),"
+                    + "mean:value_as_number.avg(),min:value_as_number.min(),max:value_as_number.max()"), request);
+            assertTrue(request.contains("order=person_id.asc"), request);
+            assertTrue(request.contains("location_id=eq.2"), request);
+            assertTrue(request.contains("limit=1000"), request);
+
+            assertEquals(3, summaries.size());
+            ExposureSummary first = summaries.get(0);
+            assertEquals(1, first.getPersonId());
+            assertEquals(1, first.getCount());
+            assertEquals(21.0, first.getMean(), 1e-9);
+        }
+    }
+
+    @Test
+    void pagesUntilAShortPage() throws Exception {
+        try (StubPostgrestServer server = StubPostgrestServer.builder()
+                .table("external_exposure", exposures(25, 2))
+                .maxRows(10)
+                .start();
+             GaiaCoreClient client = GaiaCoreClient.builder(server.getUrl()).maxRowsPerResponse(10).build()) {
+
+            List<ExposureSummary> summaries = client.getExposureSummariesByPerson(null, null);
+            assertEquals(25, summaries.size());
+            assertEquals(25, summaries.get(24).getPersonId());
+            assertEquals(2, summaries.get(24).getCount());
+            assertEquals(3, server.getRequestCount(), "pages of 10, 10 and 5");
+            assertTrue(decodedLog(server).get(2).contains("offset=20"), decodedLog(server).get(2));
+
+            assertEquals(12, client.getExposureSummariesByPerson(null, 12).size());
+            List<String> log = decodedLog(server);
+            assertEquals(5, log.size());
+            assertTrue(log.get(4).contains("limit=2") && log.get(4).contains("offset=10"), log.get(4));
+        }
+    }
+
+    @Test
+    void aggregateSendsRawOperatorFilters() throws Exception {
+        try (StubPostgrestServer server = StubPostgrestServer.builder()
+                .table("external_exposure", exposures(4, 3))
+                .start()) {
+            GaiaCoreClient client = new GaiaCoreClient(server.getUrl());
+            Map<String, String> aggregates = new LinkedHashMap<>();
+            aggregates.put("n", "count()");
+            aggregates.put("total", "value_as_number.sum()");
+
+            List<Map<String, Object>> rows = client.aggregate("external_exposure", "working",
+                    List.of("location_id"), aggregates, Map.of("value_as_number", "gte.20"),
+                    "location_id.asc", null);
+
+            String request = decodedLog(server).get(0);
+            assertTrue(request.contains("select=location_id,n:count(),total:value_as_number.sum()"), request);
+            assertTrue(request.contains("value_as_number=gte.20"), request);
+            assertEquals(2, rows.size());
+            assertEquals(2.0, ((Number) rows.get(0).get("location_id")).doubleValue());
+            assertEquals(4.0, ((Number) rows.get(0).get("n")).doubleValue());
+            assertEquals(4 * 20.0 + (1 + 2 + 3 + 4), ((Number) rows.get(0).get("total")).doubleValue(), 1e-9);
+        }
+    }
+
+    @Test
+    void queryBuilderCarriesAggregatesWithGroupedFilters() throws Exception {
+        try (StubPostgrestServer server = StubPostgrestServer.builder()
+                .table("external_exposure", exposures(4, 3))
+                .start()) {
+            GaiaCoreClient client = new GaiaCoreClient(server.getUrl());
+            PostgrestQuery query = PostgrestQuery.from("external_exposure", "working")
+                    .select("person_id", "n:count()")
+                    .or(PostgrestQuery.Filter.eq("location_id", 1), PostgrestQuery.Filter.gte("value_as_number", 33))
+                    .order("person_id");
+
+            List<Map<String, Object>> rows = client.query(query);
+
+            assertEquals(4, rows.size());
+            assertEquals(1.0, ((Number) rows.get(0).get("n")).doubleValue());
+            assertEquals(2.0, ((Number) rows.get(3).get("n")).doubleValue(), "value 34 also matches");
+        }
+    }
+
+    /**
+     * One exposure per person and location, valued {@code location * 10 + person}
+     */
+    private static List<Map<String, Object>> exposures(int persons, int locations) {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        long id = 1;
+        for (long person = 1; person <= persons; person++) {
+            for (long location = 1; location <= locations; location++) {
+                Map<String, Object> row = new LinkedHashMap<>();
+                row.put("external_exposure_id", id++);
+                row.put("person_id", person);
+                row.put("location_id", location);
+                row.put("value_as_number", location * 10.0 + person);
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+
+    private static List<String> decodedLog(StubPostgrestServer server) {
+        List<String> log = new ArrayList<>();
+        for (String request : server.getRequestLog()) {
+            log.add(URLDecoder.decode(request, StandardCharsets.UTF_8));
+        }
+        return log;
+    }
+}
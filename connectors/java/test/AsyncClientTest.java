@@ -0,0 +1,71 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Failures on the asynchronous path against the stub server: they complete the returned
+ * future with the same exceptions the blocking methods throw, and release their permits.
+ */
+class AsyncClientTest {
+
+    @Test
+    void errorStatusCompletesTheFutureExceptionally() throws Exception {
+        try (StubPostgrestServer server = StubPostgrestServer.builder().generated("location", 10).start()) {
+            GaiaCoreClient client = GaiaCoreClient.builder(server.getUrl()).maxInFlight(1).build();
+            server.failNext(1, 404);
+
+            GaiaCoreApiException error = assertInstanceOf(GaiaCoreApiException.class,
+                    failure(client.getLocationsAsync(null, null, null)));
+            assertEquals(404, error.getStatusCode());
+            assertEquals("location", error.getEndpoint());
+            assertTrue(error.getMessage().startsWith("API request failed: "), error.getMessage());
+
+            assertEquals(10, client.getLocationsAsync(null, null, null).get(5, TimeUnit.SECONDS).size());
+            assertEquals(0, client.getInFlightRequests(), "the failed call gave its permit back");
+        }
+    }
+
+    @Test
+    void typedAndRpcCallsFailTheSameWay() throws Exception {
+        try (StubPostgrestServer server = StubPostgrestServer.builder()
+                .generated("location", 10)
+                .generated("external_exposure", 10)
+                .start()) {
+            GaiaCoreClient client = new GaiaCoreClient(server.getUrl());
+
+            server.failNext(1, 400);
+            assertEquals(400, ((GaiaCoreApiException) failure(client.getLocationRecordsAsync(null, null, 5)))
+                    .getStatusCode());
+            server.failNext(1, 500);
+            GaiaCoreApiException rpc = assertInstanceOf(GaiaCoreApiException.class,
+                    failure(client.spatialJoinExposureAsync("1", "pm25")));
+            assertTrue(rpc.getMessage().startsWith("RPC call failed: "), rpc.getMessage());
+        }
+    }
+
+    @Test
+    void connectionFailureSurfacesAsIOException() throws Exception {
+        String url;
+        try (StubPostgrestServer server = StubPostgrestServer.builder().generated("location", 1).start()) {
+            url = server.getUrl();
+        }
+        GaiaCoreClient client = GaiaCoreClient.builder(url).maxInFlight(2).build();
+
+        for (int i = 0; i < 3; i++) {
+            assertInstanceOf(IOException.class, failure(client.getLocationsAsync(null, null, null)));
+        }
+        assertEquals(0, client.getInFlightRequests());
+        assertThrows(IOException.class, () -> client.getLocations(null, null, null));
+    }
+
+    private static Throwable failure(CompletableFuture<?> call) {
+        return assertThrows(ExecutionException.class, () -> call.get(5, TimeUnit.SECONDS)).getCause();
+    }
+}
@@ -0,0 +1,108 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * {@link BatchLoader} on its own: shared keys, explicit flushes and closing. Coalescing
+ * through the client against the stub server is covered by {@link CoalescingTest}.
+ */
+class BatchLoaderTest {
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+    @AfterEach
+    void shutDown() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    void cancellingOneCallerLeavesOthersWithTheSameKey() throws Exception {
+        List<Collection<String>> batches = new CopyOnWriteArrayList<>();
+        BatchLoader<String, String> loader = new BatchLoader<>(keys -> {
+            batches.add(new ArrayList<>(keys));
+            Map<String, String> values = new HashMap<>();
+            keys.forEach(key -> values.put(key, key.toUpperCase()));
+            return CompletableFuture.completedFuture(values);
+        }, TimeUnit.MILLISECONDS.toNanos(20), 100, scheduler);
+
+        CompletableFuture<String> cancelled = loader.load("a");
+        CompletableFuture<String> kept = loader.load("a");
+        cancelled.cancel(true);
+
+        assertEquals("A", kept.get(5, TimeUnit.SECONDS));
+        assertTrue(cancelled.isCancelled());
+        assertEquals(List.of(List.of("a")), batches);
+    }
+
+    @Test
+    void flushDispatchesBufferedKeysImmediately() throws Exception {
+        List<Collection<Integer>> batches = new CopyOnWriteArrayList<>();
+        BatchLoader<Integer, Integer> loader = new BatchLoader<>(keys -> {
+            batches.add(new ArrayList<>(keys));
+            Map<Integer, Integer> values = new HashMap<>();
+            keys.forEach(key -> values.put(key, key * 10));
+            return CompletableFuture.completedFuture(values);
+        }, TimeUnit.SECONDS.toNanos(30), 100, scheduler);
+
+        CompletableFuture<Integer> one = loader.load(1);
+        CompletableFuture<Integer> two = loader.load(2);
+        assertFalse(one.isDone());
+        loader.flush();
+
+        assertEquals(10, one.get(5, TimeUnit.SECONDS));
+        assertEquals(20, two.get(5, TimeUnit.SECONDS));
+        assertEquals(List.of(List.of(1, 2)), batches);
+    }
+
+    @Test
+    void closeFailsBufferedAndLaterLoads() throws Exception {
+        List<Collection<Integer>> batches = new CopyOnWriteArrayList<>();
+        BatchLoader<Integer, Integer> loader = new BatchLoader<>(keys -> {
+            batches.add(new ArrayList<>(keys));
+            return CompletableFuture.completedFuture(new HashMap<>());
+        }, TimeUnit.MILLISECONDS.toNanos(20), 100, scheduler);
+
+        CompletableFuture<Integer> buffered = loader.load(1);
+        loader.close();
+        CompletableFuture<Integer> late = loader.load(2);
+
+        for (CompletableFuture<Integer> lookup : List.of(buffered, late)) {
+            ExecutionException error = assertThrows(ExecutionException.class,
+                    () -> lookup.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(IllegalStateException.class, error.getCause());
+        }
+        Thread.sleep(50);
+        assertTrue(batches.isEmpty(), "nothing was dispatched");
+    }
+
+    @Test
+    void closedClientRejectsCoalescedLookups() throws Exception {
+        GaiaCoreClient client = GaiaCoreClient.builder("http://localhost:1")
+                .coalesceLookups(Duration.ofSeconds(30), 100)
+                .build();
+        CompletableFuture<Map<String, Object>> buffered = client.getLocationAsync(1);
+        client.close();
+
+        ExecutionException error = assertThrows(ExecutionException.class,
+                () -> buffered.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, error.getCause());
+        assertThrows(IllegalStateException.class, () -> client.getLocation(2));
+        assertThrows(IllegalStateException.class, () -> client.getDataSource("a1"));
+    }
+}
@@ -0,0 +1,120 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Batch lookups against the stub server: unique-key lookups are single uncounted
+ * requests, and one-to-many lookups split chunks that {@code db-max-rows} truncated.
+ */
+class BatchLookupTest {
+
+    @Test
+    void uniqueLookupIsOneUncountedRequestInInputOrder() throws Exception {
+        try (StubPostgrestServer server = StubPostgrestServer.builder().generated("location", 50).start()) {
+            GaiaCoreClient client = new GaiaCoreClient(server.getUrl());
+
+            Map<Integer, Map<String, Object>> locations = client.getLocations(Arrays.asList(30, 4, 999, 17, 4));
+
+            assertEquals(Arrays.asList(30, 4, 17), new ArrayList<>(locations.keySet()));
+            locations.forEach((id, row) -> assertEquals(id.longValue(), ((Number) row.get("location_id")).longValue()));
+            assertEquals(1, server.getRequestCount());
+            assertEquals(0, server.getCountedRequestCount());
+        }
+    }
+
+    @Test
+    void longKeyListsAreSplitByUrlBudget() throws Exception {
+        try (StubPostgrestServer server = StubPostgrestServer.builder().generated("location", 3000).start()) {
+            GaiaCoreClient client = new GaiaCoreClient(server.getUrl());
+            List<Integer> ids = new ArrayList<>();
+            for (int id = 1; id <= 3000; id++) ids.add(id);
+
+            Map<Integer, Map<String, Object>> locations = client.getLocations(ids);
+
+            assertEquals(ids, new ArrayList<>(locations.keySet()));
+            assertTrue(server.getRequestCount() > 1, "expected several chunks, got " + server.getRequestCount());
+            assertEquals(0, server.getCountedRequestCount());
+        }
+    }
+
+    @Test
+    void truncatedOneToManyChunksAreSplitUntilComplete() throws Exception {
+        try (StubPostgrestServer server = StubPostgrestServer.builder()
+                .table("location_history", history(4, 3))
+                .maxRows(5)
+                .start()) {
+            GaiaCoreClient client = new GaiaCoreClient(server.getUrl());
+
+            Map<Integer, List<Map<String, Object>>> byPerson =
+                    client.getLocationHistoryForPersons(Arrays.asList(1, 2, 3, 4, 5));
+
+            assertEquals(Arrays.asList(1, 2, 3, 4, 5), new ArrayList<>(byPerson.keySet()));
+            for (int person = 1; person <= 4; person++) {
+                assertEquals(3, byPerson.get(person).size(), "rows of person " + person);
+            }
+            assertTrue(byPerson.get(5).isEmpty());
+            // 12 rows in one chunk, then halves of 6, then single persons of at most 3
+            assertEquals(7, server.getRequestCount());
+            assertEquals(7, server.getCountedRequestCount());
+        }
+    }
+
+    @Test
+    void untruncatedOneToManyChunkIsNotSplit() throws Exception {
+        try (StubPostgrestServer server = StubPostgrestServer.builder()
+                .table("location_history", history(4, 3))
+                .maxRows(100)
+                .start()) {
+            GaiaCoreClient client = new GaiaCoreClient(server.getUrl());
+
+            Map<Integer, List<Map<String, Object>>> byPerson =
+                    client.getLocationHistoryForPersons(Arrays.asList(1, 2, 3, 4));
+
+            assertEquals(12, byPerson.values().stream().mapToInt(List::size).sum());
+            assertEquals(1, server.getRequestCount());
+        }
+    }
+
+    @Test
+    void singleKeyOverMaxRowsFails() throws Exception {
+        try (StubPostgrestServer server = StubPostgrestServer.builder()
+                .table("location_history", history(2, 8))
+                .maxRows(5)
+                .start()) {
+            GaiaCoreClient client = new GaiaCoreClient(server.getUrl());
+
+            IOException error = assertThrows(IOException.class,
+                    () -> client.getLocationHistoryForPersons(Arrays.asList(1, 2)));
+            assertTrue(error.getMessage().contains("db-max-rows"), error.getMessage());
+        }
+    }
+
+    /**
+     * {@code rowsPerPerson} location_history rows for each of persons 1 to {@code persons}
+     */
+    private static List<Map<String, Object>> history(int persons, int rowsPerPerson) {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        long locationId = 1;
+        for (int person = 1; person <= persons; person++) {
+            for (int i = 0; i < rowsPerPerson; i++) {
+                Map<String, Object> row = new LinkedHashMap<>();
+                row.put("location_id", locationId++);
+                row.put("relationship_type_concept_id", 32848L);
+                row.put("domain_id", 1147314L);
+                row.put("entity_id", (long) person);
+                row.put("start_date", "1998-01-01");
+                row.put("end_date", "2020-01-01");
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,129 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Per-endpoint circuit breakers against the stub server: the closed, open and half-open
+ * transitions, and which outcomes count against an endpoint.
+ */
+class CircuitBreakerTest {
+    private static final Duration OPEN = Duration.ofMillis(300);
+
+    @Test
+    void opensOnFailuresAndClosesAfterSuccessfulProbes() throws Exception {
+        try (StubPostgrestServer server = StubPostgrestServer.builder().generated("location", 10).start()) {
+            GaiaCoreClient client = client(server, policy().build());
+
+            server.failNext(4, 500);
+            for (int i = 0; i < 4; i++) {
+                assertThrows(GaiaCoreApiException.class, () -> client.getLocations(null, null, null));
+            }
+            assertEquals(CircuitBreaker.State.OPEN, state(client, "location"));
+
+            CircuitOpenException rejected = assertThrows(CircuitOpenException.class,
+                    () -> client.getLocations(null, null, null));
+            assertEquals("location", rejected.getEndpoint());
+            assertEquals(4, server.getRequestCount());
+            assertEquals(1, client.getCircuitBreakerRejections());
+
+            Thread.sleep(OPEN.toMillis() + 50);
+            client.getLocations(null, null, null);
+            assertEquals(CircuitBreaker.State.HALF_OPEN, state(client, "location"));
+            client.getLocations(null, null, null);
+            assertEquals(CircuitBreaker.State.CLOSED, state(client, "location"));
+            assertEquals(0, client.getCircuitBreakers().get("location").getBufferedCalls());
+            assertEquals(6, server.getRequestCount());
+        }
+    }
+
+    @Test
+    void failedProbeOpensTheBreakerAgain() throws Exception {
+        try (StubPostgrestServer server = StubPostgrestServer.builder().generated("location", 10).start()) {
+            GaiaCoreClient client = client(server, policy().build());
+
+            server.failNext(5, 503);
+            for (int i = 0; i < 4; i++) {
+                assertThrows(GaiaCoreApiException.class, () -> client.getLocations(null, null, null));
+            }
+            Thread.sleep(OPEN.toMillis() + 50);
+            assertThrows(GaiaCoreApiException.class, () -> client.getLocations(null, null, null));
+
+            CircuitBreaker breaker = client.getCircuitBreakers().get("location");
+            assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+            assertEquals(2, breaker.getTimesOpened());
+            assertThrows(CircuitOpenException.class, () -> client.getLocations(null, null, null));
+            assertEquals(5, server.getRequestCount());
+        }
+    }
+
+    @Test
+    void clientErrorsDoNotOpenTheBreaker() throws Exception {
+        try (StubPostgrestServer server = StubPostgrestServer.builder().generated("location", 10).start()) {
+            GaiaCoreClient client = client(server, policy().build());
+
+            server.failNext(8, 404);
+            for (int i = 0; i < 8; i++) {
+                assertThrows(GaiaCoreApiException.class, () -> client.getLocations(null, null, null));
+            }
+
+            assertEquals(CircuitBreaker.State.CLOSED, state(client, "location"));
+            assertEquals(0.0, client.getCircuitBreakers().get("location").getFailureRate());
+        }
+    }
+
+    @Test
+    void opensOnSlowCalls() throws Exception {
+        try (StubPostgrestServer server = StubPostgrestServer.builder().generated("location", 10).start()) {
+            GaiaCoreClient client = client(server, policy().slowCalls(Duration.ofMillis(100), 50).build());
+
+            server.delayNext(4, Duration.ofMillis(150));
+            for (int i = 0; i < 4; i++) {
+                client.getLocations(null, null, null);
+            }
+
+            assertEquals(CircuitBreaker.State.OPEN, state(client, "location"));
+            assertThrows(CircuitOpenException.class, () -> client.getLocations(null, null, null));
+        }
+    }
+
+    @Test
+    void breakersAreKeptPerEndpoint() throws Exception {
+        try (StubPostgrestServer server = StubPostgrestServer.builder()
+                .generated("location", 10)
+                .generated("data_source", 3)
+                .generated("external_exposure", 5)
+                .start()) {
+            GaiaCoreClient client = client(server, policy().endpoints("location", "data_source").build());
+
+            server.failNext(4, 500);
+            for (int i = 0; i < 4; i++) {
+                assertThrows(GaiaCoreApiException.class, () -> client.getLocations(null, null, null));
+            }
+
+            assertEquals(3, client.getDataSources().size());
+            assertEquals(CircuitBreaker.State.OPEN, state(client, "location"));
+            assertEquals(CircuitBreaker.State.CLOSED, state(client, "data_source"));
+            client.getExposures(null, null, null);
+            assertFalse(client.getCircuitBreakers().containsKey("external_exposure"));
+        }
+    }
+
+    private static CircuitBreakerPolicy.Builder policy() {
+        return CircuitBreakerPolicy.builder()
+                .failureRateThreshold(50)
+                .window(10, 4)
+                .openDuration(OPEN)
+                .halfOpenCalls(2);
+    }
+
+    private static GaiaCoreClient client(StubPostgrestServer server, CircuitBreakerPolicy policy) {
+        return GaiaCoreClient.builder(server.getUrl()).circuitBreakers(policy).build();
+    }
+
+    private static CircuitBreaker.State state(GaiaCoreClient client, String endpoint) {
+        return client.getCircuitBreakers().get(endpoint).getState();
+    }
+}
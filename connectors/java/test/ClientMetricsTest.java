@@ -0,0 +1,75 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+
+/**
+ * What a {@link GaiaCoreClient} reports to its {@link ClientMetrics} against the stub
+ * server: response sizes and row counts on the sync and async paths, and error statuses.
+ */
+class ClientMetricsTest {
+
+    @Test
+    void reportsSizesAndRowsForSyncAndAsyncReads() throws Exception {
+        InMemoryMetrics metrics = new InMemoryMetrics();
+        try (StubPostgrestServer server = StubPostgrestServer.builder().generated("location", 50).start()) {
+            GaiaCoreClient client = GaiaCoreClient.builder(server.getUrl()).metrics(metrics).build();
+
+            client.getLocations(null, null, 20);
+            long bodySize = bodySize(server);
+            InMemoryMetrics.Endpoint location = metrics.getEndpoint("location");
+            assertEquals(1, location.getRequests());
+            assertEquals(20, location.getRows());
+            assertEquals(bodySize, location.getResponseBytes());
+
+            client.getLocationsAsync(null, null, 20).get(5, TimeUnit.SECONDS);
+            assertEquals(2, location.getRequests());
+            assertEquals(40, location.getRows());
+            assertEquals(2 * bodySize, location.getResponseBytes());
+            assertEquals(2, location.getDecode().getCount());
+            assertTrue(location.getLatency().getMax() >= location.getFirstByte().getMax());
+        }
+    }
+
+    @Test
+    void reportsErrorStatusesAndStreamedReads() throws Exception {
+        InMemoryMetrics metrics = new InMemoryMetrics();
+        try (StubPostgrestServer server = StubPostgrestServer.builder().generated("location", 50).start()) {
+            GaiaCoreClient client = GaiaCoreClient.builder(server.getUrl()).metrics(metrics).build();
+
+            server.failNext(1, 503);
+            assertThrows(IOException.class, () -> client.getLocations(null, null, 20));
+            try (Stream<?> rows = client.stream("location", "working", null)) {
+                assertEquals(50, rows.count());
+            }
+
+            InMemoryMetrics.Endpoint location = metrics.getEndpoint("location");
+            assertEquals(2, location.getRequests());
+            assertEquals(1, location.getErrors());
+            assertEquals(1L, location.getStatusCodes().get("503"));
+            assertEquals(1L, location.getStatusCodes().get("200"));
+            assertEquals(0, location.getRows(), "streamed rows are not counted");
+        }
+    }
+
+    /**
+     * Size of the last response, fetched again with a plain HttpClient
+     */
+    private static long bodySize(StubPostgrestServer server) throws Exception {
+        List<String> log = server.getRequestLog();
+        String path = log.get(log.size() - 1).split(" ", 2)[1];
+        HttpResponse<byte[]> response = HttpClient.newHttpClient().send(
+                HttpRequest.newBuilder(URI.create(server.getUrl() + path)).build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+        return response.body().length;
+    }
+}
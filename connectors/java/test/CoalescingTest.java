@@ -0,0 +1,81 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Coalescing of concurrent single-row lookups through
+ * {@link GaiaCoreClient.Builder#coalesceLookups} against the stub server.
+ */
+class CoalescingTest {
+
+    @Test
+    void concurrentLookupsShareOneRequest() throws Exception {
+        try (StubPostgrestServer server = StubPostgrestServer.builder().generated("location", 50).start();
+             GaiaCoreClient client = GaiaCoreClient.builder(server.getUrl())
+                     .coalesceLookups(Duration.ofMillis(50), 100)
+                     .build()) {
+            List<CompletableFuture<Map<String, Object>>> lookups = new ArrayList<>();
+            for (int id = 1; id <= 10; id++) {
+                lookups.add(client.getLocationAsync(id));
+                lookups.add(client.getLocationAsync(id));
+            }
+            CompletableFuture<Map<String, Object>> missing = client.getLocationAsync(999);
+
+            for (int i = 0; i < lookups.size(); i++) {
+                Map<String, Object> row = lookups.get(i).get(5, TimeUnit.SECONDS);
+                assertEquals(i / 2 + 1, ((Number) row.get("location_id")).intValue());
+            }
+            assertNull(missing.get(5, TimeUnit.SECONDS));
+            assertEquals(1, server.getRequestCount());
+        }
+    }
+
+    @Test
+    void fullBatchIsDispatchedWithoutWaitingForTheWindow() throws Exception {
+        try (StubPostgrestServer server = StubPostgrestServer.builder().generated("location", 50).start();
+             GaiaCoreClient client = GaiaCoreClient.builder(server.getUrl())
+                     .coalesceLookups(Duration.ofSeconds(30), 4)
+                     .build()) {
+            List<CompletableFuture<Map<String, Object>>> lookups = new ArrayList<>();
+            for (int id = 1; id <= 8; id++) {
+                lookups.add(client.getLocationAsync(id));
+            }
+
+            for (CompletableFuture<Map<String, Object>> lookup : lookups) {
+                lookup.get(5, TimeUnit.SECONDS);
+            }
+            assertEquals(2, server.getRequestCount());
+        }
+    }
+
+    @Test
+    void batchFailureFailsEveryCaller() throws Exception {
+        try (StubPostgrestServer server = StubPostgrestServer.builder()
+                .generated("location", 50)
+                .failureRate(1, 500)
+                .start();
+             GaiaCoreClient client = GaiaCoreClient.builder(server.getUrl())
+                     .coalesceLookups(Duration.ofMillis(20), 100)
+                     .build()) {
+            CompletableFuture<Map<String, Object>> first = client.getLocationAsync(1);
+            CompletableFuture<Map<String, Object>> second = client.getLocationAsync(2);
+
+            for (CompletableFuture<Map<String, Object>> lookup : List.of(first, second)) {
+                ExecutionException error = assertThrows(ExecutionException.class,
+                        () -> lookup.get(5, TimeUnit.SECONDS));
+                assertInstanceOf(GaiaCoreApiException.class, error.getCause());
+            }
+            assertEquals(1, server.getRequestCount());
+        }
+    }
+}
@@ -0,0 +1,98 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+import com.google.gson.stream.JsonReader;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Decoding row arrays into {@link ColumnarResult} columns: nulls and absent columns,
+ * dictionary-encoded strings, skipped columns and buffer growth.
+ */
+class ColumnarResultTest {
+    private static final ColumnarResult.Schema SCHEMA = ColumnarResult.schema()
+            .withLong("person_id")
+            .withInt("unit_concept_id")
+            .withDouble("value_as_number")
+            .withString("exposure_source_value");
+
+    @Test
+    void decodesNullsAndAbsentColumnsAsMissing() throws IOException {
+        ColumnarResult result = read("["
+                + "{\"person_id\":1,\"unit_concept_id\":8751,\"value_as_number\":0.0,\"exposure_source_value\":\"pm25\"},"
+                + "{\"person_id\":null,\"unit_concept_id\":null,\"value_as_number\":null,\"exposure_source_value\":null},"
+                + "{\"person_id\":3}"
+                + "]", SCHEMA);
+
+        assertEquals(3, result.size());
+        assertArrayEquals(new long[] {1, 0, 3}, result.getLongs("person_id"));
+        assertArrayEquals(new int[] {8751, 0, 0}, result.getInts("unit_concept_id"));
+        double[] values = result.getDoubles("value_as_number");
+        assertEquals(0.0, values[0]);
+        assertTrue(Double.isNaN(values[1]));
+        assertTrue(Double.isNaN(values[2]));
+        assertArrayEquals(new int[] {0, -1, -1}, result.getStringCodes("exposure_source_value"));
+        assertNull(result.getString("exposure_source_value", 1));
+
+        assertFalse(result.isNull("person_id", 0));
+        assertTrue(result.isNull("person_id", 1));
+        assertFalse(result.isNull("unit_concept_id", 0));
+        assertTrue(result.isNull("unit_concept_id", 1));
+        assertTrue(result.isNull("unit_concept_id", 2), "an absent column is null too");
+        assertFalse(result.isNull("value_as_number", 0), "0.0 is a value");
+    }
+
+    @Test
+    void dictionaryEncodesStringsAndSkipsOtherColumns() throws IOException {
+        ColumnarResult.Schema schema = ColumnarResult.schema().withString("state");
+        ColumnarResult result = read("[{\"state\":\"CA\",\"geom\":{\"type\":\"Point\",\"coordinates\":[1,2]}},"
+                + "{\"state\":\"NY\",\"tags\":[\"a\"]},{\"state\":\"CA\"}]", schema);
+
+        assertArrayEquals(new int[] {0, 1, 0}, result.getStringCodes("state"));
+        assertEquals(Arrays.asList("CA", "NY"), result.getDictionary("state"));
+        assertEquals("NY", result.getString("state", 1));
+        assertThrows(IllegalArgumentException.class, () -> result.getLongs("geom"));
+    }
+
+    @Test
+    void growsPastTheInitialCapacityAndTrimsToSize() throws IOException {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < 2500; i++) {
+            json.append(i == 0 ? "" : ",").append("{\"person_id\":").append(i)
+                    .append(i % 2 == 0 ? ",\"value_as_number\":null}" : ",\"value_as_number\":1.5}");
+        }
+        ColumnarResult result = read(json.append(']').toString(), SCHEMA);
+
+        assertEquals(2500, result.size());
+        assertEquals(2500, result.getLongs("person_id").length);
+        assertEquals(2499, result.getLongs("person_id")[2499]);
+        assertTrue(result.isNull("value_as_number", 2498));
+        assertEquals(1.5, result.getDoubles("value_as_number")[2499]);
+    }
+
+    @Test
+    void emptyAndNullBodiesHaveNoRows() throws IOException {
+        assertEquals(0, read("[]", SCHEMA).size());
+        assertEquals(0, read("null", SCHEMA).getLongs("person_id").length);
+    }
+
+    @Test
+    void rejectsTheWrongTypeAndUnknownColumns() throws IOException {
+        ColumnarResult result = read("[{\"person_id\":1}]", SCHEMA);
+
+        assertThrows(IllegalArgumentException.class, () -> result.getDoubles("person_id"));
+        assertThrows(IllegalArgumentException.class, () -> result.isNull("location_id", 0));
+        assertThrows(IllegalArgumentException.class, () -> SCHEMA.withInt("person_id"));
+        assertEquals("person_id,unit_concept_id,value_as_number,exposure_source_value", SCHEMA.toSelect());
+    }
+
+    private static ColumnarResult read(String json, ColumnarResult.Schema schema) throws IOException {
+        return ColumnarResult.read(new JsonReader(new StringReader(json)), schema);
+    }
+}
@@ -0,0 +1,38 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Compressed transfers from the stub server: responses are only compressed when the
+ * client opts in, and decode to the same rows either way.
+ */
+class CompressedTransferTest {
+
+    @Test
+    void compressedResponsesDecodeToTheSameRows() throws Exception {
+        try (StubPostgrestServer server = StubPostgrestServer.builder().generated("location", 500).start()) {
+            GaiaCoreClient plain = new GaiaCoreClient(server.getUrl());
+            GaiaCoreClient gzip = GaiaCoreClient.builder(server.getUrl()).compression(true).build();
+
+            List<Map<String, Object>> expected = plain.getLocations(null, null, 500);
+            assertEquals(0, server.getCompressedResponseCount(), "compression is off by default");
+            List<Map<String, Object>> actual = gzip.getLocations(null, null, 500);
+
+            assertEquals(500, expected.size());
+            assertEquals(expected, actual);
+            assertEquals(1, server.getCompressedResponseCount());
+        }
+    }
+
+    @Test
+    void asyncResponsesAreDecompressedToo() throws Exception {
+        try (StubPostgrestServer server = StubPostgrestServer.builder().generated("data_source", 20).start()) {
+            GaiaCoreClient gzip = GaiaCoreClient.builder(server.getUrl()).compression(true).build();
+
+            assertEquals(gzip.getDataSources(), gzip.getDataSourcesAsync().get());
+            assertEquals(2, server.getCompressedResponseCount());
+        }
+    }
+}
@@ -0,0 +1,116 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The fixed and adaptive in-flight limits against the stub server, and {@link AdaptiveLimit} on its own.
+ */
+class ConcurrencyLimitTest {
+
+    @Test
+    void fixedLimitCapsRequestsAtTheServer() throws Exception {
+        try (StubPostgrestServer server = StubPostgrestServer.builder()
+                .generated("location", 10)
+                .latency(Duration.ofMillis(50))
+                .start()) {
+            GaiaCoreClient client = GaiaCoreClient.builder(server.getUrl()).maxInFlight(2).build();
+
+            List<CompletableFuture<List<Map<String, Object>>>> calls = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                calls.add(client.getLocationsAsync(null, null, null));
+            }
+            for (CompletableFuture<List<Map<String, Object>>> call : calls) {
+                assertEquals(10, call.get(5, TimeUnit.SECONDS).size());
+            }
+
+            assertEquals(10, server.getRequestCount());
+            assertEquals(2, server.getMaxConcurrentRequests());
+            assertEquals(0, client.getInFlightRequests());
+        }
+    }
+
+    @Test
+    void boundedQueueRejectsOverflowWithoutSendingIt() throws Exception {
+        try (StubPostgrestServer server = StubPostgrestServer.builder()
+                .generated("location", 10)
+                .latency(Duration.ofMillis(200))
+                .start()) {
+            GaiaCoreClient client = GaiaCoreClient.builder(server.getUrl())
+                    .maxInFlight(1)
+                    .maxQueuedRequests(2)
+                    .build();
+
+            List<CompletableFuture<List<Map<String, Object>>>> calls = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                calls.add(client.getLocationsAsync(null, null, null));
+            }
+
+            int rejected = 0;
+            for (CompletableFuture<List<Map<String, Object>>> call : calls) {
+                try {
+                    call.get(5, TimeUnit.SECONDS);
+                } catch (ExecutionException e) {
+                    assertInstanceOf(RequestRejectedException.class, e.getCause());
+                    rejected++;
+                }
+            }
+            assertEquals(2, rejected);
+            assertEquals(2, client.getRejectedRequests());
+            assertEquals(3, server.getRequestCount());
+            assertEquals(1, server.getMaxConcurrentRequests());
+        }
+    }
+
+    @Test
+    void adaptiveLimitBacksOffOnOverload() throws Exception {
+        try (StubPostgrestServer server = StubPostgrestServer.builder().generated("location", 10).start()) {
+            GaiaCoreClient client = GaiaCoreClient.builder(server.getUrl()).adaptiveConcurrency(1, 50).build();
+            assertEquals(20, client.getConcurrencyLimit());
+
+            server.failNext(5, 503);
+            for (int i = 0; i < 5; i++) {
+                GaiaCoreApiException error = assertThrows(GaiaCoreApiException.class,
+                        () -> client.getLocations(null, null, null));
+                assertEquals(503, error.getStatusCode());
+            }
+
+            // 20 * 0.9, five times over, rounding down
+            assertEquals(10, client.getConcurrencyLimit());
+            client.getLocations(null, null, null);
+            assertEquals(10, client.getConcurrencyLimit(), "an idle client learns nothing from a fast response");
+        }
+    }
+
+    @Test
+    void adaptiveLimitFollowsQueueingDelay() {
+        AdaptiveLimit adaptive = new AdaptiveLimit(5, 30);
+        long rtt = TimeUnit.MILLISECONDS.toNanos(10);
+
+        int limit = adaptive.initialLimit();
+        assertEquals(20, limit);
+        limit = adaptive.update(limit, rtt, limit, false);
+        assertEquals(21, limit, "grows while responses are as fast as the best seen");
+        assertEquals(21, adaptive.update(limit, rtt * 10, 5, false), "ignores samples while mostly idle");
+        limit = adaptive.update(limit, rtt * 10, limit, false);
+        assertEquals(20, limit, "shrinks once latency shows requests queueing");
+
+        for (int i = 0; i < 50; i++) {
+            limit = adaptive.update(limit, rtt, limit, false);
+        }
+        assertEquals(30, limit);
+        for (int i = 0; i < 50; i++) {
+            limit = adaptive.update(limit, -1, limit, true);
+        }
+        assertEquals(5, limit);
+        assertEquals(5, adaptive.update(limit, -1, limit, false), "a request without a response leaves it");
+    }
+}
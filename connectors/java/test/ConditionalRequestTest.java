@@ -0,0 +1,97 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Conditional requests and the metadata cache against the stub server: ETag
+ * revalidation answered with 304, the byte bound on kept bodies, and invalidation
+ * racing a load in flight.
+ */
+class ConditionalRequestTest {
+
+    @Test
+    void notModifiedReusesTheDecodedResponse() throws Exception {
+        try (StubPostgrestServer server = StubPostgrestServer.builder()
+                .generated("location", 50)
+                .etags(true)
+                .start()) {
+            GaiaCoreClient client = GaiaCoreClient.builder(server.getUrl()).conditionalRequests(10).build();
+
+            List<Map<String, Object>> first = client.getLocations(null, null, 20);
+            List<Map<String, Object>> second = client.getLocations(null, null, 20);
+            List<Map<String, Object>> third = client.getLocationsAsync(null, null, 20).get(5, TimeUnit.SECONDS);
+
+            assertEquals(3, server.getRequestCount(), "every call is revalidated");
+            assertEquals(20, first.size());
+            assertSame(first, second, "a 304 answers from the remembered value");
+            assertSame(first, third);
+        }
+    }
+
+    @Test
+    void responsesOverTheByteBoundAreNotKept() throws Exception {
+        try (StubPostgrestServer server = StubPostgrestServer.builder()
+                .generated("location", 50)
+                .etags(true)
+                .start()) {
+            GaiaCoreClient client = GaiaCoreClient.builder(server.getUrl()).conditionalRequests(10, 1000).build();
+
+            List<Map<String, Object>> first = client.getLocations(null, null, 20);
+            List<Map<String, Object>> second = client.getLocations(null, null, 20);
+
+            assertEquals(first, second);
+            assertNotSame(first, second, "the second response was downloaded in full");
+            assertSame(client.getLocations(null, null, 1), client.getLocations(null, null, 1));
+        }
+    }
+
+    @Test
+    void invalidationEmptiesTheMetadataCache() throws Exception {
+        try (StubPostgrestServer server = StubPostgrestServer.builder().generated("data_source", 5).start()) {
+            GaiaCoreClient client = GaiaCoreClient.builder(server.getUrl())
+                    .metadataCache(10, Duration.ofMinutes(1))
+                    .build();
+
+            client.getDataSources();
+            client.getDataSources();
+            assertEquals(1, server.getRequestCount());
+            assertEquals(1, client.getMetadataCacheHits());
+
+            client.invalidateMetadataCache();
+            client.getDataSources();
+            assertEquals(2, server.getRequestCount());
+            assertEquals(2, client.getMetadataCacheMisses());
+        }
+    }
+
+    @Test
+    void loadInFlightDuringInvalidationIsNotCached() throws Exception {
+        try (StubPostgrestServer server = StubPostgrestServer.builder().generated("data_source", 5).start()) {
+            GaiaCoreClient client = GaiaCoreClient.builder(server.getUrl())
+                    .metadataCache(10, Duration.ofMinutes(1))
+                    .build();
+            server.delayNext(1, Duration.ofMillis(300));
+
+            CompletableFuture<List<Map<String, Object>>> loading = client.getDataSourcesAsync();
+            while (server.getRequestLog().isEmpty()) {
+                Thread.sleep(5);
+            }
+            client.invalidateMetadataCache();
+            assertEquals(5, loading.get(5, TimeUnit.SECONDS).size());
+
+            client.getDataSources();
+            assertEquals(2, server.getRequestCount(), "the stale load was not cached");
+            client.getDataSources();
+            assertEquals(2, server.getRequestCount());
+            assertTrue(client.getMetadataCacheHits() >= 1);
+        }
+    }
+}
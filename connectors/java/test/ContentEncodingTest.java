@@ -0,0 +1,128 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Response decompression in {@link ContentEncoding}, and error responses whose bodies
+ * are, or claim to be, compressed. Compressed transfers from the stub server are
+ * covered by {@link CompressedTransferTest}.
+ */
+class ContentEncodingTest {
+    private static final byte[] BODY = "[{\"location_id\":1,\"city\":\"BOSTON\"}]".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    void decodesGzip() throws Exception {
+        assertArrayEquals(BODY, read(ContentEncoding.decode(new ByteArrayInputStream(ContentEncoding.gzip(BODY)),
+                "gzip")));
+    }
+
+    @Test
+    void decodesZlibWrappedAndRawDeflate() throws Exception {
+        assertArrayEquals(BODY, read(ContentEncoding.decode(new ByteArrayInputStream(deflate(BODY, false)),
+                "deflate")));
+        assertArrayEquals(BODY, read(ContentEncoding.decode(new ByteArrayInputStream(deflate(BODY, true)),
+                "Deflate")));
+    }
+
+    @Test
+    void passesIdentityAndMissingEncodingThrough() throws Exception {
+        assertArrayEquals(BODY, read(ContentEncoding.decode(new ByteArrayInputStream(BODY), null)));
+        assertArrayEquals(BODY, read(ContentEncoding.decode(new ByteArrayInputStream(BODY), "identity")));
+    }
+
+    @Test
+    void emptyBodyWithEncodingHeaderIsEmpty() throws Exception {
+        assertEquals(0, read(ContentEncoding.decode(new ByteArrayInputStream(new byte[0]), "gzip")).length);
+        assertEquals(0, read(ContentEncoding.decode(new ByteArrayInputStream(new byte[0]), "deflate")).length);
+    }
+
+    @Test
+    void rejectsUnsupportedEncoding() {
+        IOException error = assertThrows(IOException.class,
+                () -> ContentEncoding.decode(new ByteArrayInputStream(BODY), "br"));
+        assertTrue(error.getMessage().contains("br"), error.getMessage());
+    }
+
+    @Test
+    void errorStatusWinsOverABodyThatFailsToDecode() throws Exception {
+        byte[] page = "<html>502 Bad Gateway</html>".getBytes(StandardCharsets.UTF_8);
+        HttpServer proxy = server(502, "gzip", page);
+        try {
+            GaiaCoreClient client = client(proxy);
+
+            IOException error = assertThrows(IOException.class, () -> client.getLocations(null, null, null));
+            assertEquals("API request failed: <html>502 Bad Gateway</html>", error.getMessage());
+            ExecutionException async = assertThrows(ExecutionException.class,
+                    () -> client.getLocationsAsync(null, null, null).get(5, TimeUnit.SECONDS));
+            assertEquals(error.getMessage(), async.getCause().getMessage());
+        } finally {
+            proxy.stop(0);
+        }
+    }
+
+    @Test
+    void compressedErrorBodyIsDecoded() throws Exception {
+        byte[] error = "{\"code\":\"42P01\"}".getBytes(StandardCharsets.UTF_8);
+        HttpServer server = server(404, "gzip", ContentEncoding.gzip(error));
+        try {
+            GaiaCoreClient client = client(server);
+
+            IOException thrown = assertThrows(IOException.class, () -> client.getLocations(null, null, null));
+            assertEquals("API request failed: {\"code\":\"42P01\"}", thrown.getMessage());
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    private static HttpServer server(int status, String contentEncoding, byte[] body) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            exchange.getResponseHeaders().set("Content-Encoding", contentEncoding);
+            exchange.sendResponseHeaders(status, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+        return server;
+    }
+
+    private static GaiaCoreClient client(HttpServer server) {
+        InetSocketAddress address = server.getAddress();
+        return GaiaCoreClient.builder("http://" + address.getHostString() + ":" + address.getPort())
+                .compression(true)
+                .build();
+    }
+
+    private static byte[] read(InputStream in) throws IOException {
+        try (InputStream body = in) {
+            return body.readAllBytes();
+        }
+    }
+
+    private static byte[] deflate(byte[] body, boolean raw) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, raw);
+        try (DeflaterOutputStream deflate = new DeflaterOutputStream(out, deflater)) {
+            deflate.write(body);
+        } finally {
+            deflater.end();
+        }
+        return out.toByteArray();
+    }
+}
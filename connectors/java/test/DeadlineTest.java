@@ -0,0 +1,260 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.Authenticator;
+import java.net.CookieHandler;
+import java.net.ProxySelector;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLParameters;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Deadlines against a slow stub server: calls fail with {@link DeadlineExceededException}
+ * once the time is up, and nothing further is sent on their behalf.
+ */
+class DeadlineTest {
+    private static final Duration LATENCY = Duration.ofMillis(100);
+
+    @Test
+    void slowLookupFailsAtTheDeadline() throws Exception {
+        try (StubPostgrestServer server = StubPostgrestServer.builder()
+                .generated("location", 10)
+                .latency(Duration.ofSeconds(3))
+                .start()) {
+            GaiaCoreClient client = new GaiaCoreClient(server.getUrl());
+
+            long start = System.nanoTime();
+            assertThrows(DeadlineExceededException.class,
+                    () -> client.getLocations(Arrays.asList(1, 2, 3), Deadline.after(Duration.ofMillis(200))));
+            long elapsed = System.nanoTime() - start;
+
+            assertTrue(elapsed < Duration.ofSeconds(1).toNanos(), "took " + elapsed / 1_000_000 + "ms");
+            assertEquals(1, server.getRequestCount());
+        }
+    }
+
+    @Test
+    void expiredDeadlineSendsNothing() throws Exception {
+        try (StubPostgrestServer server = StubPostgrestServer.builder().generated("location", 10).start()) {
+            GaiaCoreClient client = new GaiaCoreClient(server.getUrl());
+
+            assertThrows(DeadlineExceededException.class,
+                    () -> client.getLocations(Arrays.asList(1, 2, 3), Deadline.after(Duration.ZERO)));
+            assertEquals(0, server.getRequestCount());
+        }
+    }
+
+    @Test
+    void deadlineStopsChunkSplitting() throws Exception {
+        try (StubPostgrestServer server = StubPostgrestServer.builder()
+                .generated("location_history", 16)
+                .maxRows(3)
+                .latency(LATENCY)
+                .start()) {
+            GaiaCoreClient client = new GaiaCoreClient(server.getUrl());
+            List<Integer> persons = new ArrayList<>();
+            for (int person = 1; person <= 16; person++) persons.add(person);
+
+            assertThrows(DeadlineExceededException.class,
+                    () -> client.getLocationHistoryForPersons(persons, Deadline.after(Duration.ofMillis(250))));
+            long sent = server.getRequestCount();
+            Thread.sleep(4 * LATENCY.toMillis());
+
+            // Unbounded, 16 persons at 3 rows per response would take 1 + 2 + 4 + 8 requests
+            assertTrue(sent < 15, sent + " requests");
+            assertEquals(sent, server.getRequestCount(), "no split was sent after the deadline");
+        }
+    }
+
+    @Test
+    void deadlineCutsRetriesShort() throws Exception {
+        try (StubPostgrestServer server = StubPostgrestServer.builder()
+                .generated("location", 10)
+                .latency(LATENCY)
+                .start()) {
+            GaiaCoreClient client = GaiaCoreClient.builder(server.getUrl())
+                    .retry(RetryPolicy.builder()
+                            .maxAttempts(10)
+                            .backoff(Duration.ofMillis(50), Duration.ofMillis(50))
+                            .build())
+                    .build();
+            server.failNext(100, 503);
+
+            assertThrows(DeadlineExceededException.class,
+                    () -> client.getLocations(Arrays.asList(1, 2), Deadline.after(Duration.ofMillis(300))));
+            long sent = server.getRequestCount();
+            Thread.sleep(3 * LATENCY.toMillis());
+
+            assertTrue(sent < 10, sent + " requests");
+            assertEquals(sent, server.getRequestCount(), "no retry was sent after the deadline");
+        }
+    }
+
+    @Test
+    void retriesThatWouldOutlastTheDeadlineAreNotCounted() throws Exception {
+        try (StubPostgrestServer server = StubPostgrestServer.builder().generated("location", 10).start()) {
+            // The backoff is random, so repeat; a retry is either sent in time or not at all
+            for (int run = 0; run < 5; run++) {
+                GaiaCoreClient client = GaiaCoreClient.builder(server.getUrl())
+                        .retry(RetryPolicy.builder()
+                                .maxAttempts(2)
+                                .backoff(Duration.ofMillis(500), Duration.ofMillis(500))
+                                .build())
+                        .circuitBreakers(CircuitBreakerPolicy.builder().window(10, 10).build())
+                        .adaptiveConcurrency(4, 16)
+                        .build();
+                long before = server.getRequestCount();
+                server.failNext(2, 503);
+
+                assertThrows(IOException.class,
+                        () -> client.getLocations(Arrays.asList(1, 2), Deadline.after(Duration.ofMillis(100))));
+                Thread.sleep(600); // past the longest backoff
+
+                long sent = server.getRequestCount() - before;
+                server.failNext(0, 503);
+                assertEquals(sent, client.getCircuitBreakers().get("location").getBufferedCalls(),
+                        "the breaker counts only requests that were sent");
+            }
+        }
+    }
+
+    @Test
+    void everyAttemptIsSentWithTheTimeLeft() throws Exception {
+        try (StubPostgrestServer server = StubPostgrestServer.builder().generated("location", 10).start()) {
+            RecordingHttpClient http = new RecordingHttpClient(HttpClient.newHttpClient());
+            GaiaCoreClient client = GaiaCoreClient.builder(server.getUrl())
+                    .httpClient(http)
+                    .retry(RetryPolicy.builder()
+                            .maxAttempts(3)
+                            .backoff(Duration.ofMillis(20), Duration.ofMillis(20))
+                            .build())
+                    .build();
+            server.failNext(2, 503);
+
+            client.getLocations(Arrays.asList(1, 2), Deadline.after(Duration.ofSeconds(5)));
+            client.getLocations(Arrays.asList(3));
+
+            assertEquals(4, http.timeouts.size());
+            for (Optional<Duration> timeout : http.timeouts.subList(0, 3)) {
+                assertTrue(timeout.isPresent() && timeout.get().compareTo(Duration.ofSeconds(5)) <= 0,
+                        "attempt sent with " + timeout);
+            }
+            assertTrue(http.timeouts.get(1).get().compareTo(http.timeouts.get(0).get()) < 0,
+                    "a retry gets only the time that is left");
+            assertEquals(Optional.empty(), http.timeouts.get(3), "the deadline does not leak into later calls");
+        }
+    }
+
+    @Test
+    void singleRowLookupsTakeADeadline() throws Exception {
+        try (StubPostgrestServer server = StubPostgrestServer.builder()
+                .generated("location", 10)
+                .generated("data_source", 3)
+                .start();
+             GaiaCoreClient coalescing = GaiaCoreClient.builder(server.getUrl())
+                     .coalesceLookups(Duration.ofMillis(5), 10)
+                     .build()) {
+            GaiaCoreClient client = new GaiaCoreClient(server.getUrl());
+            Deadline deadline = Deadline.after(Duration.ofSeconds(5));
+
+            assertEquals(4.0, client.getLocation(4, null, deadline).get("location_id"));
+            assertEquals("Dataset 2", client.getDataSourceAsync(
+                    (String) client.getDataSources().get(1).get("data_source_uuid"), null, deadline)
+                    .get().get("dataset_name"));
+            assertEquals(4.0, coalescing.getLocation(4, null, deadline).get("location_id"));
+            assertEquals(Collections.singleton("city"), coalescing.getLocation(4, "city", deadline).keySet());
+
+            server.delayNext(2, Duration.ofSeconds(3));
+            long start = System.nanoTime();
+            assertThrows(DeadlineExceededException.class,
+                    () -> client.getLocation(5, null, Deadline.after(Duration.ofMillis(200))));
+            assertThrows(DeadlineExceededException.class,
+                    () -> coalescing.getLocation(5, null, Deadline.after(Duration.ofMillis(200))));
+            long elapsed = System.nanoTime() - start;
+            assertTrue(elapsed < Duration.ofSeconds(2).toNanos(), "took " + elapsed / 1_000_000 + "ms");
+        }
+    }
+
+    @Test
+    void paginationStopsAtTheDeadline() throws Exception {
+        try (StubPostgrestServer server = StubPostgrestServer.builder()
+                .generated("location", 50)
+                .latency(LATENCY)
+                .start()) {
+            GaiaCoreClient client = new GaiaCoreClient(server.getUrl());
+
+            List<Map<String, Object>> rows = new ArrayList<>();
+            UncheckedIOException error = assertThrows(UncheckedIOException.class, () -> {
+                try (KeysetIterator<Map<String, Object>> pages = client.paginate("location", "working",
+                        "location_id", null, 10, Deadline.after(Duration.ofMillis(250)))) {
+                    pages.forEachRemaining(rows::add);
+                }
+            });
+
+            assertInstanceOf(DeadlineExceededException.class, error.getCause());
+            assertTrue(rows.size() < 50, rows.size() + " rows");
+            assertEquals(0, rows.size() % 10, "only whole pages are returned");
+        }
+    }
+
+    /**
+     * Sends through another HttpClient, noting the timeout of every request
+     */
+    private static final class RecordingHttpClient extends HttpClient {
+        private final HttpClient delegate;
+        final List<Optional<Duration>> timeouts = new CopyOnWriteArrayList<>();
+
+        RecordingHttpClient(HttpClient delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> handler)
+                throws IOException, InterruptedException {
+            timeouts.add(request.timeout());
+            return delegate.send(request, handler);
+        }
+
+        @Override
+        public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request,
+                                                                HttpResponse.BodyHandler<T> handler) {
+            timeouts.add(request.timeout());
+            return delegate.sendAsync(request, handler);
+        }
+
+        @Override
+        public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request,
+                                                                HttpResponse.BodyHandler<T> handler,
+                                                                HttpResponse.PushPromiseHandler<T> push) {
+            timeouts.add(request.timeout());
+            return delegate.sendAsync(request, handler, push);
+        }
+
+        @Override public Optional<CookieHandler> cookieHandler() { return delegate.cookieHandler(); }
+        @Override public Optional<Duration> connectTimeout() { return delegate.connectTimeout(); }
+        @Override public Redirect followRedirects() { return delegate.followRedirects(); }
+        @Override public Optional<ProxySelector> proxy() { return delegate.proxy(); }
+        @Override public SSLContext sslContext() { return delegate.sslContext(); }
+        @Override public SSLParameters sslParameters() { return delegate.sslParameters(); }
+        @Override public Optional<Authenticator> authenticator() { return delegate.authenticator(); }
+        @Override public Version version() { return delegate.version(); }
+        @Override public Optional<Executor> executor() { return delegate.executor(); }
+    }
+}
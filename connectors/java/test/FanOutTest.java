@@ -0,0 +1,138 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * {@link FanOut} and {@link GaiaCoreClient#fanOut}: the parallelism bound, ordering,
+ * and cancelling the remaining calls, and waiting for them, once one fails.
+ */
+class FanOutTest {
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void shutDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void runsAtMostParallelismCallsAtOnce() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        List<Integer> keys = new ArrayList<>();
+        for (int key = 10; key > 0; key--) keys.add(key);
+
+        Map<Integer, Integer> results = FanOut.invokeAll(executor, 3, keys, key -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            Thread.sleep(20);
+            running.decrementAndGet();
+            return key * key;
+        });
+
+        assertEquals(3, maxRunning.get());
+        assertEquals(keys, new ArrayList<>(results.keySet()), "results come back in key order");
+        assertEquals(49, results.get(7));
+    }
+
+    @Test
+    void duplicateKeysAreCalledOnce() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+
+        Map<String, String> results = FanOut.invokeAll(executor, 0, Arrays.asList("a", "b", "a"), key -> {
+            calls.incrementAndGet();
+            return key.toUpperCase();
+        });
+
+        assertEquals(2, calls.get());
+        assertEquals(Arrays.asList("A", "B"), new ArrayList<>(results.values()));
+    }
+
+    @Test
+    void firstFailureCancelsTheRemainingCalls() throws Exception {
+        CountDownLatch started = new CountDownLatch(2);
+        CountDownLatch interrupted = new CountDownLatch(2);
+        AtomicInteger calls = new AtomicInteger();
+        IOException failure = new IOException("boom");
+
+        IOException thrown = assertThrows(IOException.class,
+                () -> FanOut.invokeAll(executor, 3, Arrays.asList(1, 2, 3, 4, 5, 6), key -> {
+                    calls.incrementAndGet();
+                    if (key == 3) {
+                        started.await();
+                        throw failure;
+                    }
+                    started.countDown();
+                    try {
+                        Thread.sleep(10_000);
+                    } catch (InterruptedException e) {
+                        interrupted.countDown();
+                        throw e;
+                    }
+                    return key;
+                }));
+
+        assertSame(failure, thrown);
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS), "the slow calls were interrupted");
+        assertEquals(3, calls.get(), "no call was started after the failure");
+    }
+
+    @Test
+    void noCallIsStillRunningWhenTheFailureIsRethrown() {
+        CountDownLatch started = new CountDownLatch(2);
+        AtomicInteger running = new AtomicInteger();
+
+        assertThrows(IOException.class,
+                () -> FanOut.invokeAll(executor, 0, Arrays.asList(1, 2, 3), key -> {
+                    if (key == 3) {
+                        started.await();
+                        throw new IOException("boom");
+                    }
+                    running.incrementAndGet();
+                    started.countDown();
+                    // Like a blocking send on Java 11, ignore the interrupt for a while
+                    long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(200);
+                    while (System.nanoTime() < end) {
+                        try {
+                            Thread.sleep(10);
+                        } catch (InterruptedException ignored) {
+                        }
+                    }
+                    running.decrementAndGet();
+                    return key;
+                }));
+
+        assertEquals(0, running.get());
+    }
+
+    @Test
+    void clientFanOutIsBoundedAndRejectedOnceClosed() throws Exception {
+        GaiaCoreClient client = GaiaCoreClient.builder("http://localhost:1").fanOutParallelism(2).build();
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+
+        Map<Integer, Integer> results = client.fanOut(Arrays.asList(1, 2, 3, 4, 5), key -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            Thread.sleep(20);
+            running.decrementAndGet();
+            return -key;
+        });
+        assertEquals(5, results.size());
+        assertEquals(2, maxRunning.get());
+
+        client.close();
+        assertThrows(IllegalStateException.class, () -> client.fanOut(Arrays.asList(1), key -> key));
+    }
+}
@@ -0,0 +1,89 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Hedged reads against the stub server. Each test first sends enough fast requests for
+ * the endpoint's latency percentile to be trusted, then slows down a single request.
+ */
+class HedgingTest {
+    private static final int WARM_UP = 32;
+    private static final Duration SLOW = Duration.ofSeconds(2);
+
+    @Test
+    void slowReadIsHedgedAndTheDuplicateWins() throws Exception {
+        try (StubPostgrestServer server = StubPostgrestServer.builder().generated("location", 10).start()) {
+            GaiaCoreClient client = GaiaCoreClient.builder(server.getUrl())
+                    .hedging(HedgePolicy.builder().minDelay(Duration.ofMillis(200)).budget(0.5).build())
+                    .build();
+            warmUp(client);
+
+            server.delayNext(1, SLOW);
+            long start = System.nanoTime();
+            assertEquals(10, client.getLocations(null, null, null).size());
+            long elapsed = System.nanoTime() - start;
+
+            assertTrue(elapsed < SLOW.toNanos() / 2, "took " + elapsed / 1_000_000 + "ms");
+            assertEquals(1, client.getHedgedRequests());
+            // The win is counted just after the winning copy completes the caller's result
+            long deadline = System.nanoTime() + SLOW.toNanos();
+            while (client.getHedgeWins() == 0 && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            assertEquals(1, client.getHedgeWins());
+            assertEquals(WARM_UP + 2, server.getRequestCount());
+        }
+    }
+
+    @Test
+    void exhaustedBudgetStopsHedging() throws Exception {
+        try (StubPostgrestServer server = StubPostgrestServer.builder().generated("location", 10).start()) {
+            GaiaCoreClient client = GaiaCoreClient.builder(server.getUrl())
+                    .hedging(HedgePolicy.builder().minDelay(Duration.ofMillis(200)).budget(0.05, 1).build())
+                    .build();
+            warmUp(client);
+
+            server.delayNext(1, SLOW);
+            client.getLocations(null, null, null);
+            server.delayNext(1, Duration.ofMillis(500));
+            long start = System.nanoTime();
+            client.getLocations(null, null, null);
+            long elapsed = System.nanoTime() - start;
+
+            assertTrue(elapsed >= Duration.ofMillis(500).toNanos(), "took " + elapsed / 1_000_000 + "ms");
+            assertEquals(1, client.getHedgedRequests());
+            assertEquals(WARM_UP + 3, server.getRequestCount());
+        }
+    }
+
+    @Test
+    void onlyListedEndpointsAreHedged() throws Exception {
+        try (StubPostgrestServer server = StubPostgrestServer.builder()
+                .generated("location", 10)
+                .generated("data_source", 3)
+                .start()) {
+            GaiaCoreClient client = GaiaCoreClient.builder(server.getUrl())
+                    .hedging(HedgePolicy.builder().minDelay(Duration.ofMillis(50)).budget(0.5)
+                            .endpoints("location").build())
+                    .build();
+            for (int i = 0; i < WARM_UP; i++) {
+                client.getDataSources();
+            }
+
+            server.delayNext(1, Duration.ofMillis(300));
+            assertEquals(3, client.getDataSources().size());
+
+            assertEquals(0, client.getHedgedRequests());
+            assertEquals(WARM_UP + 1, server.getRequestCount());
+        }
+    }
+
+    private static void warmUp(GaiaCoreClient client) throws Exception {
+        for (int i = 0; i < WARM_UP; i++) {
+            client.getLocations(null, null, null);
+        }
+        assertEquals(0, client.getHedgedRequests());
+    }
+}
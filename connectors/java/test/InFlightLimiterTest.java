@@ -0,0 +1,113 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+/**
+ * {@link InFlightLimiter} on its own: permits are handed to waiters in order, waiters
+ * that gave up are skipped, and a full queue rejects rather than blocks.
+ */
+class InFlightLimiterTest {
+
+    @Test
+    void handsPermitsToWaitersInOrder() {
+        InFlightLimiter limiter = new InFlightLimiter(2);
+        assertTrue(limiter.acquire().isDone());
+        assertTrue(limiter.acquire().isDone());
+        CompletableFuture<Void> first = limiter.acquire();
+        CompletableFuture<Void> second = limiter.acquire();
+        assertFalse(first.isDone());
+        assertEquals(2, limiter.getInFlight());
+
+        limiter.release();
+        assertTrue(first.isDone());
+        assertFalse(second.isDone());
+        assertEquals(2, limiter.getInFlight());
+
+        limiter.release();
+        limiter.release();
+        limiter.release();
+        assertTrue(second.isDone());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void skipsWaitersThatWereCancelled() {
+        InFlightLimiter limiter = new InFlightLimiter(1);
+        limiter.acquire();
+        CompletableFuture<Void> cancelled = limiter.acquire();
+        CompletableFuture<Void> waiting = limiter.acquire();
+        cancelled.cancel(false);
+
+        limiter.release();
+        assertTrue(waiting.isDone());
+        assertFalse(waiting.isCompletedExceptionally());
+        assertEquals(1, limiter.getInFlight());
+    }
+
+    @Test
+    void fullQueueRejectsAsyncAndBlockingAcquires() throws Exception {
+        InFlightLimiter limiter = new InFlightLimiter(1, 1);
+        limiter.acquire();
+        CompletableFuture<Void> queued = limiter.acquire();
+
+        CompletableFuture<Void> overflow = limiter.acquire();
+        ExecutionException error = assertThrows(ExecutionException.class, overflow::get);
+        assertInstanceOf(RequestRejectedException.class, error.getCause());
+        assertThrows(RequestRejectedException.class, limiter::acquireBlocking, "rejected, not parked");
+        assertEquals(2, limiter.getRejected());
+        assertEquals(1, limiter.getQueued());
+
+        limiter.release();
+        assertTrue(queued.isDone());
+        assertEquals(0, limiter.getQueued());
+        assertEquals(1, limiter.getInFlight());
+    }
+
+    @Test
+    void blockingAcquireWaitsForARelease() throws Exception {
+        InFlightLimiter limiter = new InFlightLimiter(1);
+        limiter.acquire();
+        CountDownLatch acquired = new CountDownLatch(1);
+        Thread waiter = new Thread(() -> {
+            try {
+                limiter.acquireBlocking();
+                acquired.countDown();
+            } catch (Exception e) {
+                throw new AssertionError(e);
+            }
+        });
+        waiter.start();
+
+        assertFalse(acquired.await(100, TimeUnit.MILLISECONDS));
+        assertEquals(1, limiter.getQueued());
+        limiter.release();
+        assertTrue(acquired.await(5, TimeUnit.SECONDS));
+        assertEquals(1, limiter.getInFlight());
+        waiter.join();
+    }
+
+    @Test
+    void interruptedBlockingAcquireLeavesNoPermitBehind() throws Exception {
+        InFlightLimiter limiter = new InFlightLimiter(1);
+        limiter.acquire();
+        Thread.currentThread().interrupt();
+
+        assertThrows(InterruptedException.class, limiter::acquireBlocking);
+        limiter.release();
+        assertEquals(0, limiter.getInFlight());
+        assertTrue(limiter.acquire().isDone());
+    }
+
+    @Test
+    void rejectsANonPositiveLimit() {
+        assertThrows(IllegalArgumentException.class, () -> new InFlightLimiter(0));
+    }
+}
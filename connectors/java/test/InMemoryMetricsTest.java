@@ -0,0 +1,72 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Map;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * {@link InMemoryMetrics}: what each measurement adds to its endpoint, and publishing
+ * endpoints as MXBeans, including endpoints first called after registration.
+ */
+class InMemoryMetricsTest {
+
+    @Test
+    void countsResponsesErrorsAndFailuresPerEndpoint() {
+        InMemoryMetrics metrics = new InMemoryMetrics();
+        metrics.recordResponse("location", 200, 4_000_000, 1_000_000, 2_000_000, 1500, 20);
+        metrics.recordResponse("location", 200, 6_000_000, 1_000_000, 3_000_000, 500, 0);
+        metrics.recordResponse("location", 503, 1_000_000, 1_000_000, 0, 100, -1);
+        metrics.recordFailure("location", new IOException("reset"), 9_000_000);
+        metrics.recordResponse("data_source", 200, 1_000_000, 500_000, 100_000, 10, 1);
+
+        InMemoryMetrics.Endpoint location = metrics.getEndpoint("location");
+        assertEquals(4, location.getRequests());
+        assertEquals(1, location.getErrors());
+        assertEquals(1, location.getFailures());
+        assertEquals(Map.of("200", 2L, "503", 1L), location.getStatusCodes());
+        assertEquals(2100, location.getResponseBytes());
+        assertEquals(20, location.getRows());
+        assertEquals(3, location.getFirstByte().getCount(), "every response, not failures");
+        assertEquals(2, location.getDecode().getCount(), "successful responses only");
+        assertEquals(5.0, location.getLatencyMeanMillis(), 1e-9);
+        assertEquals(9.0, location.getLatencyMaxMillis(), 1e-9);
+        assertEquals(List.of("data_source", "location"), List.copyOf(metrics.getEndpoints().keySet()));
+        assertNull(metrics.getEndpoint("variable_source"));
+    }
+
+    @Test
+    void publishesEndpointsOverJmx() throws Exception {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        InMemoryMetrics metrics = new InMemoryMetrics();
+        metrics.recordResponse("location", 200, 2_000_000, 1_000_000, 500_000, 100, 5);
+        ObjectName location = new ObjectName("org.gaiacore:type=GaiaCoreClient,client=\"metrics-test\","
+                + "endpoint=\"location\"");
+        ObjectName rpc = new ObjectName("org.gaiacore:type=GaiaCoreClient,client=\"metrics-test\","
+                + "endpoint=\"rpc/spatial_join_exposure\"");
+
+        metrics.registerMBeans("metrics-test");
+        try {
+            assertTrue(server.isRegistered(location));
+            assertEquals(1L, server.getAttribute(location, "Requests"));
+            assertEquals(5L, server.getAttribute(location, "Rows"));
+
+            metrics.recordResponse("rpc/spatial_join_exposure", 200, 1_000_000, 1_000_000, 0, 10, 1);
+            assertTrue(server.isRegistered(rpc), "endpoints called later are registered too");
+            assertEquals(1L, server.getAttribute(rpc, "Requests"));
+
+            assertThrows(IllegalStateException.class, () -> metrics.registerMBeans("again"));
+        } finally {
+            metrics.unregisterMBeans();
+        }
+        assertFalse(server.isRegistered(location));
+        assertFalse(server.isRegistered(rpc));
+    }
+}
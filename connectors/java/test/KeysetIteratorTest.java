@@ -0,0 +1,104 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import org.junit.jupiter.api.Test;
+
+/**
+ * {@link GaiaCoreClient#paginate} against the stub server, whose {@code maxRows}
+ * truncates pages the way PostgREST's {@code db-max-rows} does.
+ */
+class KeysetIteratorTest {
+
+    @Test
+    void pagesThroughWholeTableInKeyOrder() throws Exception {
+        try (StubPostgrestServer server = StubPostgrestServer.builder().generated("location", 50).start()) {
+            GaiaCoreClient client = new GaiaCoreClient(server.getUrl());
+
+            List<Long> ids = new ArrayList<>();
+            try (KeysetIterator<Map<String, Object>> rows = client.paginate("location", "working", "location_id",
+                    null, 10)) {
+                rows.forEachRemaining(row -> ids.add(((Number) row.get("location_id")).longValue()));
+            }
+
+            assertEquals(50, ids.size());
+            for (int i = 0; i < ids.size(); i++) {
+                assertEquals(i + 1, ids.get(i));
+            }
+            // 5 full pages, then the empty page that ends iteration
+            assertEquals(6, server.getRequestCount());
+        }
+    }
+
+    @Test
+    void keepsPagingPastPagesTruncatedByMaxRows() throws Exception {
+        try (StubPostgrestServer server = StubPostgrestServer.builder()
+                .generated("location", 50)
+                .maxRows(7)
+                .start()) {
+            GaiaCoreClient client = new GaiaCoreClient(server.getUrl());
+
+            List<Long> ids = new ArrayList<>();
+            try (KeysetIterator<Map<String, Object>> rows = client.paginate("location", "working", "location_id",
+                    null, 10)) {
+                rows.forEachRemaining(row -> ids.add(((Number) row.get("location_id")).longValue()));
+            }
+
+            assertEquals(50, ids.size());
+            assertEquals(50, ids.stream().distinct().count());
+            // 8 pages of at most 7 rows, then an empty one
+            assertEquals(9, server.getRequestCount());
+        }
+    }
+
+    @Test
+    void appliesFiltersToEveryPage() throws Exception {
+        try (StubPostgrestServer server = StubPostgrestServer.builder().generated("location", 40).start()) {
+            GaiaCoreClient client = new GaiaCoreClient(server.getUrl());
+
+            List<Object> cities = new ArrayList<>();
+            try (KeysetIterator<Map<String, Object>> rows = client.paginate("location", "working", "location_id",
+                    Collections.singletonMap("city", "eq.BOSTON"), 3)) {
+                rows.forEachRemaining(row -> cities.add(row.get("city")));
+            }
+
+            long expected = client.getLocations("BOSTON", null, null).size();
+            assertTrue(expected > 3, "fixture should span several pages");
+            assertEquals(expected, cities.size());
+            assertEquals(Collections.frequency(cities, "BOSTON"), cities.size());
+        }
+    }
+
+    @Test
+    void emptyTableEndsAfterOneRequest() throws Exception {
+        try (StubPostgrestServer server = StubPostgrestServer.builder()
+                .table("location", Collections.emptyList())
+                .start()) {
+            GaiaCoreClient client = new GaiaCoreClient(server.getUrl());
+
+            try (KeysetIterator<Map<String, Object>> rows = client.paginate("location", "working", "location_id",
+                    null, 10)) {
+                assertFalse(rows.hasNext());
+                assertThrows(NoSuchElementException.class, rows::next);
+            }
+            assertEquals(1, server.getRequestCount());
+        }
+    }
+
+    @Test
+    void rejectsParametersManagedByThePaginator() throws Exception {
+        try (StubPostgrestServer server = StubPostgrestServer.builder().generated("location", 1).start()) {
+            GaiaCoreClient client = new GaiaCoreClient(server.getUrl());
+
+            assertThrows(IllegalArgumentException.class, () -> client.paginate("location", "working",
+                    "location_id", Collections.singletonMap("order", "city.asc"), 10));
+            assertEquals(0, server.getRequestCount());
+        }
+    }
+}
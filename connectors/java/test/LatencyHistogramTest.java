@@ -0,0 +1,100 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+/**
+ * {@link LatencyHistogram}: exact buckets for small values, percentiles within the
+ * bucket precision over a wide range, and counts under concurrent recording.
+ */
+class LatencyHistogramTest {
+
+    @Test
+    void smallValuesAreExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 20; value++) {
+            histogram.record(value);
+        }
+
+        assertEquals(1, histogram.getValueAtPercentile(0));
+        assertEquals(1, histogram.getValueAtPercentile(5));
+        assertEquals(10, histogram.getValueAtPercentile(50));
+        assertEquals(19, histogram.getValueAtPercentile(95));
+        assertEquals(20, histogram.getValueAtPercentile(100));
+        assertEquals(20, histogram.getCount());
+        assertEquals(10.5, histogram.getMean(), 1e-9);
+        assertEquals(20, histogram.getMax());
+    }
+
+    @Test
+    void percentilesStayWithinTheBucketPrecision() {
+        Random random = new Random(7);
+        LatencyHistogram histogram = new LatencyHistogram();
+        long[] values = new long[100_000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (long) Math.exp(random.nextDouble() * Math.log(1e11)); // 1ns to 100s
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+
+        for (double percentile : new double[] {1, 10, 50, 90, 99, 99.9, 99.99}) {
+            long exact = values[(int) Math.ceil(percentile / 100 * values.length) - 1];
+            long estimate = histogram.getValueAtPercentile(percentile);
+            assertTrue(estimate >= exact, percentile + ": " + estimate + " below " + exact);
+            assertTrue(estimate <= exact + exact / 32, percentile + ": " + estimate + " too far above " + exact);
+        }
+        assertEquals(values[values.length - 1], histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    void bucketBoundariesAreKeptApart() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(31);
+        histogram.record(32);
+        histogram.record(64);
+        histogram.record(66);
+        histogram.record(Long.MAX_VALUE);
+
+        assertEquals(31, histogram.getValueAtPercentile(20));
+        assertEquals(32, histogram.getValueAtPercentile(40));
+        assertEquals(65, histogram.getValueAtPercentile(60), "64 shares a two-wide bucket with 65");
+        assertEquals(67, histogram.getValueAtPercentile(80));
+        assertEquals(Long.MAX_VALUE, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    void emptyAndNegativeValues() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getValueAtPercentile(99));
+        assertEquals(0, histogram.getMean());
+
+        histogram.record(-5);
+        assertEquals(1, histogram.getCount());
+        assertEquals(0, histogram.getMax(), "negative durations count as 0");
+        assertThrows(IllegalArgumentException.class, () -> histogram.getValueAtPercentile(100.1));
+        assertThrows(IllegalArgumentException.class, () -> histogram.getValueAtPercentile(-1));
+    }
+
+    @Test
+    void concurrentRecordingLosesNothing() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int thread = 0; thread < 8; thread++) {
+            executor.execute(() -> {
+                for (int i = 1; i <= 10_000; i++) histogram.record(i);
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(80_000, histogram.getCount());
+        assertEquals(5000.5, histogram.getMean(), 1e-9);
+        assertEquals(10_000, histogram.getMax());
+    }
+}
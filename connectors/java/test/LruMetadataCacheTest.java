@@ -0,0 +1,58 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+
+/**
+ * {@link LruMetadataCache} on its own: least recently used eviction, expiry after
+ * the time-to-live, and invalidation.
+ */
+class LruMetadataCacheTest {
+
+    @Test
+    void evictsTheLeastRecentlyUsedEntry() {
+        LruMetadataCache cache = new LruMetadataCache(2, Duration.ofMinutes(1));
+        cache.put("a", 1);
+        cache.put("b", 2);
+        assertEquals(1, cache.get("a"));
+
+        cache.put("c", 3);
+        assertNull(cache.get("b"), "b was used least recently");
+        assertEquals(1, cache.get("a"));
+        assertEquals(3, cache.get("c"));
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void entriesExpireAfterTheirTtl() throws Exception {
+        LruMetadataCache cache = new LruMetadataCache(10, Duration.ofMillis(50));
+        cache.put("a", 1);
+        assertEquals(1, cache.get("a"));
+
+        Thread.sleep(100);
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size(), "expired entries are dropped when read");
+
+        cache.put("a", 2);
+        assertEquals(2, cache.get("a"), "storing again restarts the clock");
+    }
+
+    @Test
+    void invalidateAllDropsEveryEntry() {
+        LruMetadataCache cache = new LruMetadataCache(10, Duration.ofMinutes(1));
+        cache.put("a", 1);
+        cache.put("b", 2);
+
+        cache.invalidateAll();
+        assertEquals(0, cache.size());
+        assertNull(cache.get("a"));
+    }
+
+    @Test
+    void rejectsInvalidBounds() {
+        assertThrows(IllegalArgumentException.class, () -> new LruMetadataCache(0, Duration.ofMinutes(1)));
+        assertThrows(IllegalArgumentException.class, () -> new LruMetadataCache(10, Duration.ZERO));
+    }
+}
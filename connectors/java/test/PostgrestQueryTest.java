@@ -0,0 +1,130 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Query strings rendered by {@link PostgrestQuery}: every filter operator, negation,
+ * nested or/and groups, quoting of reserved characters in operands, and the select,
+ * embed, order and range parameters.
+ */
+class PostgrestQueryTest {
+
+    private static PostgrestQuery location() {
+        return PostgrestQuery.from("location", "working");
+    }
+
+    @Test
+    void rendersEachComparisonOperator() {
+        assertEquals("city=eq.Boston", decoded(location().eq("city", "Boston")));
+        assertEquals("city=neq.Boston", decoded(location().neq("city", "Boston")));
+        assertEquals("location_id=gt.10", decoded(location().gt("location_id", 10)));
+        assertEquals("location_id=gte.10", decoded(location().gte("location_id", 10)));
+        assertEquals("latitude=lt.42.5", decoded(location().lt("latitude", 42.5)));
+        assertEquals("latitude=lte.42.5", decoded(location().lte("latitude", 42.5)));
+        assertEquals("city=like.Bos*", decoded(location().like("city", "Bos*")));
+        assertEquals("city=ilike.*ton", decoded(location().ilike("city", "*ton")));
+        assertEquals("location_id=in.(1,2,3)", decoded(location().in("location_id", List.of(1, 2, 3))));
+        assertEquals("county=is.null", decoded(location().isNull("county")));
+        assertEquals("active=is.true", decoded(location().is("active", true)));
+        assertEquals("city=not.eq.Boston", decoded(location().not(PostgrestQuery.Filter.eq("city", "Boston"))));
+    }
+
+    @Test
+    void topLevelOperandsAreEncodedNotQuoted() {
+        assertEquals("city=eq.New York", decoded(location().eq("city", "New York")));
+        assertEquals("address_1=eq.1&A, Main St.", decoded(location().eq("address_1", "1&A, Main St.")));
+
+        String raw = location().eq("zip", "+1=2&x").toQueryString();
+        assertEquals(-1, raw.indexOf('&'), raw);
+        assertEquals(raw.indexOf('='), raw.lastIndexOf('='), raw);
+        assertEquals("zip=eq.+1=2&x", URLDecoder.decode(raw, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void quotesReservedCharactersInsideListsAndGroups() {
+        assertEquals("city=in.(Boston,\"Washington, D.C.\",\"say \\\"hi\\\"\")",
+                decoded(location().in("city", Arrays.asList("Boston", "Washington, D.C.", "say \"hi\""))));
+        assertEquals("or=(city.eq.\"St. Louis\",zip.eq.\"02134:1\",state.eq.MA)",
+                decoded(location().or(
+                        PostgrestQuery.Filter.eq("city", "St. Louis"),
+                        PostgrestQuery.Filter.eq("zip", "02134:1"),
+                        PostgrestQuery.Filter.eq("state", "MA"))));
+        assertEquals("or=(city.eq.\"back\\\\slash\")",
+                decoded(location().or(PostgrestQuery.Filter.eq("city", "back\\slash"))));
+    }
+
+    @Test
+    void rendersNestedAndNegatedGroups() {
+        PostgrestQuery query = location().or(
+                PostgrestQuery.Filter.and(
+                        PostgrestQuery.Filter.gte("latitude", 40),
+                        PostgrestQuery.Filter.not(PostgrestQuery.Filter.isNull("zip"))),
+                PostgrestQuery.Filter.not(PostgrestQuery.Filter.or(
+                        PostgrestQuery.Filter.eq("state", "MA"),
+                        PostgrestQuery.Filter.in("location_id", List.of(1, 2)))));
+
+        assertEquals("or=(and(latitude.gte.40,zip.not.is.null),not.or(state.eq.MA,location_id.in.(1,2)))",
+                decoded(query));
+        assertEquals("not.and=(city.eq.Boston,state.eq.MA)",
+                decoded(location().not(PostgrestQuery.Filter.and(
+                        PostgrestQuery.Filter.eq("city", "Boston"),
+                        PostgrestQuery.Filter.eq("state", "MA")))));
+    }
+
+    @Test
+    void rendersSelectEmbedOrderAndRange() {
+        PostgrestQuery query = PostgrestQuery.from("location_history", "working")
+                .select("entity_id", "start_date")
+                .embed("location", "city", "state")
+                .eq("location.state", "MA")
+                .order("entity_id")
+                .orderDesc("start_date")
+                .range(100, 149);
+
+        assertEquals("select=entity_id,start_date,location(city,state)&location.state=eq.MA"
+                + "&order=entity_id.asc,start_date.desc&limit=50&offset=100", decoded(query));
+        assertEquals("location_history?" + query.toQueryString(), query.toString());
+        assertEquals("select=*,location(*)",
+                decoded(PostgrestQuery.from("location_history", "working").embed("location")));
+        assertEquals("location", location().toString(), "no query string, no question mark");
+    }
+
+    @Test
+    void rendersAggregateSelects() {
+        PostgrestQuery query = PostgrestQuery.from("external_exposure", "working")
+                .select("location_id", "n:count()", "mean:value_as_number.avg()")
+                .gte("value_as_number", 10)
+                .order("location_id");
+
+        assertEquals("select=location_id,n:count(),mean:value_as_number.avg()&value_as_number=gte.10"
+                + "&order=location_id.asc", decoded(query));
+    }
+
+    @Test
+    void queriesAreImmutable() {
+        PostgrestQuery base = location().eq("state", "MA");
+        PostgrestQuery boston = base.eq("city", "Boston");
+        PostgrestQuery limited = base.limit(5);
+
+        assertEquals("state=eq.MA", decoded(base));
+        assertEquals("state=eq.MA&city=eq.Boston", decoded(boston));
+        assertEquals("state=eq.MA&limit=5", decoded(limited));
+    }
+
+    @Test
+    void rejectsInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> location().limit(-1));
+        assertThrows(IllegalArgumentException.class, () -> location().offset(-1));
+        assertThrows(IllegalArgumentException.class, () -> location().range(10, 5));
+        assertThrows(IllegalArgumentException.class, () -> location().or());
+    }
+
+    private static String decoded(PostgrestQuery query) {
+        return URLDecoder.decode(query.toQueryString(), StandardCharsets.UTF_8);
+    }
+}
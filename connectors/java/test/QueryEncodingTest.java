@@ -0,0 +1,174 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Randomized properties of {@link QueryEncoding}: every filter value must reach
+ * PostgREST exactly as written, and URL budgets rely on {@code encodedLength}.
+ * Runs are seeded, so a failure names the input that caused it.
+ */
+class QueryEncodingTest {
+    private static final int RUNS = 20000;
+    private static final String RESERVED = ",.:()\"\\ \t\n*~-_%+&=?#/";
+
+    @Test
+    void encodeRoundTripsThroughUrlDecoding() {
+        Random random = new Random(1);
+        for (int run = 0; run < RUNS; run++) {
+            String text = randomText(random, false);
+            String decoded = URLDecoder.decode(QueryEncoding.encode(text), StandardCharsets.UTF_8);
+            assertEquals(text, decoded, () -> "round trip of " + escape(text));
+        }
+    }
+
+    @Test
+    void encodedLengthMatchesEncoding() {
+        Random random = new Random(2);
+        for (int run = 0; run < RUNS; run++) {
+            String text = randomText(random, true);
+            assertEquals(QueryEncoding.encode(text).length(), QueryEncoding.encodedLength(text),
+                    () -> "encodedLength of " + escape(text));
+        }
+    }
+
+    @Test
+    void appendMatchesEncode() {
+        Random random = new Random(3);
+        for (int run = 0; run < RUNS; run++) {
+            String text = randomText(random, true);
+            StringBuilder url = new StringBuilder("location?city=");
+            QueryEncoding.append(url, text);
+            assertEquals("location?city=" + QueryEncoding.encode(text), url.toString(),
+                    () -> "append of " + escape(text));
+        }
+    }
+
+    @Test
+    void encodeEmitsOnlyQueryComponentCharacters() {
+        Random random = new Random(4);
+        for (int run = 0; run < RUNS; run++) {
+            String text = randomText(random, true);
+            String encoded = QueryEncoding.encode(text);
+            for (int i = 0; i < encoded.length(); i++) {
+                char c = encoded.charAt(i);
+                if (c == '%') {
+                    assertTrue(i + 2 < encoded.length()
+                            && isHex(encoded.charAt(i + 1)) && isHex(encoded.charAt(i + 2)),
+                            () -> "bad escape in " + encoded);
+                    i += 2;
+                } else {
+                    assertTrue(Character.isLetterOrDigit(c) && c < 128 || "-._~,():*".indexOf(c) >= 0,
+                            () -> "unescaped '" + c + "' in " + encoded);
+                }
+            }
+        }
+    }
+
+    @Test
+    void safeTextIsReturnedUnchanged() {
+        String text = "location_id,city:name.asc(1)*~-";
+        assertSame(text, QueryEncoding.encode(text));
+        String city = "FRESNO";
+        assertSame(city, QueryEncoding.quote(city));
+    }
+
+    @Test
+    void quotedListOperandsParseBackToTheOriginalValues() {
+        Random random = new Random(5);
+        for (int run = 0; run < RUNS / 10; run++) {
+            List<String> values = new ArrayList<>();
+            StringBuilder list = new StringBuilder();
+            int size = 1 + random.nextInt(8);
+            for (int i = 0; i < size; i++) {
+                String value = randomText(random, false);
+                if (value.isEmpty()) value = "x";
+                values.add(value);
+                if (i > 0) list.append(',');
+                list.append(QueryEncoding.quote(value));
+            }
+            // What PostgREST sees for in.(...) or or=(...) once the query string is decoded
+            String received = URLDecoder.decode(QueryEncoding.encode("in.(" + list + ")"), StandardCharsets.UTF_8);
+            assertEquals(values, parseList(received.substring(4, received.length() - 1)),
+                    () -> "in list " + escape(received));
+        }
+    }
+
+    @Test
+    void quoteLeavesPlainOperandsBare() {
+        Random random = new Random(6);
+        for (int run = 0; run < RUNS; run++) {
+            String text = randomText(random, false);
+            String quoted = QueryEncoding.quote(text);
+            boolean reserved = text.chars()
+                    .anyMatch(c -> ",.:()\"\\".indexOf(c) >= 0 || Character.isWhitespace(c));
+            assertEquals(reserved, !quoted.equals(text), () -> "quote of " + escape(text));
+            if (reserved) {
+                assertTrue(quoted.startsWith("\"") && quoted.endsWith("\""), () -> "quote of " + escape(text));
+            }
+        }
+    }
+
+    /**
+     * Split a PostgREST list on commas outside double quotes, unescaping quoted items
+     */
+    private static List<String> parseList(String list) {
+        List<String> items = new ArrayList<>();
+        int i = 0;
+        while (i <= list.length()) {
+            StringBuilder item = new StringBuilder();
+            if (i < list.length() && list.charAt(i) == '"') {
+                i++;
+                while (list.charAt(i) != '"') {
+                    if (list.charAt(i) == '\\') i++;
+                    item.append(list.charAt(i++));
+                }
+                i++;
+            } else {
+                while (i < list.length() && list.charAt(i) != ',') {
+                    item.append(list.charAt(i++));
+                }
+            }
+            items.add(item.toString());
+            i++; // the comma
+        }
+        return items;
+    }
+
+    /**
+     * A short string mixing plain ASCII, characters PostgREST or URLs reserve, two- and
+     * three-byte UTF-8 characters, surrogate pairs and, optionally, unpaired surrogates
+     */
+    private static String randomText(Random random, boolean unpairedSurrogates) {
+        StringBuilder text = new StringBuilder();
+        int length = random.nextInt(24);
+        for (int i = 0; i < length; i++) {
+            switch (random.nextInt(unpairedSurrogates ? 7 : 6)) {
+                case 0: case 1: text.append((char) ('a' + random.nextInt(26))); break;
+                case 2: text.append(RESERVED.charAt(random.nextInt(RESERVED.length()))); break;
+                case 3: text.append((char) (0x80 + random.nextInt(0x780))); break;
+                case 4: text.append((char) (0x800 + random.nextInt(0xD000))); break;
+                case 5: text.appendCodePoint(0x10000 + random.nextInt(0x100000)); break;
+                default: text.append((char) (0xD800 + random.nextInt(0x800))); break;
+            }
+        }
+        return text.toString();
+    }
+
+    private static boolean isHex(char c) {
+        return c >= '0' && c <= '9' || c >= 'A' && c <= 'F';
+    }
+
+    private static String escape(String text) {
+        StringBuilder out = new StringBuilder("\"");
+        text.chars().forEach(c -> out.append(c >= 0x20 && c < 0x7F ? String.valueOf((char) c)
+                : String.format("\\u%04X", c)));
+        return out.append('"').toString();
+    }
+}
@@ -0,0 +1,106 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * {@link QueryTemplate}: values bound to placeholders, rejected argument lists, and
+ * bound values with reserved characters reaching PostgREST as written. See
+ * {@link QueryEncodingTest} for the encoding itself.
+ */
+class QueryTemplateTest {
+    private static final String BASE_URL = "http://localhost:3000";
+
+    private static PostgrestQuery byPerson() {
+        return PostgrestQuery.from("location_history", "working")
+                .select("location_id", "start_date")
+                .eq("entity_id", PostgrestQuery.param("person"))
+                .order("start_date");
+    }
+
+    @Test
+    void bindsValuesToPlaceholders() {
+        QueryTemplate template = new QueryTemplate(BASE_URL, byPerson());
+
+        assertEquals(List.of("person"), template.getParameterNames());
+        assertEquals("working", template.getSchema());
+        assertEquals(BASE_URL + "/location_history?select=location_id,start_date&entity_id=eq.42"
+                + "&order=start_date.asc", decoded(template.url(42)));
+        assertEquals(BASE_URL + "/location_history?select=location_id,start_date&entity_id=eq.7"
+                + "&order=start_date.asc", decoded(template.url(7L)));
+        assertEquals(BASE_URL + "/location_history?select=location_id,start_date&entity_id=eq.{person}"
+                + "&order=start_date.asc", decoded(template.toString()));
+    }
+
+    @Test
+    void matchesTheQueryBuiltWithTheValue() {
+        PostgrestQuery query = PostgrestQuery.from("location", "working")
+                .gte("latitude", PostgrestQuery.param("south"))
+                .lte("latitude", PostgrestQuery.param("north"))
+                .eq("city", PostgrestQuery.param("city"));
+        QueryTemplate template = new QueryTemplate(BASE_URL, query);
+        PostgrestQuery bound = PostgrestQuery.from("location", "working")
+                .gte("latitude", 41.5)
+                .lte("latitude", 42.5)
+                .eq("city", "Boston");
+
+        assertEquals(List.of("south", "north", "city"), template.getParameterNames());
+        assertEquals(BASE_URL + "/" + bound.toPath(), template.url(41.5, 42.5, "Boston"));
+    }
+
+    @Test
+    void aRepeatedPlaceholderIsBoundOnce() {
+        PostgrestQuery query = PostgrestQuery.from("location_history", "working")
+                .lte("start_date", PostgrestQuery.param("day"))
+                .gte("end_date", PostgrestQuery.param("day"));
+        QueryTemplate template = new QueryTemplate(BASE_URL, query);
+
+        assertEquals(List.of("day"), template.getParameterNames());
+        assertEquals(BASE_URL + "/location_history?start_date=lte.2020-01-01&end_date=gte.2020-01-01",
+                decoded(template.url("2020-01-01")));
+    }
+
+    @Test
+    void rejectsMissingExtraAndNullValues() {
+        QueryTemplate template = new QueryTemplate(BASE_URL, byPerson());
+
+        assertThrows(IllegalArgumentException.class, template::url);
+        assertThrows(IllegalArgumentException.class, () -> template.url(1, 2));
+        assertThrows(IllegalArgumentException.class, () -> template.url((Object) null));
+    }
+
+    @Test
+    void reservedCharactersInValuesStayInsideTheValue() {
+        QueryTemplate template = new QueryTemplate(BASE_URL, PostgrestQuery.from("location", "working")
+                .eq("address_1", PostgrestQuery.param("address"))
+                .limit(1));
+
+        for (String value : List.of("1&A Main St", "a=b", "50% off", "C++ #1", "São Paulo", "x,y.(z):*")) {
+            String url = template.url(value);
+            String query = url.substring(url.indexOf('?') + 1);
+            String[] params = query.split("&");
+            assertEquals(2, params.length, url);
+            assertEquals("address_1=eq." + value, URLDecoder.decode(params[0], StandardCharsets.UTF_8), url);
+            assertEquals("limit=1", params[1]);
+        }
+    }
+
+    @Test
+    void placeholdersAreOnlyAllowedInTopLevelComparisons() {
+        PostgrestQuery.Param city = PostgrestQuery.param("city");
+
+        assertThrows(IllegalArgumentException.class,
+                () -> PostgrestQuery.Filter.in("location_id", List.of(PostgrestQuery.param("ids"))));
+        assertThrows(IllegalArgumentException.class,
+                () -> PostgrestQuery.Filter.or(PostgrestQuery.Filter.eq("city", city)));
+        assertThrows(IllegalArgumentException.class, () -> PostgrestQuery.param(""));
+        assertThrows(IllegalArgumentException.class, () -> PostgrestQuery.param(null));
+    }
+
+    private static String decoded(String url) {
+        return URLDecoder.decode(url, StandardCharsets.UTF_8);
+    }
+}
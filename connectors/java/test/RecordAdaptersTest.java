@@ -0,0 +1,118 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Round trips through the typed record adapters: nulls stay null, 0 stays 0 wherever it is
+ * a real value, NaN measurements are written as null, and unknown columns are skipped.
+ */
+class RecordAdaptersTest {
+
+    @Test
+    void locationRoundTrip() throws Exception {
+        Location.Adapter adapter = new Location.Adapter();
+        Location location = adapter.fromJson("{\"location_id\":7,\"address_1\":\"1 Main St\",\"address_2\":null,"
+                + "\"city\":\"Springfield\",\"country_concept_id\":0,\"latitude\":0,\"longitude\":null,"
+                + "\"geom\":{\"type\":\"Point\"}}");
+
+        assertEquals(7, location.getLocationId());
+        assertNull(location.getAddress2());
+        assertEquals(0, location.getCountryConceptId());
+        assertEquals(0.0, location.getLatitude());
+        assertTrue(Double.isNaN(location.getLongitude()));
+
+        JsonObject written = write(adapter.toJson(location));
+        assertEquals(7, written.get("location_id").getAsLong());
+        assertEquals(0, written.get("country_concept_id").getAsInt());
+        assertEquals(0.0, written.get("latitude").getAsDouble());
+        assertTrue(written.get("longitude").isJsonNull());
+        assertTrue(written.get("address_2").isJsonNull());
+        assertFalse(written.has("geom"));
+
+        Location unknownCountry = adapter.fromJson("{\"location_id\":8,\"country_concept_id\":null}");
+        assertNull(unknownCountry.getCountryConceptId());
+        assertTrue(write(adapter.toJson(unknownCountry)).get("country_concept_id").isJsonNull());
+        assertEquals(adapter.toJson(unknownCountry), adapter.toJson(adapter.fromJson(adapter.toJson(unknownCountry))));
+    }
+
+    @Test
+    void locationHistoryRoundTrip() throws Exception {
+        LocationHistory.Adapter adapter = new LocationHistory.Adapter();
+        String json = "{\"location_history_id\":1,\"location_id\":2,\"relationship_type_concept_id\":0,"
+                + "\"domain_id\":\"Person\",\"entity_id\":3,\"start_date\":\"2020-01-01\",\"end_date\":null}";
+        LocationHistory history = adapter.fromJson(json);
+
+        assertEquals(0, history.getRelationshipTypeConceptId());
+        assertNull(history.getEndDate());
+        assertEquals(write(json), write(adapter.toJson(history)));
+
+        LocationHistory untyped = adapter.fromJson("{\"location_history_id\":1,\"relationship_type_concept_id\":null}");
+        assertNull(untyped.getRelationshipTypeConceptId());
+        JsonObject written = write(adapter.toJson(untyped));
+        assertTrue(written.get("relationship_type_concept_id").isJsonNull());
+        assertTrue(written.get("entity_id").isJsonNull(), "the unset id 0 is written as null");
+    }
+
+    @Test
+    void externalExposureRoundTrip() throws Exception {
+        ExternalExposure.Adapter adapter = new ExternalExposure.Adapter();
+        String json = "{\"external_exposure_id\":10,\"location_id\":2,\"person_id\":3,\"exposure_concept_id\":0,"
+                + "\"exposure_start_date\":\"2020-01-01\",\"exposure_end_date\":\"2020-12-31\","
+                + "\"exposure_type_concept_id\":32817,\"exposure_relationship_concept_id\":0,"
+                + "\"exposure_source_concept_id\":null,\"exposure_source_value\":\"pm25\","
+                + "\"exposure_relationship_source_value\":null,\"dose_unit_source_value\":null,"
+                + "\"quantity\":null,\"modifier_source_value\":null,\"operator_concept_id\":0,"
+                + "\"value_as_number\":0.0,\"value_as_concept_id\":null,\"unit_concept_id\":8751}";
+        ExternalExposure exposure = adapter.fromJson(json);
+
+        assertEquals(0, exposure.getExposureConceptId());
+        assertNull(exposure.getExposureSourceConceptId());
+        assertEquals(0, exposure.getOperatorConceptId());
+        assertNull(exposure.getValueAsConceptId());
+        assertEquals(8751, exposure.getUnitConceptId());
+        assertTrue(Double.isNaN(exposure.getQuantity()));
+        assertEquals(0.0, exposure.getValueAsNumber());
+        assertEquals(write(json), write(adapter.toJson(exposure)));
+    }
+
+    @Test
+    void dataSourceRoundTrip() throws Exception {
+        DataSource.Adapter adapter = new DataSource.Adapter();
+        DataSource source = adapter.fromJson("{\"data_source_uuid\":\"a1\",\"dataset_name\":\"PM2.5\","
+                + "\"has_attributes\":\"true\",\"geom_type\":null,\"extra\":[1,2]}");
+
+        assertTrue(source.hasAttributes(), "a boolean sent as text is accepted");
+        assertNull(source.getGeomType());
+
+        JsonObject written = write(adapter.toJson(source));
+        assertEquals("a1", written.get("data_source_uuid").getAsString());
+        assertTrue(written.get("has_attributes").getAsBoolean());
+        assertTrue(written.get("geom_type").isJsonNull());
+        assertFalse(written.has("extra"));
+        assertEquals(written, write(adapter.toJson(adapter.fromJson(adapter.toJson(source)))));
+
+        assertFalse(adapter.fromJson("{\"has_attributes\":null}").hasAttributes());
+    }
+
+    @Test
+    void variableSourceRoundTrip() throws Exception {
+        VariableSource.Adapter adapter = new VariableSource.Adapter();
+        VariableSource variable = adapter.fromJson("{\"variable_source_id\":\"v1\",\"variable_name\":\"pm25\","
+                + "\"variable_desc\":null}");
+
+        assertEquals("pm25", variable.getVariableName());
+        JsonObject written = write(adapter.toJson(variable));
+        assertEquals("v1", written.get("variable_source_id").getAsString());
+        assertTrue(written.get("variable_desc").isJsonNull());
+        assertEquals(written, write(adapter.toJson(adapter.fromJson(adapter.toJson(variable)))));
+    }
+
+    private static JsonObject write(String json) {
+        return JsonParser.parseString(json).getAsJsonObject();
+    }
+}
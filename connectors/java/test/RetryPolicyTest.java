@@ -0,0 +1,155 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipException;
+import org.junit.jupiter.api.Test;
+
+/**
+ * {@link RetryPolicy} classification and backoff, and retries against the stub server.
+ */
+class RetryPolicyTest {
+    private static final RetryPolicy FAST = RetryPolicy.builder()
+            .maxAttempts(3)
+            .backoff(Duration.ofMillis(1), Duration.ofMillis(5))
+            .build();
+
+    @Test
+    void retriesTransientFailuresUntilSuccess() throws Exception {
+        try (StubPostgrestServer server = StubPostgrestServer.builder().generated("location", 10).start()) {
+            GaiaCoreClient client = GaiaCoreClient.builder(server.getUrl()).retry(FAST).build();
+            server.failNext(2, 503);
+
+            assertEquals(10, client.getLocations(null, null, null).size());
+            assertEquals(3, server.getRequestCount());
+        }
+    }
+
+    @Test
+    void retriesAsyncRequestsToo() throws Exception {
+        try (StubPostgrestServer server = StubPostgrestServer.builder().generated("location", 10).start()) {
+            GaiaCoreClient client = GaiaCoreClient.builder(server.getUrl()).retry(FAST).build();
+            server.failNext(2, 502);
+
+            assertEquals(10, client.getLocationsAsync(null, null, null).get(5, TimeUnit.SECONDS).size());
+            assertEquals(3, server.getRequestCount());
+        }
+    }
+
+    @Test
+    void givesUpAfterMaxAttempts() throws Exception {
+        try (StubPostgrestServer server = StubPostgrestServer.builder().generated("location", 10).start()) {
+            GaiaCoreClient client = GaiaCoreClient.builder(server.getUrl()).retry(FAST).build();
+            server.failNext(10, 503);
+
+            GaiaCoreApiException error = assertThrows(GaiaCoreApiException.class,
+                    () -> client.getLocations(null, null, null));
+            assertEquals(503, error.getStatusCode());
+            assertEquals(3, server.getRequestCount());
+        }
+    }
+
+    @Test
+    void doesNotRetryOtherErrorStatuses() throws Exception {
+        try (StubPostgrestServer server = StubPostgrestServer.builder().generated("location", 10).start()) {
+            GaiaCoreClient client = GaiaCoreClient.builder(server.getUrl()).retry(FAST).build();
+            server.failNext(1, 500);
+
+            assertThrows(GaiaCoreApiException.class, () -> client.getLocations(null, null, null));
+            assertEquals(1, server.getRequestCount());
+        }
+    }
+
+    @Test
+    void retriesRpcOnlyWhenMarkedSafe() throws Exception {
+        try (StubPostgrestServer server = StubPostgrestServer.builder().generated("external_exposure", 10).start()) {
+            GaiaCoreClient unsafe = GaiaCoreClient.builder(server.getUrl()).retry(FAST).build();
+            server.failNext(1, 503);
+
+            ExecutionException error = assertThrows(ExecutionException.class,
+                    () -> unsafe.spatialJoinExposureAsync("1", "pm25").get(5, TimeUnit.SECONDS));
+            assertInstanceOf(GaiaCoreApiException.class, error.getCause());
+            server.failNext(1, 503);
+            assertThrows(GaiaCoreApiException.class, () -> unsafe.spatialJoinExposure("1", "pm25"));
+            assertEquals(2, server.getRequestCount());
+
+            GaiaCoreClient safe = GaiaCoreClient.builder(server.getUrl())
+                    .retry(RetryPolicy.builder()
+                            .backoff(Duration.ofMillis(1), Duration.ofMillis(5))
+                            .retryRpc("spatial_join_exposure")
+                            .build())
+                    .build();
+            server.failNext(1, 503);
+
+            assertEquals("ok", safe.spatialJoinExposure("1", "pm25").get("status"));
+            assertEquals(4, server.getRequestCount());
+        }
+    }
+
+    @Test
+    void backoffIsFullyJitteredBelowAGrowingCeiling() {
+        RetryPolicy policy = RetryPolicy.builder()
+                .maxAttempts(10)
+                .backoff(Duration.ofMillis(100), Duration.ofMillis(1000))
+                .build();
+        GaiaCoreApiException unavailable = error(503, null);
+
+        for (int attempt = 1; attempt < 10; attempt++) {
+            long ceiling = Math.min(100L << (attempt - 1), 1000);
+            long max = 0;
+            long min = Long.MAX_VALUE;
+            for (int i = 0; i < 200; i++) {
+                long delay = policy.backoff("GET", "location", unavailable, attempt).toMillis();
+                assertTrue(delay <= ceiling, "attempt " + attempt + " waited " + delay + "ms");
+                max = Math.max(max, delay);
+                min = Math.min(min, delay);
+            }
+            // Full jitter spreads retries over the whole range rather than around the ceiling
+            assertTrue(max > ceiling / 2, "attempt " + attempt + " never waited more than " + max + "ms");
+            assertTrue(min < ceiling / 2, "attempt " + attempt + " never waited less than " + min + "ms");
+        }
+        assertNull(policy.backoff("GET", "location", unavailable, 10));
+    }
+
+    @Test
+    void honoursRetryAfterUpToTheMaximumBackoff() {
+        RetryPolicy policy = RetryPolicy.builder()
+                .backoff(Duration.ofMillis(1), Duration.ofSeconds(10))
+                .build();
+
+        assertEquals(Duration.ofSeconds(2), policy.backoff("GET", "location", error(429, Duration.ofSeconds(2)), 1));
+        assertNull(policy.backoff("GET", "location", error(429, Duration.ofMinutes(1)), 1));
+    }
+
+    @Test
+    void classifiesFailuresByRequestAndCause() {
+        RetryPolicy policy = RetryPolicy.defaults();
+
+        assertNull(policy.backoff("POST", "rpc/spatial_join_exposure", error(503, null), 1));
+        assertNull(policy.backoff("GET", "location", error(404, null), 1));
+        assertNull(policy.backoff("GET", "location", new RequestRejectedException("queue full"), 1));
+        assertNotNull(policy.backoff("POST", "rpc/spatial_join_exposure", new ConnectException(), 1));
+        assertNotNull(policy.backoff("GET", "location", new IOException("reset"), 1));
+        assertNull(policy.backoff("GET", "location", new ZipException("bad gzip"), 1));
+    }
+
+    @Test
+    void parsesRetryAfterSecondsAndDates() {
+        assertEquals(Duration.ofSeconds(120), RetryPolicy.parseRetryAfter(" 120 "));
+        assertEquals(Duration.ZERO, RetryPolicy.parseRetryAfter("Wed, 21 Oct 2015 07:28:00 GMT"));
+        assertNull(RetryPolicy.parseRetryAfter("soon"));
+        assertNull(RetryPolicy.parseRetryAfter(null));
+    }
+
+    private static GaiaCoreApiException error(int status, Duration retryAfter) {
+        return new GaiaCoreApiException("API request failed: ", "location", status, "{}", retryAfter);
+    }
+}
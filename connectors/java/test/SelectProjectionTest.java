@@ -0,0 +1,91 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+/**
+ * {@code select=} projection through the convenience getters against the stub server:
+ * the select list actually sent, and rows trimmed to it.
+ */
+class SelectProjectionTest {
+
+    @Test
+    void rowGettersSendTheSelectAndGetTrimmedRows() throws Exception {
+        try (StubPostgrestServer server = StubPostgrestServer.builder()
+                .generated("location", 20)
+                .generated("variable_source", 5)
+                .start()) {
+            GaiaCoreClient client = new GaiaCoreClient(server.getUrl());
+
+            List<Map<String, Object>> rows = client.getLocations(null, null, 5, "location_id,city");
+            assertTrue(lastRequest(server).contains("select=location_id,city"), lastRequest(server));
+            assertEquals(5, rows.size());
+            for (Map<String, Object> row : rows) {
+                assertEquals(Set.of("location_id", "city"), row.keySet());
+            }
+
+            assertEquals(Set.of("variable_name"),
+                    client.getVariablesAsync(null, "variable_name").get(5, TimeUnit.SECONDS).get(0).keySet());
+            assertTrue(lastRequest(server).startsWith("GET /variable_source?select=variable_name"),
+                    lastRequest(server));
+
+            Map<String, Object> location = client.getLocationAsync(3, "latitude,longitude").get(5, TimeUnit.SECONDS);
+            assertEquals(Set.of("latitude", "longitude"), location.keySet());
+            assertTrue(lastRequest(server).contains("location_id=eq.3"), lastRequest(server));
+        }
+    }
+
+    @Test
+    void typedRecordsKeepDefaultsForColumnsLeftOut() throws Exception {
+        try (StubPostgrestServer server = StubPostgrestServer.builder()
+                .generated("location", 20)
+                .generated("data_source", 3)
+                .start()) {
+            GaiaCoreClient client = new GaiaCoreClient(server.getUrl());
+
+            List<Location> locations = client.getLocationRecords(null, null, 5, "location_id,city");
+            assertTrue(lastRequest(server).contains("select=location_id,city"), lastRequest(server));
+            Location first = locations.get(0);
+            assertEquals(1, first.getLocationId());
+            assertFalse(first.getCity() == null);
+            assertTrue(Double.isNaN(first.getLatitude()));
+            assertNull(first.getCountryConceptId());
+            assertNull(first.getZip());
+
+            List<DataSource> sources = client.getDataSourceRecordsAsync("dataset_name").get(5, TimeUnit.SECONDS);
+            assertEquals(3, sources.size());
+            assertEquals("Dataset 1", sources.get(0).getDatasetName());
+            assertNull(sources.get(0).getDataSourceUuid());
+            assertFalse(sources.get(0).hasAttributes());
+        }
+    }
+
+    @Test
+    void projectedLookupsBypassCoalescing() throws Exception {
+        try (StubPostgrestServer server = StubPostgrestServer.builder().generated("location", 20).start();
+             GaiaCoreClient client = GaiaCoreClient.builder(server.getUrl())
+                     .coalesceLookups(Duration.ofMillis(20), 100)
+                     .build()) {
+            client.getLocationAsync(1).get(5, TimeUnit.SECONDS);
+            assertTrue(lastRequest(server).contains("location_id=in.(1)"), lastRequest(server));
+
+            assertEquals(Set.of("city"), client.getLocationAsync(2, "city").get(5, TimeUnit.SECONDS).keySet());
+            assertTrue(lastRequest(server).contains("location_id=eq.2"), lastRequest(server));
+            assertTrue(lastRequest(server).contains("select=city"), lastRequest(server));
+        }
+    }
+
+    private static String lastRequest(StubPostgrestServer server) {
+        List<String> log = server.getRequestLog();
+        return URLDecoder.decode(log.get(log.size() - 1), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,1077 @@
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonWriter;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * An in-process stand-in for the gaiaCore PostgREST API, for exercising the client
+ * without Postgres, PostGIS or network access. Tables are served from CSV fixtures
+ * (such as test/omop/LOCATION.csv) or generated rows, and understand the PostgREST
+ * subset the client uses: select, eq/neq/gt/gte/lt/lte/like/ilike/in/is filters with
+ * not., or/and groups, order, limit and offset, plus {@code Prefer: count=exact} and a
+ * {@code db-max-rows} cap. Selects may hold count/sum/avg/min/max aggregates of numeric
+ * columns, grouped by the plain columns next to them. The RPC endpoints answer with
+ * canned results. Latency, injected failures, payload size and gzip/ETag support are
+ * configurable, and a seeded random source keeps runs reproducible.
+ *
+ * Example usage, run from connectors/java as Maven does (the fixtures live at the
+ * repository root):
+ *     try (StubPostgrestServer server = StubPostgrestServer.builder()
+ *             .csv("location", Paths.get("../../test/omop/LOCATION.csv"))
+ *             .generated("external_exposure", 100000)
+ *             .latency(Duration.ofMillis(5), Duration.ofMillis(20))
+ *             .failureRate(0.01, 503)
+ *             .start()) {
+ *         GaiaCoreClient client = new GaiaCoreClient(server.getUrl());
+ *         ...
+ *     }
+ *
+ * Run standalone with {@code mvn test-compile exec:java@stub -Dexec.args="3000"}.
+ */
+public class StubPostgrestServer implements AutoCloseable {
+    private static final Set<String> RESERVED_PARAMS = Set.of("select", "order", "limit", "offset");
+    private static final Pattern AGGREGATE =
+            Pattern.compile("(?:(\\w+):)?(?:(\\w+)\\.)?(count|sum|avg|min|max)\\(\\)");
+
+    private final Map<String, List<Map<String, Object>>> tables;
+    private final long minLatencyNanos;
+    private final long maxLatencyNanos;
+    private final double failureRate;
+    private final int failureStatus;
+    private final boolean etags;
+    private final int maxRows;
+    private final Random random;
+    private final HttpServer server;
+    private final ExecutorService threads;
+    private final Gson gson = new GsonBuilder().serializeNulls().create();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong countedRequests = new AtomicLong();
+    private final AtomicLong compressedResponses = new AtomicLong();
+    private final List<String> requestLog = new CopyOnWriteArrayList<>();
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger peakActive = new AtomicInteger();
+    private final AtomicInteger scriptedFailures = new AtomicInteger();
+    private volatile int scriptedFailureStatus;
+    private final AtomicInteger scriptedDelays = new AtomicInteger();
+    private volatile long scriptedDelayNanos;
+
+    private StubPostgrestServer(Builder builder) throws IOException {
+        this.tables = new HashMap<>();
+        builder.tables.forEach((name, rows) -> tables.put(name, scale(name, rows, builder.scale)));
+        this.minLatencyNanos = builder.minLatency.toNanos();
+        this.maxLatencyNanos = builder.maxLatency.toNanos();
+        this.failureRate = builder.failureRate;
+        this.failureStatus = builder.failureStatus;
+        this.etags = builder.etags;
+        this.maxRows = builder.maxRows;
+        this.random = new Random(builder.seed);
+
+        InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), builder.port);
+        this.server = HttpServer.create(address, 1024);
+        this.threads = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "stub-postgrest");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(threads);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Configuration for a {@link StubPostgrestServer}
+     */
+    public static class Builder {
+        private final Map<String, List<Map<String, Object>>> tables = new LinkedHashMap<>();
+        private int port;
+        private Duration minLatency = Duration.ZERO;
+        private Duration maxLatency = Duration.ZERO;
+        private double failureRate;
+        private int failureStatus = 503;
+        private int scale = 1;
+        private boolean etags;
+        private int maxRows;
+        private long seed = 42;
+
+        private Builder() {}
+
+        /**
+         * Listen on this loopback port; 0 (the default) picks a free one
+         */
+        public Builder port(int port) {
+            this.port = port;
+            return this;
+        }
+
+        /**
+         * Serve a table from explicit rows
+         */
+        public Builder table(String name, List<Map<String, Object>> rows) {
+            tables.put(name, new ArrayList<>(rows));
+            return this;
+        }
+
+        /**
+         * Serve a table from a CSV file with a header row. Empty fields become null
+         * and numeric fields numbers.
+         */
+        public Builder csv(String name, Path file) throws IOException {
+            return table(name, readCsv(file));
+        }
+
+        /**
+         * Serve {@code rows} generated rows for location, location_history, external_exposure,
+         * data_source or variable_source
+         */
+        public Builder generated(String name, int rows) {
+            return table(name, generate(name, rows, new Random(seed)));
+        }
+
+        /**
+         * Delay every response by a fixed time
+         */
+        public Builder latency(Duration latency) {
+            return latency(latency, latency);
+        }
+
+        /**
+         * Delay every response by a uniformly random time between {@code min} and {@code max}
+         */
+        public Builder latency(Duration min, Duration max) {
+            if (min.isNegative() || max.compareTo(min) < 0) {
+                throw new IllegalArgumentException("Invalid latency range: " + min + " to " + max);
+            }
+            this.minLatency = min;
+            this.maxLatency = max;
+            return this;
+        }
+
+        /**
+         * Answer this fraction of requests with an error {@code status} instead of data
+         */
+        public Builder failureRate(double rate, int status) {
+            if (rate < 0 || rate > 1) {
+                throw new IllegalArgumentException("rate must be between 0 and 1: " + rate);
+            }
+            this.failureRate = rate;
+            this.failureStatus = status;
+            return this;
+        }
+
+        /**
+         * Repeat every table's rows {@code factor} times, shifting the table's own
+         * {@code <table>_id} column so copies stay distinct
+         */
+        public Builder scale(int factor) {
+            if (factor <= 0) {
+                throw new IllegalArgumentException("factor must be positive: " + factor);
+            }
+            this.scale = factor;
+            return this;
+        }
+
+        /**
+         * Send an ETag with table responses and answer matching {@code If-None-Match} with 304.
+         * Responses are then buffered to hash them instead of being streamed.
+         */
+        public Builder etags(boolean etags) {
+            this.etags = etags;
+            return this;
+        }
+
+        /**
+         * Silently cap every table response at this many rows, like PostgREST's
+         * {@code db-max-rows} (1000 in docker-compose.yml). Unlimited by default.
+         */
+        public Builder maxRows(int maxRows) {
+            if (maxRows < 0) {
+                throw new IllegalArgumentException("maxRows must not be negative: " + maxRows);
+            }
+            this.maxRows = maxRows;
+            return this;
+        }
+
+        /**
+         * Seed for latency jitter, failure injection and generated rows
+         */
+        public Builder seed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        public StubPostgrestServer start() throws IOException {
+            return new StubPostgrestServer(this);
+        }
+    }
+
+    /**
+     * Base URL to pass to {@link GaiaCoreClient}
+     */
+    public String getUrl() {
+        InetSocketAddress address = server.getAddress();
+        return "http://" + address.getHostString() + ":" + address.getPort();
+    }
+
+    public long getRequestCount() {
+        return requests.get();
+    }
+
+    public long getInjectedFailureCount() {
+        return failures.get();
+    }
+
+    /**
+     * Number of table requests that asked for {@code Prefer: count=exact}
+     */
+    public long getCountedRequestCount() {
+        return countedRequests.get();
+    }
+
+    /**
+     * Number of responses sent gzip-compressed
+     */
+    public long getCompressedResponseCount() {
+        return compressedResponses.get();
+    }
+
+    /**
+     * Method, path and raw query of every request received, oldest first,
+     * e.g. {@code GET /location?select=city&limit=10}
+     */
+    public List<String> getRequestLog() {
+        return new ArrayList<>(requestLog);
+    }
+
+    /**
+     * Most requests the server has been working on at the same time, counting each
+     * request until it starts to answer, the way a client's in-flight permit is held
+     */
+    public int getMaxConcurrentRequests() {
+        return peakActive.get();
+    }
+
+    /**
+     * Answer the next {@code count} requests with an error {@code status}, whatever the failure rate
+     */
+    public void failNext(int count, int status) {
+        scriptedFailureStatus = status;
+        scriptedFailures.set(count);
+    }
+
+    /**
+     * Delay the next {@code count} requests by {@code delay} on top of the configured latency
+     */
+    public void delayNext(int count, Duration delay) {
+        scriptedDelayNanos = delay.toNanos();
+        scriptedDelays.set(count);
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        threads.shutdownNow();
+    }
+
+    // ========== Request Handling ==========
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        URI uri = exchange.getRequestURI();
+        requestLog.add(exchange.getRequestMethod() + " " + uri.getRawPath()
+                + (uri.getRawQuery() != null ? "?" + uri.getRawQuery() : ""));
+        try {
+            peakActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+            try {
+                drain(exchange.getRequestBody());
+                simulateLatency();
+                if (scriptedDelays.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+                    sleep(scriptedDelayNanos);
+                }
+            } finally {
+                active.decrementAndGet();
+            }
+            if (scriptedFailures.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+                failures.incrementAndGet();
+                sendError(exchange, scriptedFailureStatus, "PGRST000", "Injected failure");
+                return;
+            }
+            if (injectFailure()) {
+                failures.incrementAndGet();
+                sendError(exchange, failureStatus, "PGRST000", "Injected failure");
+                return;
+            }
+
+            String path = exchange.getRequestURI().getRawPath().replaceAll("^/+", "");
+            if (path.startsWith("rpc/")) {
+                handleRpc(exchange, path.substring(4));
+            } else if ("GET".equals(exchange.getRequestMethod()) || "HEAD".equals(exchange.getRequestMethod())) {
+                handleTable(exchange, path);
+            } else {
+                sendError(exchange, 405, "PGRST117", "Unsupported HTTP method: " + exchange.getRequestMethod());
+            }
+        } catch (IllegalArgumentException e) {
+            // Malformed filters and selects, answered like PostgREST before the exchange is closed
+            sendError(exchange, 400, "PGRST100", e.getMessage());
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void simulateLatency() {
+        long nanos = minLatencyNanos;
+        if (maxLatencyNanos > minLatencyNanos) {
+            synchronized (random) {
+                nanos += (long) (random.nextDouble() * (maxLatencyNanos - minLatencyNanos));
+            }
+        }
+        sleep(nanos);
+    }
+
+    private static void sleep(long nanos) {
+        if (nanos > 0) {
+            try {
+                Thread.sleep(nanos / 1_000_000, (int) (nanos % 1_000_000));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private boolean injectFailure() {
+        if (failureRate <= 0) return false;
+        synchronized (random) {
+            return random.nextDouble() < failureRate;
+        }
+    }
+
+    private void handleTable(HttpExchange exchange, String table) throws IOException {
+        List<Map<String, Object>> rows = tables.get(table);
+        if (rows == null) {
+            sendError(exchange, 404, "42P01", "relation \"" + table + "\" does not exist");
+            return;
+        }
+
+        List<String> select = null;
+        List<Aggregate> aggregates = List.of();
+        List<Comparator<Map<String, Object>>> order = new ArrayList<>();
+        int limit = Integer.MAX_VALUE;
+        int offset = 0;
+        List<Predicate<Map<String, Object>>> filters = new ArrayList<>();
+
+        for (String[] param : parseQuery(exchange.getRequestURI().getRawQuery())) {
+            String key = param[0];
+            String value = param[1];
+            switch (key) {
+                case "select":
+                    select = parseSelect(value);
+                    aggregates = parseAggregates(value);
+                    break;
+                case "order": order.add(parseOrder(value)); break;
+                case "limit": limit = Integer.parseInt(value); break;
+                case "offset": offset = Integer.parseInt(value); break;
+                case "or": case "and": case "not.or": case "not.and":
+                    filters.add(parseLogical(key, value));
+                    break;
+                default:
+                    filters.add(parseFilter(key, value));
+            }
+        }
+
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (Map<String, Object> row : rows) {
+            if (filters.stream().allMatch(filter -> filter.test(row))) result.add(row);
+        }
+        if (!aggregates.isEmpty()) {
+            result = aggregate(result, select != null ? select : List.of(), aggregates);
+            select = null;
+        }
+        if (!order.isEmpty()) {
+            Comparator<Map<String, Object>> comparator = order.get(0);
+            for (int i = 1; i < order.size(); i++) comparator = comparator.thenComparing(order.get(i));
+            result.sort(comparator);
+        }
+        if (maxRows > 0) limit = Math.min(limit, maxRows);
+        int from = Math.min(offset, result.size());
+        int to = (int) Math.min((long) from + limit, result.size());
+
+        boolean counted = exchange.getRequestHeaders().getOrDefault("Prefer", List.of()).stream()
+                .anyMatch(value -> value.contains("count=exact"));
+        if (counted) countedRequests.incrementAndGet();
+        String range = from < to ? from + "-" + (to - 1) : "*";
+        exchange.getResponseHeaders().set("Content-Range", range + "/" + (counted ? result.size() : "*"));
+        int status = counted && to - from < result.size() ? 206 : 200;
+        sendRows(exchange, status, result.subList(from, to), select);
+    }
+
+    private void handleRpc(HttpExchange exchange, String function) throws IOException {
+        if (!"POST".equals(exchange.getRequestMethod())) {
+            sendError(exchange, 405, "PGRST117", "RPC calls must use POST");
+            return;
+        }
+        Object result;
+        switch (function) {
+            case "list_downloadable_datasources":
+                result = tables.getOrDefault("data_source", Collections.emptyList());
+                break;
+            case "fetch_and_load_jsonld": {
+                List<Map<String, Object>> sources = tables.getOrDefault("data_source", Collections.emptyList());
+                result = sources.isEmpty() ? generate("data_source", 1, new Random(0)) : sources.subList(0, 1);
+                break;
+            }
+            case "quick_ingest_datasource":
+                result = List.of(step("download"), step("load"), step("transform"));
+                break;
+            case "load_location_data":
+                result = Map.of("status", "ok",
+                        "locations_loaded", tables.getOrDefault("location", Collections.emptyList()).size(),
+                        "location_history_loaded",
+                        tables.getOrDefault("location_history", Collections.emptyList()).size());
+                break;
+            case "spatial_join_exposure":
+                result = Map.of("status", "ok",
+                        "exposures_created",
+                        tables.getOrDefault("external_exposure", Collections.emptyList()).size());
+                break;
+            default:
+                sendError(exchange, 404, "PGRST202", "Could not find the function " + function);
+                return;
+        }
+        sendJson(exchange, 200, gson.toJson(result).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Map<String, Object> step(String name) {
+        Map<String, Object> step = new LinkedHashMap<>();
+        step.put("step", name);
+        step.put("status", "ok");
+        return step;
+    }
+
+    // ========== Responses ==========
+
+    private void sendRows(HttpExchange exchange, int status, List<Map<String, Object>> rows, List<String> select)
+            throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        boolean gzip = exchange.getRequestHeaders().getOrDefault("Accept-Encoding", List.of()).stream()
+                .anyMatch(value -> value.contains("gzip"));
+        if (gzip) exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+
+        if (etags) {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            writeRows(buffer, rows, select);
+            byte[] body = buffer.toByteArray();
+            String etag = "\"" + sha256(body) + "\"";
+            exchange.getResponseHeaders().set("ETag", etag);
+            if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                exchange.getResponseHeaders().remove("Content-Encoding");
+                exchange.sendResponseHeaders(304, -1);
+                return;
+            }
+            if (gzip) compressedResponses.incrementAndGet();
+            byte[] encoded = gzip ? gzip(body) : body;
+            exchange.sendResponseHeaders(status, encoded.length);
+            exchange.getResponseBody().write(encoded);
+            return;
+        }
+
+        // Chunked, so large tables stream to the client as they are written
+        exchange.sendResponseHeaders(status, 0);
+        OutputStream out = exchange.getResponseBody();
+        if (gzip) {
+            compressedResponses.incrementAndGet();
+            try (GZIPOutputStream compressed = new GZIPOutputStream(out, 8192)) {
+                writeRows(compressed, rows, select);
+            }
+        } else {
+            writeRows(out, rows, select);
+        }
+    }
+
+    private void writeRows(OutputStream out, List<Map<String, Object>> rows, List<String> select)
+            throws IOException {
+        Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        JsonWriter json = new JsonWriter(writer);
+        json.setSerializeNulls(true);
+        json.beginArray();
+        for (Map<String, Object> row : rows) {
+            json.beginObject();
+            for (Map.Entry<String, Object> column : row.entrySet()) {
+                if (select != null && !select.contains(column.getKey())) continue;
+                json.name(column.getKey());
+                Object value = column.getValue();
+                if (value == null) {
+                    json.nullValue();
+                } else if (value instanceof Number) {
+                    json.value((Number) value);
+                } else if (value instanceof Boolean) {
+                    json.value((Boolean) value);
+                } else {
+                    json.value(value.toString());
+                }
+            }
+            json.endObject();
+        }
+        json.endArray();
+        json.flush();
+    }
+
+    private void sendError(HttpExchange exchange, int status, String code, String message) throws IOException {
+        Map<String, Object> error = new LinkedHashMap<>();
+        error.put("code", code);
+        error.put("details", null);
+        error.put("hint", null);
+        error.put("message", message);
+        sendJson(exchange, status, gson.toJson(error).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void sendJson(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        exchange.getResponseBody().write(body);
+    }
+
+    private static void drain(InputStream body) throws IOException {
+        body.transferTo(OutputStream.nullOutputStream());
+    }
+
+    private static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        }
+        return out.toByteArray();
+    }
+
+    private static String sha256(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            StringBuilder hex = new StringBuilder();
+            for (int i = 0; i < 8; i++) hex.append(String.format("%02x", digest[i]));
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // ========== PostgREST Query Syntax ==========
+
+    private static List<String[]> parseQuery(String rawQuery) {
+        List<String[]> params = new ArrayList<>();
+        if (rawQuery == null || rawQuery.isEmpty()) return params;
+        for (String pair : rawQuery.split("&")) {
+            if (pair.isEmpty()) continue;
+            int eq = pair.indexOf('=');
+            String key = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), StandardCharsets.UTF_8);
+            String value = eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            params.add(new String[] {key, value});
+        }
+        return params;
+    }
+
+    /**
+     * Plain column names, skipping aggregates; embedded resources and casts are not supported
+     */
+    private static List<String> parseSelect(String value) {
+        if (value.equals("*")) return null;
+        List<String> columns = new ArrayList<>();
+        for (String column : splitTopLevel(value)) {
+            if (AGGREGATE.matcher(column).matches()) continue;
+            if (column.contains("(") || column.contains("::")) {
+                throw new IllegalArgumentException("Stub server only supports plain select columns: " + column);
+            }
+            int alias = column.indexOf(':');
+            columns.add(alias < 0 ? column : column.substring(alias + 1));
+        }
+        return columns;
+    }
+
+    private static List<Aggregate> parseAggregates(String value) {
+        List<Aggregate> aggregates = new ArrayList<>();
+        for (String item : splitTopLevel(value)) {
+            Matcher matcher = AGGREGATE.matcher(item);
+            if (!matcher.matches()) continue;
+            if (matcher.group(2) == null && !matcher.group(3).equals("count")) {
+                throw new IllegalArgumentException("Aggregate needs a column: " + item);
+            }
+            String name = matcher.group(1) != null ? matcher.group(1) : matcher.group(3);
+            aggregates.add(new Aggregate(name, matcher.group(2), matcher.group(3)));
+        }
+        return aggregates;
+    }
+
+    /**
+     * One row per distinct combination of the {@code groupBy} columns, in order of first
+     * appearance, or a single row for the whole input when there are none
+     */
+    private static List<Map<String, Object>> aggregate(List<Map<String, Object>> rows, List<String> groupBy,
+                                                       List<Aggregate> aggregates) {
+        Map<List<Object>, List<Map<String, Object>>> groups = new LinkedHashMap<>();
+        if (groupBy.isEmpty()) {
+            groups.put(List.of(), rows);
+        } else {
+            for (Map<String, Object> row : rows) {
+                List<Object> key = new ArrayList<>();
+                for (String column : groupBy) key.add(row.get(column));
+                groups.computeIfAbsent(key, k -> new ArrayList<>()).add(row);
+            }
+        }
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (Map.Entry<List<Object>, List<Map<String, Object>>> group : groups.entrySet()) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (int i = 0; i < groupBy.size(); i++) row.put(groupBy.get(i), group.getKey().get(i));
+            for (Aggregate aggregate : aggregates) row.put(aggregate.name, aggregate.apply(group.getValue()));
+            result.add(row);
+        }
+        return result;
+    }
+
+    private static Comparator<Map<String, Object>> parseOrder(String value) {
+        Comparator<Map<String, Object>> order = null;
+        for (String item : value.split(",")) {
+            String[] parts = item.split("\\.");
+            String column = parts[0];
+            boolean descending = parts.length > 1 && parts[1].equals("desc");
+            Comparator<Map<String, Object>> next = (a, b) -> compare(a.get(column), b.get(column));
+            if (descending) next = next.reversed();
+            order = order == null ? next : order.thenComparing(next);
+        }
+        return order;
+    }
+
+    /**
+     * {@code column=[not.]op.value}
+     */
+    private static Predicate<Map<String, Object>> parseFilter(String column, String expression) {
+        boolean negated = expression.startsWith("not.");
+        if (negated) expression = expression.substring(4);
+        int dot = expression.indexOf('.');
+        if (dot < 0) {
+            throw new IllegalArgumentException("Invalid filter: " + column + "=" + expression);
+        }
+        Predicate<Map<String, Object>> filter = operator(column, expression.substring(0, dot),
+                expression.substring(dot + 1));
+        return negated ? filter.negate() : filter;
+    }
+
+    /**
+     * {@code [not.]or=(a.eq.1,b.gt.2,and(c.eq.3,d.eq.4))}
+     */
+    private static Predicate<Map<String, Object>> parseLogical(String key, String value) {
+        boolean negated = key.startsWith("not.");
+        String operator = negated ? key.substring(4) : key;
+        if (!value.startsWith("(") || !value.endsWith(")")) {
+            throw new IllegalArgumentException("Invalid logical filter: " + key + "=" + value);
+        }
+        List<Predicate<Map<String, Object>>> operands = new ArrayList<>();
+        for (String item : splitTopLevel(value.substring(1, value.length() - 1))) {
+            operands.add(parseOperand(item));
+        }
+        Predicate<Map<String, Object>> combined = operator.equals("or")
+                ? row -> operands.stream().anyMatch(operand -> operand.test(row))
+                : row -> operands.stream().allMatch(operand -> operand.test(row));
+        return negated ? combined.negate() : combined;
+    }
+
+    private static Predicate<Map<String, Object>> parseOperand(String item) {
+        for (String logical : new String[] {"or(", "and(", "not.or(", "not.and("}) {
+            if (item.startsWith(logical)) {
+                int open = item.indexOf('(');
+                return parseLogical(item.substring(0, open), item.substring(open));
+            }
+        }
+        int dot = item.indexOf('.');
+        if (dot < 0) {
+            throw new IllegalArgumentException("Invalid logical operand: " + item);
+        }
+        return parseFilter(item.substring(0, dot), unquoteOperand(item.substring(dot + 1)));
+    }
+
+    /**
+     * Strip PostgREST double quotes from the value of an {@code op."value"} operand
+     */
+    private static String unquoteOperand(String expression) {
+        int quote = expression.indexOf('"');
+        if (quote < 0 || !expression.endsWith("\"")) return expression;
+        return expression.substring(0, quote) + unquote(expression.substring(quote));
+    }
+
+    private static Predicate<Map<String, Object>> operator(String column, String operator, String operand) {
+        switch (operator) {
+            case "eq": return row -> compare(row.get(column), operand) == 0 && row.get(column) != null;
+            case "neq": return row -> row.get(column) != null && compare(row.get(column), operand) != 0;
+            case "gt": return row -> row.get(column) != null && compare(row.get(column), operand) > 0;
+            case "gte": return row -> row.get(column) != null && compare(row.get(column), operand) >= 0;
+            case "lt": return row -> row.get(column) != null && compare(row.get(column), operand) < 0;
+            case "lte": return row -> row.get(column) != null && compare(row.get(column), operand) <= 0;
+            case "like": return likeFilter(column, operand, false);
+            case "ilike": return likeFilter(column, operand, true);
+            case "is":
+                switch (operand) {
+                    case "null": return row -> row.get(column) == null;
+                    case "true": return row -> Boolean.TRUE.equals(row.get(column));
+                    case "false": return row -> Boolean.FALSE.equals(row.get(column));
+                    default: throw new IllegalArgumentException("Invalid is. operand: " + operand);
+                }
+            case "in": {
+                if (!operand.startsWith("(") || !operand.endsWith(")")) {
+                    throw new IllegalArgumentException("Invalid in. list: " + operand);
+                }
+                List<String> values = new ArrayList<>();
+                for (String item : splitTopLevel(operand.substring(1, operand.length() - 1))) {
+                    values.add(unquote(item));
+                }
+                return row -> row.get(column) != null
+                        && values.stream().anyMatch(value -> compare(row.get(column), value) == 0);
+            }
+            default:
+                throw new IllegalArgumentException("Stub server does not support operator: " + operator);
+        }
+    }
+
+    private static Predicate<Map<String, Object>> likeFilter(String column, String pattern, boolean ignoreCase) {
+        StringBuilder regex = new StringBuilder(ignoreCase ? "(?is)" : "(?s)");
+        for (String part : pattern.split("[*%]", -1)) {
+            if (regex.length() > (ignoreCase ? 5 : 4)) regex.append(".*");
+            regex.append(java.util.regex.Pattern.quote(part));
+        }
+        java.util.regex.Pattern compiled = java.util.regex.Pattern.compile(regex.toString());
+        return row -> row.get(column) != null && compiled.matcher(row.get(column).toString()).matches();
+    }
+
+    /**
+     * Compare a cell with another cell or a filter operand, numerically when both are numbers
+     */
+    private static int compare(Object cell, Object other) {
+        if (cell == null || other == null) {
+            return cell == other ? 0 : cell == null ? 1 : -1; // nulls last
+        }
+        Double left = asNumber(cell);
+        Double right = asNumber(other);
+        if (left != null && right != null) {
+            return Double.compare(left, right);
+        }
+        return cell.toString().compareTo(other.toString());
+    }
+
+    private static Double asNumber(Object value) {
+        if (value instanceof Number) return ((Number) value).doubleValue();
+        try {
+            return Double.parseDouble(value.toString());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Split on commas that are outside parentheses and double quotes
+     */
+    private static List<String> splitTopLevel(String text) {
+        List<String> items = new ArrayList<>();
+        int depth = 0;
+        boolean quoted = false;
+        int start = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (quoted) {
+                if (c == '\\') i++;
+                else if (c == '"') quoted = false;
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if (c == ',' && depth == 0) {
+                items.add(text.substring(start, i));
+                start = i + 1;
+            }
+        }
+        items.add(text.substring(start));
+        return items;
+    }
+
+    private static String unquote(String value) {
+        if (value.length() < 2 || !value.startsWith("\"") || !value.endsWith("\"")) return value;
+        StringBuilder text = new StringBuilder();
+        for (int i = 1; i < value.length() - 1; i++) {
+            char c = value.charAt(i);
+            if (c == '\\' && i + 1 < value.length() - 1) c = value.charAt(++i);
+            text.append(c);
+        }
+        return text.toString();
+    }
+
+    // ========== Fixtures ==========
+
+    private static List<Map<String, Object>> scale(String table, List<Map<String, Object>> rows, int factor) {
+        if (factor == 1) return rows;
+        String idColumn = table + "_id";
+        long maxId = 0;
+        for (Map<String, Object> row : rows) {
+            Object id = row.get(idColumn);
+            if (id instanceof Number) maxId = Math.max(maxId, ((Number) id).longValue());
+        }
+        List<Map<String, Object>> scaled = new ArrayList<>(rows.size() * factor);
+        for (int copy = 0; copy < factor; copy++) {
+            for (Map<String, Object> row : rows) {
+                Map<String, Object> copied = new LinkedHashMap<>(row);
+                Object id = row.get(idColumn);
+                if (copy > 0 && id instanceof Number) {
+                    copied.put(idColumn, ((Number) id).longValue() + copy * maxId);
+                }
+                scaled.add(copied);
+            }
+        }
+        return scaled;
+    }
+
+    /**
+     * Read a CSV file with a header row; handles quoted fields and a UTF-8 byte order mark
+     */
+    static List<Map<String, Object>> readCsv(Path file) throws IOException {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String headerLine = reader.readLine();
+            if (headerLine == null) return rows;
+            if (headerLine.startsWith("\uFEFF")) headerLine = headerLine.substring(1);
+            List<String> header = parseCsvLine(headerLine);
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) continue;
+                List<String> fields = parseCsvLine(line);
+                Map<String, Object> row = new LinkedHashMap<>();
+                for (int i = 0; i < header.size(); i++) {
+                    row.put(header.get(i).trim(), csvValue(i < fields.size() ? fields.get(i) : ""));
+                }
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+
+    private static List<String> parseCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static Object csvValue(String field) {
+        if (field.isEmpty()) return null;
+        if (field.matches("-?0\\d+")) return field; // zero-padded codes such as ZIPs stay text
+        try {
+            return Long.parseLong(field);
+        } catch (NumberFormatException e) {
+            // not an integer
+        }
+        try {
+            if (field.matches("-?\\d*\\.\\d+([eE][-+]?\\d+)?")) return Double.parseDouble(field);
+        } catch (NumberFormatException e) {
+            // not a number
+        }
+        return field;
+    }
+
+    private static final String[] CITIES = {"BOSTON", "FRESNO", "LOS ANGELES", "WORCESTER", "SPRINGFIELD"};
+    private static final String[] STATES = {"MA", "CA", "NY", "TX"};
+
+    static List<Map<String, Object>> generate(String table, int count, Random random) {
+        List<Map<String, Object>> rows = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            switch (table) {
+                case "location":
+                    row.put("location_id", (long) i);
+                    row.put("address_1", (1 + random.nextInt(9999)) + " Main St");
+                    row.put("address_2", null);
+                    row.put("city", CITIES[random.nextInt(CITIES.length)]);
+                    row.put("state", STATES[random.nextInt(STATES.length)]);
+                    row.put("zip", String.format("%05d", random.nextInt(99999)));
+                    row.put("county", null);
+                    row.put("location_source_value", "loc-" + i);
+                    row.put("country_concept_id", 4330442L);
+                    row.put("country_source_value", "UNITED STATES OF AMERICA");
+                    row.put("latitude", 25 + random.nextDouble() * 20);
+                    row.put("longitude", -120 + random.nextDouble() * 50);
+                    break;
+                case "location_history":
+                    row.put("location_id", (long) (1 + random.nextInt(Math.max(1, count / 2))));
+                    row.put("relationship_type_concept_id", 32848L);
+                    row.put("domain_id", 1147314L);
+                    row.put("entity_id", (long) i);
+                    row.put("start_date", "1998-01-01");
+                    row.put("end_date", "2020-01-01");
+                    break;
+                case "external_exposure":
+                    row.put("external_exposure_id", (long) i);
+                    row.put("location_id", (long) (1 + random.nextInt(Math.max(1, count / 10))));
+                    row.put("person_id", (long) (1 + random.nextInt(Math.max(1, count / 10))));
+                    row.put("exposure_concept_id", 2052499839L);
+                    row.put("exposure_start_date", "2016-01-01");
+                    row.put("exposure_end_date", "2016-12-31");
+                    row.put("exposure_type_concept_id", 32880L);
+                    row.put("exposure_relationship_concept_id", 0L);
+                    row.put("exposure_source_concept_id", 0L);
+                    row.put("exposure_source_value", "pm25");
+                    row.put("exposure_relationship_source_value", null);
+                    row.put("dose_unit_source_value", "ug/m3");
+                    row.put("quantity", null);
+                    row.put("modifier_source_value", null);
+                    row.put("operator_concept_id", 0L);
+                    row.put("value_as_number", random.nextDouble() * 40);
+                    row.put("value_as_concept_id", 0L);
+                    row.put("unit_concept_id", 0L);
+                    break;
+                case "data_source":
+                    row.put("data_source_uuid", new UUID(random.nextLong(), random.nextLong()).toString());
+                    row.put("org_id", "ORG");
+                    row.put("org_set_id", "SET");
+                    row.put("dataset_name", "Dataset " + i);
+                    row.put("dataset_version", "1.0");
+                    row.put("geom_type", "POINT");
+                    row.put("boundary_type", null);
+                    row.put("has_attributes", true);
+                    row.put("geom_dependency_uuid", null);
+                    row.put("download_method", "http");
+                    row.put("download_subtype", "zip");
+                    row.put("download_data_standard", "csv");
+                    row.put("download_filename", "dataset_" + i + ".zip");
+                    row.put("download_url", "https://example.org/dataset_" + i + ".zip");
+                    row.put("documentation_url", null);
+                    break;
+                case "variable_source":
+                    row.put("variable_source_id", (long) i);
+                    row.put("variable_name", "variable_" + i);
+                    row.put("variable_desc", "Generated variable " + i);
+                    row.put("data_source_uuid", new UUID(0, 1 + random.nextInt(10)).toString());
+                    break;
+                default:
+                    throw new IllegalArgumentException("No generator for table " + table);
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    /**
+     * Serve the test/omop fixtures when present, plus generated exposures and metadata, until killed.
+     * Arguments: [port] [fixture directory]
+     */
+    public static void main(String[] args) throws Exception {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 3000;
+        Path fixtures = Paths.get(args.length > 1 ? args[1] : "../../test/omop");
+
+        Builder builder = builder().port(port)
+                .generated("external_exposure", 10000)
+                .generated("data_source", 5)
+                .generated("variable_source", 20);
+        if (Files.isRegularFile(fixtures.resolve("LOCATION.csv"))) {
+            builder.csv("location", fixtures.resolve("LOCATION.csv"));
+        } else {
+            builder.generated("location", 1000);
+        }
+        if (Files.isRegularFile(fixtures.resolve("LOCATION_HISTORY.csv"))) {
+            builder.csv("location_history", fixtures.resolve("LOCATION_HISTORY.csv"));
+        } else {
+            builder.generated("location_history", 1000);
+        }
+
+        StubPostgrestServer server = builder.start();
+        System.out.println("Stub PostgREST API listening on " + server.getUrl());
+        Thread.currentThread().join();
+    }
+
+    /**
+     * A select item such as {@code mean:value_as_number.avg()}; nulls and non-numeric cells
+     * are skipped, and sum/avg/min/max of no values are null
+     */
+    private static final class Aggregate {
+        private final String name;
+        private final String column;
+        private final String function;
+
+        Aggregate(String name, String column, String function) {
+            this.name = name;
+            this.column = column;
+            this.function = function;
+        }
+
+        Object apply(List<Map<String, Object>> rows) {
+            if (column == null) return (long) rows.size();
+            long count = 0;
+            double sum = 0;
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            for (Map<String, Object> row : rows) {
+                Object cell = row.get(column);
+                Double value = cell != null ? asNumber(cell) : null;
+                if (value == null) continue;
+                count++;
+                sum += value;
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+            }
+            switch (function) {
+                case "count": return count;
+                case "sum": return count > 0 ? sum : null;
+                case "avg": return count > 0 ? sum / count : null;
+                case "min": return count > 0 ? min : null;
+                default: return count > 0 ? max : null;
+            }
+        }
+    }
+}
@@ -0,0 +1,76 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import org.junit.jupiter.api.Test;
+
+/**
+ * {@link ValidatorCache} on its own: the entry and byte bounds, and weighing
+ * values by the bytes they were decoded from.
+ */
+class ValidatorCacheTest {
+
+    @Test
+    void evictsLeastRecentlyUsedBeyondTheEntryBound() {
+        ValidatorCache cache = new ValidatorCache(2, 1000);
+        cache.put("a", validators(10));
+        cache.put("b", validators(10));
+        cache.get("a");
+
+        cache.put("c", validators(10));
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("a"));
+        assertEquals(20, cache.getBytes());
+    }
+
+    @Test
+    void evictsUntilTheBodiesFitTheByteBound() {
+        ValidatorCache cache = new ValidatorCache(10, 100);
+        cache.put("a", validators(40));
+        cache.put("b", validators(40));
+
+        cache.put("c", validators(50));
+        assertNull(cache.get("a"));
+        assertNotNull(cache.get("b"));
+        assertEquals(90, cache.getBytes());
+
+        cache.put("b", validators(10));
+        assertEquals(60, cache.getBytes(), "replacing an entry releases its old size");
+    }
+
+    @Test
+    void doesNotKeepAValueLargerThanTheByteBound() {
+        ValidatorCache cache = new ValidatorCache(10, 100);
+        cache.put("a", validators(30));
+
+        cache.put("a", validators(101));
+        assertNull(cache.get("a"), "the oversized value also replaces the old one");
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getBytes());
+    }
+
+    @Test
+    void countingStreamCountsTheBytesRead() throws Exception {
+        ValidatorCache.CountingStream counted =
+                new ValidatorCache.CountingStream(new ByteArrayInputStream(new byte[300]));
+        try (InputStream in = counted) {
+            in.read();
+            in.read(new byte[100]);
+            in.readAllBytes();
+        }
+        assertEquals(300, counted.getCount());
+    }
+
+    @Test
+    void rejectsInvalidBounds() {
+        assertThrows(IllegalArgumentException.class, () -> new ValidatorCache(0, 100));
+        assertThrows(IllegalArgumentException.class, () -> new ValidatorCache(10, 0));
+    }
+
+    private static ValidatorCache.Validators validators(long size) {
+        return new ValidatorCache.Validators("\"etag\"", null, new Object(), size);
+    }
+}
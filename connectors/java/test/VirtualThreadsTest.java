@@ -0,0 +1,92 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+/**
+ * {@link VirtualThreads} on the running JDK: virtual threads from Java 21 on, and
+ * before that a clear failure for {@link GaiaCoreClient.Builder#virtualThreads()}
+ * while {@link GaiaCoreClient#fanOut} falls back to platform threads.
+ */
+class VirtualThreadsTest {
+    private static final boolean JAVA_21 = Runtime.version().feature() >= 21;
+
+    @Test
+    void unsupportedBeforeJava21() {
+        assumeTrue(!JAVA_21, "running on Java 21 or later");
+
+        assertFalse(VirtualThreads.isSupported());
+        assertThrows(UnsupportedOperationException.class, VirtualThreads::newVirtualThreadPerTaskExecutor);
+        assertThrows(UnsupportedOperationException.class,
+                () -> GaiaCoreClient.builder("http://localhost:1").virtualThreads());
+    }
+
+    @Test
+    void fanOutFallsBackToPlatformThreadsBeforeJava21() throws Exception {
+        assumeTrue(!JAVA_21, "running on Java 21 or later");
+
+        try (GaiaCoreClient client = new GaiaCoreClient("http://localhost:1")) {
+            Map<Integer, String> threads = client.fanOut(Arrays.asList(1, 2, 3),
+                    key -> Thread.currentThread().getName());
+
+            for (String thread : threads.values()) {
+                assertEquals("gaiacore-fan-out", thread);
+            }
+        }
+    }
+
+    @Test
+    void runsTasksOnVirtualThreadsFromJava21() throws Exception {
+        assumeTrue(JAVA_21, "running before Java 21");
+
+        assertTrue(VirtualThreads.isSupported());
+        ExecutorService executor = VirtualThreads.newVirtualThreadPerTaskExecutor();
+        try {
+            assertTrue(executor.submit(() -> isVirtual(Thread.currentThread())).get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdown();
+        }
+        try (GaiaCoreClient client = GaiaCoreClient.builder("http://localhost:1").virtualThreads().build()) {
+            Map<Integer, Boolean> virtual = client.fanOut(Arrays.asList(1, 2, 3),
+                    key -> isVirtual(Thread.currentThread()));
+            assertFalse(virtual.containsValue(false));
+        }
+    }
+
+    @Test
+    void closeLetsPendingAsyncRequestsFinishFromJava21() throws Exception {
+        assumeTrue(JAVA_21, "running before Java 21");
+
+        try (StubPostgrestServer server = StubPostgrestServer.builder()
+                .generated("location", 10)
+                .latency(Duration.ofMillis(200))
+                .start()) {
+            GaiaCoreClient client = GaiaCoreClient.builder(server.getUrl()).virtualThreads().build();
+            client.fanOut(Arrays.asList(1, 2), key -> key);
+
+            CompletableFuture<List<Map<String, Object>>> pending = client.getLocationsAsync(null, null, 5);
+            client.close();
+
+            assertEquals(5, pending.get(5, TimeUnit.SECONDS).size(), "decoded after close()");
+            assertThrows(IllegalStateException.class, () -> client.fanOut(Arrays.asList(1), key -> key));
+        }
+    }
+
+    private static boolean isVirtual(Thread thread) {
+        try {
+            return (Boolean) Thread.class.getMethod("isVirtual").invoke(thread);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}